@@ -0,0 +1,104 @@
+package ait.forum.accounting.dao;
+
+import ait.forum.accounting.model.UserAccount;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.StreamSupport;
+
+// Heap-backed stand-in for the Mongo repository used by the benchmarks.
+public class InMemoryUserAccountRepository implements UserAccountRepository {
+
+    final Map<String, UserAccount> users = new ConcurrentHashMap<>();
+
+    @Override
+    public <S extends UserAccount> S save(S userAccount) {
+        users.put(userAccount.getLogin(), userAccount);
+        return userAccount;
+    }
+
+    @Override
+    public <S extends UserAccount> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(userAccount -> saved.add(save(userAccount)));
+        return saved;
+    }
+
+    @Override
+    public Optional<UserAccount> findById(String login) {
+        return Optional.ofNullable(users.get(login));
+    }
+
+    @Override
+    public boolean existsById(String login) {
+        return users.containsKey(login);
+    }
+
+    @Override
+    public Iterable<UserAccount> findAll() {
+        return List.copyOf(users.values());
+    }
+
+    @Override
+    public Iterable<UserAccount> findAllById(Iterable<String> logins) {
+        return StreamSupport.stream(logins.spliterator(), false)
+                .map(users::get)
+                .filter(userAccount -> userAccount != null)
+                .toList();
+    }
+
+    @Override
+    public long count() {
+        return users.size();
+    }
+
+    @Override
+    public void deleteById(String login) {
+        users.remove(login);
+    }
+
+    @Override
+    public void delete(UserAccount userAccount) {
+        users.remove(userAccount.getLogin());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> logins) {
+        logins.forEach(users::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends UserAccount> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        users.clear();
+    }
+
+    @Override
+    public Optional<UserAccount> updateNames(String login, String firstName, String lastName) {
+        UserAccount userAccount = users.get(login);
+        if (userAccount == null) {
+            return Optional.empty();
+        }
+        synchronized (userAccount) {
+            if (firstName != null) {
+                userAccount.setFirstName(firstName);
+            }
+            if (lastName != null) {
+                userAccount.setLastName(lastName);
+            }
+        }
+        return Optional.of(userAccount);
+    }
+
+    @Override
+    public Optional<Long> findTokenVersion(String login) {
+        return findById(login).map(UserAccount::getTokenVersion);
+    }
+}
@@ -0,0 +1,57 @@
+package ait.forum.accounting.service;
+
+import ait.forum.accounting.dto.RolesDto;
+import ait.forum.accounting.dto.UserDto;
+import ait.forum.accounting.model.Role;
+import ait.forum.accounting.model.UserAccount;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.config.Configuration.AccessLevel;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class UserAccountMappingBenchmark {
+
+    ModelMapper modelMapper;
+    UserAccountMapper userAccountMapper;
+    UserAccount userAccount;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setFieldMatchingEnabled(true)
+                .setFieldAccessLevel(AccessLevel.PRIVATE)
+                .setMatchingStrategy(MatchingStrategies.STRICT);
+        userAccountMapper = new UserAccountMapper();
+        userAccount = new UserAccount("john", "hash", "John", "Doe");
+        userAccount.addRole(Role.MODERATOR.name());
+    }
+
+    @Benchmark
+    public UserDto modelMapperUserDto() {
+        return modelMapper.map(userAccount, UserDto.class);
+    }
+
+    @Benchmark
+    public UserDto userAccountMapperUserDto() {
+        return userAccountMapper.toUserDto(userAccount);
+    }
+
+    @Benchmark
+    public RolesDto modelMapperRolesDto() {
+        return modelMapper.map(userAccount, RolesDto.class);
+    }
+
+    @Benchmark
+    public RolesDto userAccountMapperRolesDto() {
+        return userAccountMapper.toRolesDto(userAccount);
+    }
+}
@@ -0,0 +1,47 @@
+package ait.forum.benchmark;
+
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Deterministic fixtures: the same seed yields the same posts on every run and every commit.
+public final class BenchmarkData {
+
+    public static final long SEED = 42;
+
+    final Random random = new Random(SEED);
+
+    public Post post(String id, int tags) {
+        Set<String> postTags = new HashSet<>();
+        for (int i = 0; i < tags; i++) {
+            postTags.add("tag" + random.nextInt(tags * 4 + 1));
+        }
+        Post post = new Post("Title " + id, text(400), postTags, "author" + random.nextInt(100));
+        post.setId(id);
+        return post;
+    }
+
+    public List<Comment> comments(String postId, int count) {
+        List<Comment> comments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            comments.add(new Comment(postId, "user" + random.nextInt(1000), text(120)));
+        }
+        return comments;
+    }
+
+    public String text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append((char) ('a' + random.nextInt(26)));
+            if (random.nextInt(7) == 0) {
+                text.append(' ');
+            }
+        }
+        return text.toString();
+    }
+}
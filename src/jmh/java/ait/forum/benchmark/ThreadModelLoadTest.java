@@ -0,0 +1,210 @@
+package ait.forum.benchmark;
+
+import ait.forum.ForumServiceApplication;
+import ait.forum.post.dao.PostRepository;
+import ait.forum.post.model.Post;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Same blocking load against the service twice: once on Tomcat's platform-thread pool, once with
+// spring.threads.virtual.enabled. The MongoDB stand-in answers from memory in-process; every command is held for
+// --db-latency on the calling thread first, as a network round trip to a real server would hold it.
+// ./mvnw -Pload-test test -Dload.args="--concurrency 400"
+// Options: --concurrency clients, --warmup and --duration as ISO-8601 durations, --db-latency per command, --posts seeded.
+public class ThreadModelLoadTest {
+
+    record Options(int concurrency, Duration warmup, Duration duration, Duration dbLatency, int posts) {
+
+        static Options parse(String[] args) {
+            Options options = new Options(400, Duration.ofSeconds(5), Duration.ofSeconds(20), Duration.ofMillis(20), 1000);
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                options = switch (args[i]) {
+                    case "--concurrency" -> new Options(Integer.parseInt(value), options.warmup, options.duration, options.dbLatency, options.posts);
+                    case "--warmup" -> new Options(options.concurrency, Duration.parse(value), options.duration, options.dbLatency, options.posts);
+                    case "--duration" -> new Options(options.concurrency, options.warmup, Duration.parse(value), options.dbLatency, options.posts);
+                    case "--db-latency" -> new Options(options.concurrency, options.warmup, options.duration, Duration.parse(value), options.posts);
+                    case "--posts" -> new Options(options.concurrency, options.warmup, options.duration, options.dbLatency, Integer.parseInt(value));
+                    default -> throw new IllegalArgumentException("unknown option " + args[i]);
+                };
+            }
+            return options;
+        }
+    }
+
+    record Result(String mode, long requests, long errors, double throughput, double p50, double p99, double max) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = mongo.bind();
+        // a pool as large as the client count, so the comparison is between thread models and not pool waits
+        String uri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/forum?maxPoolSize="
+                + Math.max(options.concurrency, 100);
+        try {
+            List<Result> results = new ArrayList<>();
+            results.add(run("platform", false, uri, options));
+            results.add(run("virtual", true, uri, options));
+            System.out.printf("%n%d clients, %s per database command, %s measured%n", options.concurrency,
+                    options.dbLatency, options.duration);
+            System.out.printf("%-10s %10s %8s %10s %9s %9s %9s%n", "threads", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+            for (Result r : results) {
+                System.out.printf("%-10s %10d %8d %10.1f %9.1f %9.1f %9.1f%n", r.mode, r.requests, r.errors, r.throughput,
+                        r.p50, r.p99, r.max);
+            }
+        } finally {
+            mongo.shutdownNow();
+        }
+    }
+
+    static Result run(String mode, boolean virtual, String uri, Options options) throws InterruptedException {
+        CommandListener latency = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                try {
+                    Thread.sleep(options.dbLatency.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        MongoClientSettingsBuilderCustomizer customizer = settings -> settings.addCommandListener(latency);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ForumServiceApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().registerSingleton("databaseLatency", customizer))
+                .run("--server.port=0",
+                        "--spring.data.mongodb.uri=" + uri,
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        // every request goes to the database
+                        "--forum.post.cache.enabled=false",
+                        "--logging.level.root=WARN");
+        try {
+            List<Post> posts = seed(context.getBean(PostRepository.class), options.posts);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            System.out.printf("%s: %d clients against port %d%n", mode, options.concurrency, port);
+            return load(mode, "http://localhost:" + port, posts, options);
+        } finally {
+            context.close();
+        }
+    }
+
+    static List<Post> seed(PostRepository postRepository, int count) {
+        List<Post> posts = new ArrayList<>();
+        postRepository.findAll().forEach(posts::add);
+        if (posts.isEmpty()) {
+            BenchmarkData data = new BenchmarkData();
+            for (int i = 0; i < count; i++) {
+                Post post = data.post(String.valueOf(i), 5);
+                post.setId(null);
+                posts.add(postRepository.save(post));
+            }
+        }
+        return posts;
+    }
+
+    // closed loop: each client sends its next request as soon as the previous one is answered,
+    // four in five read a post by id, the rest read a page of an author's feed
+    static Result load(String mode, String baseUrl, List<Post> posts, Options options) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+        // one BCrypt check up front; afterwards the authentication cache answers, as it does for a returning user
+        try {
+            client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/forum/post/" + posts.get(0).getId()))
+                    .header("Authorization", authorization)
+                    .build(), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long measureFrom = System.nanoTime() + options.warmup.toNanos();
+        long measureTo = measureFrom + options.duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[options.concurrency][];
+        int[] counts = new int[options.concurrency];
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < options.concurrency; c++) {
+            int index = c;
+            Thread thread = new Thread(() -> {
+                long[] own = new long[1024];
+                int n = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long now;
+                while ((now = System.nanoTime()) < measureTo) {
+                    Post post = posts.get(random.nextInt(posts.size()));
+                    String path = random.nextInt(5) == 0
+                            ? "/forum/posts/author/" + post.getAuthor() + "?view=summary&limit=20"
+                            : "/forum/post/" + post.getId();
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                            .header("Authorization", authorization)
+                            .timeout(Duration.ofSeconds(30))
+                            .build();
+                    boolean ok;
+                    try {
+                        ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    long end = System.nanoTime();
+                    if (now < measureFrom || end > measureTo) {
+                        continue;
+                    }
+                    if (!ok) {
+                        errors.incrementAndGet();
+                    }
+                    if (n == own.length) {
+                        own = Arrays.copyOf(own, n * 2);
+                    }
+                    own[n++] = end - now;
+                }
+                latencies[index] = own;
+                counts[index] = n;
+            }, mode + "-client-" + c);
+            clients.add(thread);
+            thread.start();
+        }
+        for (Thread thread : clients) {
+            thread.join();
+        }
+        long[] all = new long[Arrays.stream(counts).sum()];
+        int offset = 0;
+        for (int c = 0; c < latencies.length; c++) {
+            System.arraycopy(latencies[c], 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        Arrays.sort(all);
+        double seconds = options.duration.toNanos() / 1e9;
+        return new Result(mode, all.length, errors.get(), all.length / seconds,
+                percentile(all, 0.50), percentile(all, 0.99), all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+}
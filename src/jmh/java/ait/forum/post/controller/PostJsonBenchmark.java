@@ -0,0 +1,50 @@
+package ait.forum.post.controller;
+
+import ait.forum.benchmark.BenchmarkData;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.model.Post;
+import ait.forum.post.service.PostMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// serialization with the same Jackson defaults Spring Boot applies to the controllers
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PostJsonBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int posts;
+
+    @Param({"0", "10"})
+    int comments;
+
+    ObjectMapper objectMapper;
+    List<PostDto> postDtos;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        BenchmarkData data = new BenchmarkData();
+        PostMapper postMapper = new PostMapper();
+        postDtos = new ArrayList<>(posts);
+        for (int i = 0; i < posts; i++) {
+            Post post = data.post(String.format("%024x", i), 5);
+            postDtos.add(postMapper.toPostDto(post, comments == 0 ? null : data.comments(post.getId(), comments)));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializePostList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(postDtos);
+    }
+}
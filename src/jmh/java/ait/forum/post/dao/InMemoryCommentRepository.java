@@ -0,0 +1,120 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Comment;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.StreamSupport;
+
+// Heap-backed stand-in for the Mongo repository used by the benchmarks.
+public class InMemoryCommentRepository implements CommentRepository {
+
+    static final Comparator<Comment> CHRONOLOGICAL = Comparator.comparing(Comment::getDateCreated)
+            .thenComparing(Comment::getId);
+
+    final Map<String, Comment> comments = new ConcurrentHashMap<>();
+
+    @Override
+    public <S extends Comment> S save(S comment) {
+        if (comment.getId() == null) {
+            comment.setId(new ObjectId().toHexString());
+        }
+        comments.put(comment.getId(), comment);
+        return comment;
+    }
+
+    @Override
+    public <S extends Comment> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(comment -> saved.add(save(comment)));
+        return saved;
+    }
+
+    @Override
+    public Optional<Comment> findById(String id) {
+        return Optional.ofNullable(comments.get(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return comments.containsKey(id);
+    }
+
+    @Override
+    public Iterable<Comment> findAll() {
+        return List.copyOf(comments.values());
+    }
+
+    @Override
+    public Iterable<Comment> findAllById(Iterable<String> ids) {
+        return StreamSupport.stream(ids.spliterator(), false)
+                .map(comments::get)
+                .filter(comment -> comment != null)
+                .toList();
+    }
+
+    @Override
+    public long count() {
+        return comments.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        comments.remove(id);
+    }
+
+    @Override
+    public void delete(Comment comment) {
+        comments.remove(comment.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(comments::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Comment> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        comments.clear();
+    }
+
+    @Override
+    public void deleteByPostId(String postId) {
+        comments.values().removeIf(comment -> postId.equals(comment.getPostId()));
+    }
+
+    @Override
+    public List<Comment> findPage(String postId, Cursor after, int limit) {
+        return comments.values().stream()
+                .filter(c -> postId.equals(c.getPostId()))
+                .filter(c -> after == null || c.getDateCreated().isAfter(after.dateCreated())
+                        || c.getDateCreated().isEqual(after.dateCreated()) && c.getId().compareTo(after.id()) > 0)
+                .sorted(CHRONOLOGICAL)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<Comment> findLatest(String postId, int limit) {
+        List<Comment> thread = comments.values().stream()
+                .filter(c -> postId.equals(c.getPostId()))
+                .sorted(CHRONOLOGICAL)
+                .toList();
+        return thread.subList(Math.max(0, thread.size() - limit), thread.size());
+    }
+
+    @Override
+    public Map<String, Double> searchPostIds(String text, int limit) {
+        throw new UnsupportedOperationException("text search is answered by the MongoDB text index");
+    }
+}
@@ -0,0 +1,296 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+import ait.forum.post.model.PostStats;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Heap-backed stand-in for the Mongo repository so service benchmarks measure our code, not the network.
+// Only the operations the benchmarks reach are implemented.
+public class InMemoryPostRepository implements PostRepository {
+
+    static final Comparator<Post> NEWEST_FIRST = Comparator.comparing(Post::getDateCreated)
+            .thenComparing(Post::getId)
+            .reversed();
+
+    final Map<String, Post> posts = new ConcurrentHashMap<>();
+
+    @Override
+    public <S extends Post> S save(S post) {
+        if (post.getId() == null) {
+            post.setId(new ObjectId().toHexString());
+        }
+        posts.put(post.getId(), post);
+        return post;
+    }
+
+    @Override
+    public <S extends Post> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(post -> saved.add(save(post)));
+        return saved;
+    }
+
+    @Override
+    public Optional<Post> findById(String id) {
+        return Optional.ofNullable(posts.get(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return posts.containsKey(id);
+    }
+
+    @Override
+    public Iterable<Post> findAll() {
+        return List.copyOf(posts.values());
+    }
+
+    @Override
+    public Iterable<Post> findAllById(Iterable<String> ids) {
+        return StreamSupport.stream(ids.spliterator(), false)
+                .map(posts::get)
+                .filter(post -> post != null)
+                .toList();
+    }
+
+    @Override
+    public long count() {
+        return posts.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        posts.remove(id);
+    }
+
+    @Override
+    public void delete(Post post) {
+        posts.remove(post.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(posts::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Post> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        posts.clear();
+    }
+
+    @Override
+    public Optional<Post> removeById(String id) {
+        return Optional.ofNullable(posts.remove(id));
+    }
+
+    @Override
+    public boolean incrementLikes(String id, int delta) {
+        Post post = posts.get(id);
+        if (post == null) {
+            return false;
+        }
+        synchronized (post) {
+            for (int i = 0; i < delta; i++) {
+                post.addLike();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int incrementLikes(Map<String, Long> deltas) {
+        int matched = 0;
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            if (incrementLikes(entry.getKey(), entry.getValue().intValue())) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Override
+    public Optional<Post> incrementCommentsCount(String id, int delta) {
+        throw new UnsupportedOperationException("commentsCount is maintained by the database");
+    }
+
+    @Override
+    public Optional<PostUpdate> updateFields(String id, String title, String content, Set<String> tags) {
+        Post post = posts.get(id);
+        if (post == null) {
+            return Optional.empty();
+        }
+        Set<String> addedTags = Post.normalize(tags);
+        synchronized (post) {
+            addedTags.removeAll(post.getTagsNormalized());
+            if (title != null) {
+                post.setTitle(title);
+            }
+            if (content != null) {
+                post.setContent(content);
+            }
+            if (tags != null) {
+                tags.forEach(post::addTag);
+            }
+        }
+        return Optional.of(new PostUpdate(post, addedTags));
+    }
+
+    @Override
+    public Map<Integer, String> insertAll(List<Post> posts) {
+        posts.forEach(this::save);
+        return Map.of();
+    }
+
+    @Override
+    public Set<String> findExistingIds(Collection<String> ids) {
+        return ids.stream()
+                .filter(posts::containsKey)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Map<String, Set<String>> findTagsByIds(Collection<String> ids) {
+        return ids.stream()
+                .filter(posts::containsKey)
+                .collect(Collectors.toMap(id -> id, id -> Set.copyOf(posts.get(id).getTagsNormalized())));
+    }
+
+    @Override
+    public Map<String, Long> countTags() {
+        return posts.values().stream()
+                .flatMap(post -> post.getTagsNormalized().stream())
+                .collect(Collectors.groupingBy(tag -> tag, Collectors.counting()));
+    }
+
+    @Override
+    public List<PostStats> aggregateStats(ZoneId zone) {
+        throw new UnsupportedOperationException("stats reconciliation is not benchmarked");
+    }
+
+    @Override
+    public ChangeResults updateAll(List<PostChange> changes) {
+        throw new UnsupportedOperationException("bulk changes are not benchmarked");
+    }
+
+    @Override
+    public List<Post> findPageByAuthor(String author, Cursor after, int limit) {
+        return page(byAuthor(author), after, limit);
+    }
+
+    @Override
+    public List<Post> findPageByTags(TagQuery tags, Cursor after, int limit) {
+        return page(byTags(tags), after, limit);
+    }
+
+    @Override
+    public List<Post> findPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit) {
+        return page(byPeriod(from, to), after, limit);
+    }
+
+    @Override
+    public Stream<Post> streamByAuthor(String author) {
+        return posts.values().stream().filter(byAuthor(author)).sorted(NEWEST_FIRST);
+    }
+
+    @Override
+    public Stream<Post> streamByTags(TagQuery tags) {
+        return posts.values().stream().filter(byTags(tags)).sorted(NEWEST_FIRST);
+    }
+
+    @Override
+    public Stream<Post> streamByPeriod(LocalDate from, LocalDate to) {
+        return posts.values().stream().filter(byPeriod(from, to)).sorted(NEWEST_FIRST);
+    }
+
+    // nothing to leave behind on the heap: summaries are the full posts
+    @Override
+    public List<Post> findSummaryPageByAuthor(String author, Cursor after, int limit) {
+        return findPageByAuthor(author, after, limit);
+    }
+
+    @Override
+    public List<Post> findSummaryPageByTags(TagQuery tags, Cursor after, int limit) {
+        return findPageByTags(tags, after, limit);
+    }
+
+    @Override
+    public List<Post> findSummaryPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit) {
+        return findPageByPeriod(from, to, after, limit);
+    }
+
+    @Override
+    public Stream<Post> streamSummariesByAuthor(String author) {
+        return streamByAuthor(author);
+    }
+
+    @Override
+    public Stream<Post> streamSummariesByTags(TagQuery tags) {
+        return streamByTags(tags);
+    }
+
+    @Override
+    public Stream<Post> streamSummariesByPeriod(LocalDate from, LocalDate to) {
+        return streamByPeriod(from, to);
+    }
+
+    Predicate<Post> byAuthor(String author) {
+        String wanted = Post.normalize(author);
+        return p -> wanted.equals(p.getAuthorNormalized());
+    }
+
+    Predicate<Post> byTags(TagQuery query) {
+        Set<String> wanted = Post.normalize(Set.copyOf(query.tags()));
+        return switch (query.match()) {
+            case ANY -> p -> p.getTagsNormalized().stream().anyMatch(wanted::contains);
+            case ALL -> p -> !wanted.isEmpty() && p.getTagsNormalized().containsAll(wanted);
+            case NONE -> p -> p.getTagsNormalized().stream().noneMatch(wanted::contains);
+        };
+    }
+
+    Predicate<Post> byPeriod(LocalDate from, LocalDate to) {
+        return p -> p.getDateCreated().isAfter(from.atStartOfDay()) && p.getDateCreated().isBefore(to.atStartOfDay());
+    }
+
+    @Override
+    public List<Post> findSummariesByIds(Collection<String> ids) {
+        return ids.stream()
+                .map(posts::get)
+                .filter(post -> post != null)
+                .toList();
+    }
+
+    @Override
+    public List<SearchHit> search(String text, int limit) {
+        throw new UnsupportedOperationException("text search is answered by the MongoDB text index");
+    }
+
+    List<Post> page(Predicate<Post> filter, Cursor after, int limit) {
+        return posts.values().stream()
+                .filter(filter)
+                .filter(p -> after == null || p.getDateCreated().isBefore(after.dateCreated())
+                        || p.getDateCreated().isEqual(after.dateCreated()) && p.getId().compareTo(after.id()) < 0)
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
+                .toList();
+    }
+}
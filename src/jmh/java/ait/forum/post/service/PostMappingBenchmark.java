@@ -0,0 +1,62 @@
+package ait.forum.post.service;
+
+import ait.forum.benchmark.BenchmarkData;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.config.Configuration.AccessLevel;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ModelMapper configured exactly like the former ServiceConfiguration bean against the hand-written PostMapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PostMappingBenchmark {
+
+    @Param({"0", "100", "10000"})
+    int comments;
+
+    ModelMapper modelMapper;
+    PostMapper postMapper;
+    Post post;
+    List<Comment> postComments;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setFieldMatchingEnabled(true)
+                .setFieldAccessLevel(AccessLevel.PRIVATE)
+                .setMatchingStrategy(MatchingStrategies.STRICT);
+        postMapper = new PostMapper();
+        BenchmarkData data = new BenchmarkData();
+        post = data.post("65f1c0ffee00000000000001", 5);
+        postComments = data.comments(post.getId(), comments);
+    }
+
+    @Benchmark
+    public PostDto modelMapper() {
+        PostDto postDto = modelMapper.map(post, PostDto.class);
+        List<CommentDto> commentDtos = new ArrayList<>(postComments.size());
+        for (Comment comment : postComments) {
+            commentDtos.add(modelMapper.map(comment, CommentDto.class));
+        }
+        return new PostDto(postDto.getId(), postDto.getTitle(), postDto.getContent(), postDto.getAuthor(),
+                postDto.getDateCreated(), postDto.getTags(), postDto.getLikes(), postDto.getCommentsCount(), commentDtos);
+    }
+
+    @Benchmark
+    public PostDto postMapper() {
+        return postMapper.toPostDto(post, postComments);
+    }
+}
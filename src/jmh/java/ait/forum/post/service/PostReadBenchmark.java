@@ -0,0 +1,57 @@
+package ait.forum.post.service;
+
+import ait.forum.benchmark.BenchmarkData;
+import ait.forum.post.dao.InMemoryCommentRepository;
+import ait.forum.post.dao.InMemoryPostRepository;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// The cache's own per-hit overhead: the in-memory repository has no round trip, so "none" here is far cheaper than
+// a MongoDB read (one network round trip plus decoding) and the cached path only has to beat that in production
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PostReadBenchmark {
+
+    @Param({"none", "caffeine"})
+    String cache;
+
+    PostServiceImpl postService;
+    String id = "65f1c0ffee00000000000001";
+
+    @Setup
+    public void setUp() {
+        InMemoryPostRepository postRepository = new InMemoryPostRepository();
+        postRepository.save(new BenchmarkData().post(id, 5));
+        PostCache postCache = "caffeine".equals(cache)
+                ? new CaffeinePostCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 10000)
+                : PostCache.NONE;
+        postService = new PostServiceImpl(postRepository, new InMemoryCommentRepository(), new PostMapper(),
+                new DefaultListableBeanFactory().getBeanProvider(LikeAggregator.class), postCache, Jackson2ObjectMapperBuilder.json().build(),
+                new TagIndex(postRepository, new SimpleMeterRegistry(), Duration.ofMinutes(10)),
+                // never started here, so they write nothing and need no repositories of their own
+                new TrendingPosts(postRepository, null, new PostMapper(), new SimpleMeterRegistry()),
+                new PostStatistics(postRepository, null, new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public PostDto findPostById() {
+        return postService.findPostById(id);
+    }
+
+    // what GET /forum/post/{id} does: with the cache a hit hands out already rendered bytes
+    @Benchmark
+    public PostJson findPostJson() {
+        return postService.findPostJson(id);
+    }
+}
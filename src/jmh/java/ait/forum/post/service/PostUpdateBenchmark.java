@@ -0,0 +1,74 @@
+package ait.forum.post.service;
+
+import ait.forum.benchmark.BenchmarkData;
+import ait.forum.post.dao.InMemoryCommentRepository;
+import ait.forum.post.dao.InMemoryPostRepository;
+import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.model.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PostUpdateBenchmark {
+
+    @Param({"5", "500"})
+    int tags;
+
+    PostServiceImpl postService;
+    Post post;
+    NewPostDto update;
+
+    @Setup
+    public void setUp() {
+        InMemoryPostRepository postRepository = new InMemoryPostRepository();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        postService = new PostServiceImpl(postRepository, new InMemoryCommentRepository(), new PostMapper(),
+                beanFactory.getBeanProvider(LikeAggregator.class), PostCache.NONE, Jackson2ObjectMapperBuilder.json().build(),
+                new TagIndex(postRepository, new SimpleMeterRegistry(), Duration.ofMinutes(10)),
+                // never started here, so they write nothing and need no repositories of their own
+                new TrendingPosts(postRepository, null, new PostMapper(), new SimpleMeterRegistry()),
+                new PostStatistics(postRepository, null, new SimpleMeterRegistry()));
+        post = postRepository.save(new BenchmarkData().post("65f1c0ffee00000000000001", tags));
+        update = new NewPostDto("Updated title", "Updated content", Set.of("java", "spring", "tag1"));
+    }
+
+    // a fresh copy of the post for every call, so each one adds the same tags to the same tag set
+    @State(Scope.Thread)
+    public static class FreshPost {
+
+        Post post;
+
+        @Setup(Level.Invocation)
+        public void setUp(PostUpdateBenchmark benchmark) {
+            Post template = benchmark.post;
+            post = new Post(template.getTitle(), template.getContent(), new HashSet<>(template.getTags()), template.getAuthor());
+        }
+    }
+
+    @Benchmark
+    public boolean addTag(FreshPost fresh) {
+        boolean changed = false;
+        for (String tag : update.getTags()) {
+            changed |= fresh.post.addTag(tag);
+        }
+        return changed;
+    }
+
+    @Benchmark
+    public PostDto updatePost() {
+        return postService.updatePost(post.getId(), update);
+    }
+}
@@ -0,0 +1,60 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.InMemoryPostRepository;
+import ait.forum.post.dto.TagCountDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Tag cloud and autocomplete reads against an index of skewed tag counts: tag i is carried by about 100000 / (i + 1)
+// posts, so a few tags are very common and most are rare, as on a real forum
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class TagIndexBenchmark {
+
+    @Param({"1000", "100000"})
+    int tags;
+
+    TagIndex tagIndex;
+
+    @Setup
+    public void setUp() {
+        tagIndex = new TagIndex(new InMemoryPostRepository(), new SimpleMeterRegistry(), Duration.ofHours(1));
+        for (int i = 0; i < tags; i++) {
+            Set<String> tag = Set.of("tag" + i);
+            for (int posts = Math.max(1, 100000 / (i + 1)); posts > 0; posts--) {
+                tagIndex.add(tag);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tagIndex.stop();
+    }
+
+    // nothing changes between calls, so this is the kept ranking; recomputing it is a full scan, like prefix() over all tags
+    @Benchmark
+    public List<TagCountDto> top20() {
+        return tagIndex.mostUsed(20);
+    }
+
+    // "tag1" matches about a tenth of the tags
+    @Benchmark
+    public List<TagCountDto> prefix() {
+        return tagIndex.mostUsed("tag1", 10);
+    }
+
+    @Benchmark
+    public void addPost() {
+        tagIndex.add(Set.of("tag7", "tag42"));
+    }
+}
@@ -0,0 +1,50 @@
+package ait.forum.security;
+
+import ait.forum.accounting.dao.InMemoryUserAccountRepository;
+import ait.forum.accounting.model.UserAccount;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// per-request authentication cost: the BCrypt check HTTP Basic pays versus verifying an issued token
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class AccessTokenBenchmark {
+
+    BCryptPasswordEncoder passwordEncoder;
+    String passwordHash;
+    AccessTokenService accessTokenService;
+    String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        passwordEncoder = new BCryptPasswordEncoder();
+        passwordHash = passwordEncoder.encode("secret");
+        InMemoryUserAccountRepository userAccountRepository = new InMemoryUserAccountRepository();
+        userAccountRepository.save(new UserAccount("john", passwordHash, "John", "Doe"));
+        // versions stay cached for the whole run, as they do between revocations
+        accessTokenService = new AccessTokenService(userAccountRepository, true, "", Duration.ofMinutes(15),
+                Duration.ofMinutes(15), 10000);
+        token = accessTokenService.issue(UsernamePasswordAuthenticationToken.authenticated("john", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_MODERATOR"))).orElseThrow();
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return passwordEncoder.matches("secret", passwordHash);
+    }
+
+    @Benchmark
+    public Jwt decodeToken() {
+        return accessTokenService.decoder().decode(token);
+    }
+}
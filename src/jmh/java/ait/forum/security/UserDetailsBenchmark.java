@@ -0,0 +1,40 @@
+package ait.forum.security;
+
+import ait.forum.accounting.dao.InMemoryUserAccountRepository;
+import ait.forum.accounting.model.Role;
+import ait.forum.accounting.model.UserAccount;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class UserDetailsBenchmark {
+
+    @Param({"1", "3"})
+    int roles;
+
+    UserDetailsServiceImpl userDetailsService;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserAccountRepository userAccountRepository = new InMemoryUserAccountRepository();
+        UserAccount userAccount = new UserAccount("john", "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3dZq9Qe0Z2WJ4vQ1M4sFh7e", "John", "Doe");
+        Role[] all = Role.values();
+        for (int i = 0; i < roles; i++) {
+            userAccount.addRole(all[i].name());
+        }
+        userAccountRepository.save(userAccount);
+        userDetailsService = new UserDetailsServiceImpl(userAccountRepository);
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername("john");
+    }
+}
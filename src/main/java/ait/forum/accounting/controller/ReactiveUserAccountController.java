@@ -0,0 +1,76 @@
+package ait.forum.accounting.controller;
+
+import ait.forum.accounting.dto.RolesDto;
+import ait.forum.accounting.dto.UserDto;
+import ait.forum.accounting.dto.UserEditDto;
+import ait.forum.accounting.dto.UserRegisterDto;
+import ait.forum.accounting.service.ReactiveUserAccountService;
+import ait.forum.security.AccessTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.security.Principal;
+
+// UserAccountController for the reactive profile
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/account")
+@RequiredArgsConstructor
+public class ReactiveUserAccountController {
+    final ReactiveUserAccountService userAccountService;
+    final AccessTokenService accessTokenService;
+
+    @PostMapping("/register")
+    public Mono<UserDto> register(@RequestBody UserRegisterDto userRegisterDto) {
+        return userAccountService.register(userRegisterDto);
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<UserDto>> login(Authentication authentication) {
+        // issuing reads the token version with the blocking repository
+        return userAccountService.getUser(authentication.getName())
+                .flatMap(user -> Mono.fromCallable(() -> accessTokenService.issue(authentication))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .map(token -> token
+                                .map(value -> ResponseEntity.ok().header(HttpHeaders.AUTHORIZATION, "Bearer " + value).body(user))
+                                .orElseGet(() -> ResponseEntity.ok(user))));
+    }
+
+    @GetMapping("/user/{login}")
+    public Mono<UserDto> getUser(@PathVariable String login) {
+        return userAccountService.getUser(login);
+    }
+
+    @DeleteMapping("/user/{login}")
+    public Mono<UserDto> removeUser(@PathVariable String login) {
+        return userAccountService.removeUser(login);
+    }
+
+    @PutMapping("/user/{login}")
+    public Mono<UserDto> updateUser(@PathVariable String login, @RequestBody UserEditDto userEditDto) {
+        return userAccountService.updateUser(login, userEditDto);
+    }
+
+    @PutMapping("/user/{login}/role/{role}")
+    public Mono<RolesDto> addRole(@PathVariable String login, @PathVariable String role) {
+        return userAccountService.changeRolesList(login, role, true);
+    }
+
+    @DeleteMapping("/user/{login}/role/{role}")
+    public Mono<RolesDto> deleteRole(@PathVariable String login, @PathVariable String role) {
+        return userAccountService.changeRolesList(login, role, false);
+    }
+
+    @PutMapping("/password")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> changePassword(Principal principal, @RequestHeader("X-Password") String newPassword) {
+        return userAccountService.changePassword(principal.getName(), newPassword);
+    }
+}
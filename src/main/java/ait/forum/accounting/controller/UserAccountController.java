@@ -5,18 +5,24 @@ import ait.forum.accounting.dto.UserDto;
 import ait.forum.accounting.dto.UserEditDto;
 import ait.forum.accounting.dto.UserRegisterDto;
 import ait.forum.accounting.service.UserAccountService;
+import ait.forum.security.AccessTokenService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/account")
 @RequiredArgsConstructor
 public class UserAccountController {
     final UserAccountService userAccountService;
+    final AccessTokenService accessTokenService;
 
     @PostMapping("/register")
     public UserDto register(@RequestBody UserRegisterDto userRegisterDto) {
@@ -24,8 +30,11 @@ public class UserAccountController {
     }
 
     @PostMapping("/login")
-    public UserDto login(Authentication authentication) {
-        return userAccountService.getUser(authentication.getName());
+    public ResponseEntity<UserDto> login(Authentication authentication) {
+        UserDto user = userAccountService.getUser(authentication.getName());
+        return accessTokenService.issue(authentication)
+                .map(token -> ResponseEntity.ok().header(HttpHeaders.AUTHORIZATION, "Bearer " + token).body(user))
+                .orElseGet(() -> ResponseEntity.ok(user));
     }
 
     @GetMapping("/user/{login}")
@@ -0,0 +1,7 @@
+package ait.forum.accounting.dao;
+
+import ait.forum.accounting.model.UserAccount;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface ReactiveUserAccountRepository extends ReactiveCrudRepository<UserAccount, String>, ReactiveUserAccountRepositoryCustom {
+}
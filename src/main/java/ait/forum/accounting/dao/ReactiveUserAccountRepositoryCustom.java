@@ -0,0 +1,8 @@
+package ait.forum.accounting.dao;
+
+import ait.forum.accounting.model.UserAccount;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserAccountRepositoryCustom {
+    Mono<UserAccount> updateNames(String login, String firstName, String lastName);
+}
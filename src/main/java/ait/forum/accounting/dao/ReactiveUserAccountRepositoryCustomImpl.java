@@ -0,0 +1,28 @@
+package ait.forum.accounting.dao;
+
+import ait.forum.accounting.model.UserAccount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import static ait.forum.accounting.dao.UserAccountRepositoryCustomImpl.namesUpdate;
+import static ait.forum.accounting.dao.UserAccountRepositoryCustomImpl.userDtoQuery;
+
+@RequiredArgsConstructor
+public class ReactiveUserAccountRepositoryCustomImpl implements ReactiveUserAccountRepositoryCustom {
+
+    final ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Mono<UserAccount> updateNames(String login, String firstName, String lastName) {
+        Query query = userDtoQuery(login);
+        Update update = namesUpdate(firstName, lastName);
+        if (update == null) {
+            return mongoOperations.findOne(query, UserAccount.class);
+        }
+        return mongoOperations.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), UserAccount.class);
+    }
+}
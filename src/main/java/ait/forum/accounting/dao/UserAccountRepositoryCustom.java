@@ -0,0 +1,12 @@
+package ait.forum.accounting.dao;
+
+import ait.forum.accounting.model.UserAccount;
+
+import java.util.Optional;
+
+public interface UserAccountRepositoryCustom {
+    Optional<UserAccount> updateNames(String login, String firstName, String lastName);
+
+    // empty when there is no such account
+    Optional<Long> findTokenVersion(String login);
+}
@@ -0,0 +1,61 @@
+package ait.forum.accounting.dao;
+
+import ait.forum.accounting.model.UserAccount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@RequiredArgsConstructor
+public class UserAccountRepositoryCustomImpl implements UserAccountRepositoryCustom {
+
+    final MongoOperations mongoOperations;
+
+    // targeted $set in one round trip; the password hash is left out of the returned account
+    @Override
+    public Optional<UserAccount> updateNames(String login, String firstName, String lastName) {
+        Query query = userDtoQuery(login);
+        Update update = namesUpdate(firstName, lastName);
+        if (update == null) {
+            return Optional.ofNullable(mongoOperations.findOne(query, UserAccount.class));
+        }
+        UserAccount userAccount = mongoOperations.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), UserAccount.class);
+        return Optional.ofNullable(userAccount);
+    }
+
+    @Override
+    public Optional<Long> findTokenVersion(String login) {
+        Query query = query(where("login").is(login));
+        query.fields().include("tokenVersion");
+        return Optional.ofNullable(mongoOperations.findOne(query, UserAccount.class))
+                .map(UserAccount::getTokenVersion);
+    }
+
+    static Query userDtoQuery(String login) {
+        Query query = query(where("login").is(login));
+        query.fields().include("firstName", "lastName", "roles");
+        return query;
+    }
+
+    // null when there is nothing to change
+    static Update namesUpdate(String firstName, String lastName) {
+        Update update = new Update();
+        if (firstName != null) {
+            update.set("firstName", firstName);
+        }
+        if (lastName != null) {
+            update.set("lastName", lastName);
+        }
+        if (update.getUpdateObject().isEmpty()) {
+            return null;
+        }
+        return update.inc("version", 1);
+    }
+}
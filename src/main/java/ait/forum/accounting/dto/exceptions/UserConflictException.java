@@ -0,0 +1,8 @@
+package ait.forum.accounting.dto.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UserConflictException extends RuntimeException{
+}
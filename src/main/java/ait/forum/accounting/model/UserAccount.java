@@ -3,6 +3,7 @@ package ait.forum.accounting.model;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.HashSet;
@@ -20,6 +21,10 @@ public class UserAccount {
     @Setter
     String lastName;
     Set<Role> roles;
+    @Version
+    Long version;
+    // versions of the access tokens; legacy documents without one read as 0
+    long tokenVersion;
 
     public UserAccount() {
         roles = new HashSet<>();
@@ -32,6 +37,8 @@ public class UserAccount {
         this.password = password;
         this.firstName = firstName;
         this.lastName = lastName;
+        // past any version an earlier account with the same login can have reached, so its tokens never match this one
+        tokenVersion = System.currentTimeMillis();
     }
 
     public boolean addRole(String role) {
@@ -41,4 +48,8 @@ public class UserAccount {
     public boolean removeRole(String role) {
         return roles.remove(Role.valueOf(role));
     }
+
+    public void revokeTokens() {
+        tokenVersion++;
+    }
 }
@@ -0,0 +1,21 @@
+package ait.forum.accounting.service;
+
+import ait.forum.accounting.dto.RolesDto;
+import ait.forum.accounting.dto.UserDto;
+import ait.forum.accounting.dto.UserEditDto;
+import ait.forum.accounting.dto.UserRegisterDto;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserAccountService {
+    Mono<UserDto> register(UserRegisterDto userRegisterDto);
+
+    Mono<UserDto> getUser(String login);
+
+    Mono<UserDto> removeUser(String login);
+
+    Mono<UserDto> updateUser(String login, UserEditDto userEditDto);
+
+    Mono<RolesDto> changeRolesList(String login, String role, boolean isAddRole);
+
+    Mono<Void> changePassword(String login, String newPassword);
+}
@@ -0,0 +1,123 @@
+package ait.forum.accounting.service;
+
+import ait.forum.accounting.dao.ReactiveUserAccountRepository;
+import ait.forum.accounting.dto.RolesDto;
+import ait.forum.accounting.dto.UserDto;
+import ait.forum.accounting.dto.UserEditDto;
+import ait.forum.accounting.dto.UserRegisterDto;
+import ait.forum.accounting.dto.exceptions.IncorrectRoleException;
+import ait.forum.accounting.dto.exceptions.UserConflictException;
+import ait.forum.accounting.dto.exceptions.UserExistsException;
+import ait.forum.accounting.dto.exceptions.UserNotFoundException;
+import ait.forum.accounting.model.UserAccount;
+import ait.forum.configuration.OptimisticRetry;
+import ait.forum.security.AccessTokenService;
+import ait.forum.security.AuthenticationCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// UserAccountServiceImpl on reactive repositories, for the reactive profile. BCrypt is deliberately slow,
+// so hashing runs on the bounded elastic pool instead of an event loop.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserAccountServiceImpl implements ReactiveUserAccountService {
+
+    final ReactiveUserAccountRepository userAccountRepository;
+    final UserAccountMapper userAccountMapper;
+    final PasswordEncoder passwordEncoder;
+    final AuthenticationCache authenticationCache;
+    final AccessTokenService accessTokenService;
+    final OptimisticRetry optimisticRetry;
+
+    @Override
+    public Mono<UserDto> register(UserRegisterDto userRegisterDto) {
+        return userAccountRepository.existsById(userRegisterDto.getLogin())
+                .flatMap(exists -> exists ? Mono.error(new UserExistsException()) : encode(userRegisterDto.getPassword()))
+                .flatMap(password -> {
+                    UserAccount userAccount = userAccountMapper.toUserAccount(userRegisterDto);
+                    userAccount.setPassword(password);
+                    return userAccountRepository.save(userAccount);
+                })
+                // lost a race with a concurrent registration of the same login
+                .onErrorMap(DuplicateKeyException.class, e -> new UserExistsException())
+                .map(userAccountMapper::toUserDto);
+    }
+
+    @Override
+    public Mono<UserDto> getUser(String login) {
+        return find(login)
+                .map(userAccountMapper::toUserDto);
+    }
+
+    @Override
+    public Mono<UserDto> removeUser(String login) {
+        Mono<UserAccount> remove = find(login)
+                .flatMap(userAccount -> userAccountRepository.delete(userAccount).thenReturn(userAccount));
+        return optimisticRetry.run(remove, UserConflictException::new)
+                .doOnNext(userAccount -> forget(login))
+                .map(userAccountMapper::toUserDto);
+    }
+
+    @Override
+    public Mono<UserDto> updateUser(String login, UserEditDto userEditDto) {
+        return userAccountRepository.updateNames(login, userEditDto.getFirstName(), userEditDto.getLastName())
+                .switchIfEmpty(Mono.error(UserNotFoundException::new))
+                .map(userAccountMapper::toUserDto);
+    }
+
+    @Override
+    public Mono<RolesDto> changeRolesList(String login, String role, boolean isAddRole) {
+        String roleName = role.toUpperCase();
+        Mono<UserAccount> change = find(login)
+                .flatMap(userAccount -> {
+                    boolean res;
+                    try {
+                        res = isAddRole ? userAccount.addRole(roleName) : userAccount.removeRole(roleName);
+                    } catch (Exception e) {
+                        return Mono.error(new IncorrectRoleException());
+                    }
+                    if (!res) {
+                        return Mono.just(userAccount);
+                    }
+                    userAccount.revokeTokens();
+                    return userAccountRepository.save(userAccount)
+                            .doOnNext(saved -> forget(login));
+                });
+        return optimisticRetry.run(change, UserConflictException::new)
+                .map(userAccountMapper::toRolesDto);
+    }
+
+    @Override
+    public Mono<Void> changePassword(String login, String newPassword) {
+        return encode(newPassword)
+                .flatMap(password -> optimisticRetry.run(find(login)
+                        .flatMap(userAccount -> {
+                            userAccount.setPassword(password);
+                            userAccount.revokeTokens();
+                            return userAccountRepository.save(userAccount);
+                        }), UserConflictException::new))
+                .doOnNext(userAccount -> forget(login))
+                .then();
+    }
+
+    Mono<UserAccount> find(String login) {
+        return userAccountRepository.findById(login)
+                .switchIfEmpty(Mono.error(UserNotFoundException::new));
+    }
+
+    Mono<String> encode(String password) {
+        return Mono.fromCallable(() -> passwordEncoder.encode(password))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    void forget(String login) {
+        authenticationCache.evict(login);
+        accessTokenService.revoke(login);
+    }
+}
@@ -0,0 +1,35 @@
+package ait.forum.accounting.service;
+
+import ait.forum.accounting.dto.RolesDto;
+import ait.forum.accounting.dto.UserDto;
+import ait.forum.accounting.dto.UserRegisterDto;
+import ait.forum.accounting.model.Role;
+import ait.forum.accounting.model.UserAccount;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+public class UserAccountMapper {
+
+    public UserAccount toUserAccount(UserRegisterDto userRegisterDto) {
+        return new UserAccount(userRegisterDto.getLogin(), userRegisterDto.getPassword(),
+                userRegisterDto.getFirstName(), userRegisterDto.getLastName());
+    }
+
+    public UserDto toUserDto(UserAccount userAccount) {
+        return new UserDto(userAccount.getLogin(), userAccount.getFirstName(), userAccount.getLastName(),
+                roles(userAccount));
+    }
+
+    public RolesDto toRolesDto(UserAccount userAccount) {
+        return new RolesDto(userAccount.getLogin(), roles(userAccount));
+    }
+
+    Set<String> roles(UserAccount userAccount) {
+        return userAccount.getRoles().stream()
+                .map(Role::name)
+                .collect(Collectors.toSet());
+    }
+}
@@ -6,13 +6,17 @@ import ait.forum.accounting.dto.UserDto;
 import ait.forum.accounting.dto.UserEditDto;
 import ait.forum.accounting.dto.UserRegisterDto;
 import ait.forum.accounting.dto.exceptions.IncorrectRoleException;
+import ait.forum.accounting.dto.exceptions.UserConflictException;
 import ait.forum.accounting.dto.exceptions.UserExistsException;
 import ait.forum.accounting.dto.exceptions.UserNotFoundException;
 import ait.forum.accounting.model.Role;
 import ait.forum.accounting.model.UserAccount;
+import ait.forum.configuration.OptimisticRetry;
+import ait.forum.security.AccessTokenService;
+import ait.forum.security.AuthenticationCache;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -21,73 +25,92 @@ import org.springframework.stereotype.Service;
 public class UserAccountServiceImpl implements UserAccountService, CommandLineRunner {
 
     final UserAccountRepository userAccountRepository;
-    final ModelMapper modelMapper;
+    final UserAccountMapper userAccountMapper;
     final PasswordEncoder passwordEncoder;
+    final AuthenticationCache authenticationCache;
+    final AccessTokenService accessTokenService;
+    final OptimisticRetry optimisticRetry;
 
     @Override
     public UserDto register(UserRegisterDto userRegisterDto) {
         if (userAccountRepository.existsById(userRegisterDto.getLogin())) {
             throw new UserExistsException();
         }
-        UserAccount userAccount = modelMapper.map(userRegisterDto, UserAccount.class);
+        UserAccount userAccount = userAccountMapper.toUserAccount(userRegisterDto);
         String password = passwordEncoder.encode(userRegisterDto.getPassword());
         userAccount.setPassword(password);
-        userAccountRepository.save(userAccount);
-        return modelMapper.map(userAccount, UserDto.class);
+        try {
+            userAccountRepository.save(userAccount);
+        } catch (DuplicateKeyException e) {
+            // lost a race with a concurrent registration of the same login
+            throw new UserExistsException();
+        }
+        return userAccountMapper.toUserDto(userAccount);
     }
 
     @Override
     public UserDto getUser(String login) {
         UserAccount userAccount = userAccountRepository.findById(login).orElseThrow(UserNotFoundException::new);
-        return modelMapper.map(userAccount, UserDto.class);
+        return userAccountMapper.toUserDto(userAccount);
     }
 
     @Override
     public UserDto removeUser(String login) {
-        UserAccount userAccount = userAccountRepository.findById(login).orElseThrow(UserNotFoundException::new);
-        userAccountRepository.delete(userAccount);
-        return modelMapper.map(userAccount, UserDto.class);
+        UserAccount userAccount = optimisticRetry.run(() -> {
+            UserAccount stored = userAccountRepository.findById(login).orElseThrow(UserNotFoundException::new);
+            userAccountRepository.delete(stored);
+            return stored;
+        }, UserConflictException::new);
+        authenticationCache.evict(login);
+        accessTokenService.revoke(login);
+        return userAccountMapper.toUserDto(userAccount);
     }
 
     @Override
     public UserDto updateUser(String login, UserEditDto userEditDto) {
-        UserAccount userAccount = userAccountRepository.findById(login).orElseThrow(UserNotFoundException::new);
-        if (userEditDto.getFirstName() != null) {
-            userAccount.setFirstName(userEditDto.getFirstName());
-        }
-        if (userEditDto.getLastName() != null) {
-            userAccount.setLastName(userEditDto.getLastName());
-        }
-        userAccountRepository.save(userAccount);
-        return modelMapper.map(userAccount, UserDto.class);
+        UserAccount userAccount = userAccountRepository.updateNames(login, userEditDto.getFirstName(), userEditDto.getLastName())
+                .orElseThrow(UserNotFoundException::new);
+        return userAccountMapper.toUserDto(userAccount);
     }
 
     @Override
     public RolesDto changeRolesList(String login, String role, boolean isAddRole) {
-        UserAccount userAccount = userAccountRepository.findById(login).orElseThrow(UserNotFoundException::new);
-        role = role.toUpperCase();
-        boolean res;
-        try {
-            if (isAddRole) {
-                res = userAccount.addRole(role);
-            } else {
-                res = userAccount.removeRole(role);
+        String roleName = role.toUpperCase();
+        UserAccount userAccount = optimisticRetry.run(() -> {
+            UserAccount stored = userAccountRepository.findById(login).orElseThrow(UserNotFoundException::new);
+            boolean res;
+            try {
+                if (isAddRole) {
+                    res = stored.addRole(roleName);
+                } else {
+                    res = stored.removeRole(roleName);
+                }
+            } catch (Exception e) {
+                throw new IncorrectRoleException();
             }
-        } catch (Exception e) {
-            throw new IncorrectRoleException();
-        }
-        if (res) {
-            userAccountRepository.save(userAccount);
-        }
-        return modelMapper.map(userAccount, RolesDto.class);
+            if (res) {
+                stored.revokeTokens();
+                userAccountRepository.save(stored);
+                authenticationCache.evict(login);
+                accessTokenService.revoke(login);
+            }
+            return stored;
+        }, UserConflictException::new);
+        return userAccountMapper.toRolesDto(userAccount);
     }
 
     @Override
     public void changePassword(String login, String newPassword) {
-        UserAccount userAccount = userAccountRepository.findById(login).orElseThrow(UserNotFoundException::new);
         String password = passwordEncoder.encode(newPassword);
-        userAccount.setPassword(password);
-        userAccountRepository.save(userAccount);
+        optimisticRetry.run(() -> {
+            UserAccount stored = userAccountRepository.findById(login).orElseThrow(UserNotFoundException::new);
+            stored.setPassword(password);
+            stored.revokeTokens();
+            userAccountRepository.save(stored);
+            return stored;
+        }, UserConflictException::new);
+        authenticationCache.evict(login);
+        accessTokenService.revoke(login);
     }
 
     @Override
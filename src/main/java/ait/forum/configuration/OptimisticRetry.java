@@ -0,0 +1,80 @@
+package ait.forum.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Reruns a whole load-modify-save when its @Version check loses to a concurrent writer. Backoff is "full jitter":
+// a random pause within a window that doubles per attempt, so colliding writers spread out instead of colliding again.
+@Component
+public class OptimisticRetry {
+
+    final int maxAttempts;
+    final long initialBackoffNanos;
+    final long maxBackoffNanos;
+
+    public OptimisticRetry(@Value("${forum.retry.max-attempts:5}") int maxAttempts,
+                           @Value("${forum.retry.initial-backoff:PT0.005S}") Duration initialBackoff,
+                           @Value("${forum.retry.max-backoff:PT0.1S}") Duration maxBackoff) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public <T> T run(Supplier<T> action, Supplier<? extends RuntimeException> conflict) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts || !backoff(attempt)) {
+                    RuntimeException exhausted = conflict.get();
+                    exhausted.initCause(e);
+                    throw exhausted;
+                }
+            }
+        }
+    }
+
+    // the same policy for a reactive load-modify-save: the action is resubscribed after a timer, no thread waits
+    public <T> Mono<T> run(Mono<T> action, Supplier<? extends RuntimeException> conflict) {
+        return action.retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+            Throwable failure = signal.failure();
+            if (!(failure instanceof OptimisticLockingFailureException)) {
+                return Mono.error(failure);
+            }
+            if (signal.totalRetries() + 1 >= maxAttempts) {
+                RuntimeException exhausted = conflict.get();
+                exhausted.initCause(failure);
+                return Mono.error(exhausted);
+            }
+            long pause = pauseNanos((int) signal.totalRetries() + 1);
+            return pause == 0 ? Mono.just(pause) : Mono.delay(Duration.ofNanos(pause));
+        })));
+    }
+
+    boolean backoff(int attempt) {
+        long pause = pauseNanos(attempt);
+        if (pause == 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    long pauseNanos(int attempt) {
+        long window = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 30));
+        return window <= 0 ? 0 : ThreadLocalRandom.current().nextLong(window + 1);
+    }
+}
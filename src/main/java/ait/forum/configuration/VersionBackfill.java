@@ -0,0 +1,38 @@
+package ait.forum.configuration;
+
+import ait.forum.accounting.model.UserAccount;
+import ait.forum.post.model.Post;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Documents stored before @Version existed would load with a null version, which Spring Data takes for a new entity
+// and tries to insert again. Stamping them with version 0 first makes their first versioned save a normal update.
+// Runs once all beans exist but before the web server starts, so no request can save an unstamped document.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VersionBackfill implements SmartInitializingSingleton {
+
+    final MongoOperations mongoOperations;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long posts = stamp(Post.class);
+        long users = stamp(UserAccount.class);
+        if (posts + users > 0) {
+            log.info("Stamped version 0 on {} posts and {} users", posts, users);
+        }
+    }
+
+    long stamp(Class<?> type) {
+        return mongoOperations.updateMulti(query(where("version").exists(false)), new Update().set("version", 0L), type)
+                .getModifiedCount();
+    }
+}
@@ -1,31 +1,74 @@
 package ait.forum.post.controller;
 
+import ait.forum.post.dto.AuthorStatsDto;
+import ait.forum.post.dto.BulkOperationDto;
+import ait.forum.post.dto.BulkOperationResultDto;
+import ait.forum.post.dto.BulkResultDto;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.DailyStatsDto;
 import ait.forum.post.dto.DatePeriodDto;
 import ait.forum.post.dto.NewCommentDto;
 import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PageDto;
 import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
 import ait.forum.post.service.PostService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RequestMapping("/forum")
 public class PostController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     final PostService postService;
+    final ObjectMapper objectMapper;
 
     @PostMapping("/post/{author}")
     public PostDto addNewPost(@PathVariable String author, @RequestBody NewPostDto newPostDto) {
         return postService.addNewPost(author, newPostDto);
     }
 
-    @GetMapping("/post/{id}")
-    public PostDto findPostById(@PathVariable String id) {
-        return postService.findPostById(id);
+    // for importers: a JSON array or NDJSON stream of posts, each naming its author, read as it arrives
+    @PostMapping(value = "/bulk/posts", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkResultDto importPosts(InputStream posts) throws IOException {
+        return postService.importPosts(posts);
+    }
+
+    // likes, comments and tag changes across many posts in a few database round trips, one result per operation
+    @PostMapping("/bulk/operations")
+    public List<BulkOperationResultDto> applyOperations(@RequestBody List<BulkOperationDto> operations) {
+        return postService.applyOperations(operations);
+    }
+
+    // cached bytes go out as they are; a matching If-None-Match is answered 304 by the ResponseEntity handling
+    @GetMapping(value = "/post/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> findPostById(@PathVariable String id) {
+        PostJson json = postService.findPostJson(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(json.etag())
+                .body(json.body());
     }
 
     @DeleteMapping("/post/{id}")
@@ -43,6 +86,12 @@ public class PostController {
         return postService.addComment(id, author, newCommentDto);
     }
 
+    @GetMapping("/post/{id}/comments")
+    public ResponseEntity<List<CommentDto>> findComments(@PathVariable String id, @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit) {
+        return page(postService.findComments(id, cursor, limit));
+    }
+
     @PutMapping("/post/{id}/like")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void addLike(@PathVariable String id) {
@@ -50,17 +99,179 @@ public class PostController {
     }
 
     @GetMapping("/posts/author/{author}")
-    public Iterable<PostDto> findPostsByAuthor(@PathVariable String author) {
-        return postService.findPostsByAuthor(author);
+    public ResponseEntity<List<PostDto>> findPostsByAuthor(@PathVariable String author, @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limit) {
+        return page(postService.findPostsByAuthor(author, cursor, limit));
     }
 
+    // without cursor and limit every match, in one JSON array written as it comes off the database cursor
+    @GetMapping(value = "/posts/author/{author}", params = {"!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findAllPostsByAuthor(@PathVariable String author) {
+        return jsonArray(() -> postService.streamPostsByAuthor(author));
+    }
+
+    @GetMapping(value = "/posts/author/{author}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPostsByAuthor(@PathVariable String author) {
+        return ndjson(() -> postService.streamPostsByAuthor(author));
+    }
+
+    // ?match=any (the default), all or none of the tags
     @PostMapping("/posts/tags")
-    public Iterable<PostDto> findPostsByTags(@RequestBody Set<String> tags) {
-        return postService.findPostsByTags(tags);
+    public ResponseEntity<List<PostDto>> findPostsByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit) {
+        return page(postService.findPostsByTags(tags, match, cursor, limit));
+    }
+
+    @PostMapping(value = "/posts/tags", params = {"!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findAllPostsByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match) {
+        return jsonArray(() -> postService.streamPostsByTags(tags, match));
+    }
+
+    @PostMapping(value = "/posts/tags", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPostsByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match) {
+        return ndjson(() -> postService.streamPostsByTags(tags, match));
     }
 
     @PostMapping("/posts/period")
-    public Iterable<PostDto> findPostsByPeriod(@RequestBody DatePeriodDto datePeriodDto) {
-        return postService.findPostsByPeriod(datePeriodDto);
+    public ResponseEntity<List<PostDto>> findPostsByPeriod(@RequestBody DatePeriodDto datePeriodDto, @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limit) {
+        return page(postService.findPostsByPeriod(datePeriodDto, cursor, limit));
+    }
+
+    @PostMapping(value = "/posts/period", params = {"!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findAllPostsByPeriod(@RequestBody DatePeriodDto datePeriodDto) {
+        return jsonArray(() -> postService.streamPostsByPeriod(datePeriodDto));
+    }
+
+    @PostMapping(value = "/posts/period", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPostsByPeriod(@RequestBody DatePeriodDto datePeriodDto) {
+        return ndjson(() -> postService.streamPostsByPeriod(datePeriodDto));
+    }
+
+    // relevance-ranked summaries; comments=true also finds posts by the text of their comments
+    @GetMapping("/posts/search")
+    public ResponseEntity<List<PostSummaryDto>> searchPosts(@RequestParam String q, @RequestParam(defaultValue = "false") boolean comments,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer limit) {
+        return page(postService.searchPosts(q, comments, cursor, limit));
+    }
+
+    // tag cloud and autocomplete: most used tags overall or among those starting with the prefix, with post counts
+    @GetMapping("/posts/tags/top")
+    public List<TagCountDto> findPopularTags(@RequestParam(required = false) Integer limit) {
+        return postService.findPopularTags(limit);
+    }
+
+    @GetMapping("/posts/tags")
+    public List<TagCountDto> findTagsByPrefix(@RequestParam String prefix, @RequestParam(required = false) Integer limit) {
+        return postService.findTagsByPrefix(prefix, limit);
+    }
+
+    // hot posts: likes and comments of the last hours count most, served from memory and refreshed every few seconds
+    @GetMapping("/posts/trending")
+    public List<PostSummaryDto> findTrendingPosts(@RequestParam(required = false) Integer limit) {
+        return postService.findTrendingPosts(limit);
+    }
+
+    // dashboard counters, kept up to date as posts change instead of counted from the posts on every call
+    @GetMapping("/posts/stats/author/{author}")
+    public AuthorStatsDto findAuthorStats(@PathVariable String author) {
+        return postService.findAuthorStats(author);
+    }
+
+    // one entry per day from dateFrom up to, not including, dateTo that has posts
+    @PostMapping("/posts/stats/period")
+    public List<DailyStatsDto> findDailyStats(@RequestBody DatePeriodDto datePeriodDto) {
+        return postService.findDailyStats(datePeriodDto);
+    }
+
+    // ?view=summary: feed-sized posts without content, projected by the database
+    @GetMapping(value = "/posts/author/{author}", params = "view=summary")
+    public ResponseEntity<List<PostSummaryDto>> findPostSummariesByAuthor(@PathVariable String author, @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(required = false) Integer limit) {
+        return page(postService.findPostSummariesByAuthor(author, cursor, limit));
+    }
+
+    @GetMapping(value = "/posts/author/{author}", params = {"view=summary", "!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findAllPostSummariesByAuthor(@PathVariable String author) {
+        return jsonArray(() -> postService.streamPostSummariesByAuthor(author));
+    }
+
+    @GetMapping(value = "/posts/author/{author}", params = "view=summary", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPostSummariesByAuthor(@PathVariable String author) {
+        return ndjson(() -> postService.streamPostSummariesByAuthor(author));
+    }
+
+    @PostMapping(value = "/posts/tags", params = "view=summary")
+    public ResponseEntity<List<PostSummaryDto>> findPostSummariesByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match,
+                                                                        @RequestParam(required = false) String cursor,
+                                                                        @RequestParam(required = false) Integer limit) {
+        return page(postService.findPostSummariesByTags(tags, match, cursor, limit));
+    }
+
+    @PostMapping(value = "/posts/tags", params = {"view=summary", "!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findAllPostSummariesByTags(@RequestBody Set<String> tags,
+                                                                            @RequestParam(required = false) String match) {
+        return jsonArray(() -> postService.streamPostSummariesByTags(tags, match));
+    }
+
+    @PostMapping(value = "/posts/tags", params = "view=summary", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPostSummariesByTags(@RequestBody Set<String> tags,
+                                                                           @RequestParam(required = false) String match) {
+        return ndjson(() -> postService.streamPostSummariesByTags(tags, match));
+    }
+
+    @PostMapping(value = "/posts/period", params = "view=summary")
+    public ResponseEntity<List<PostSummaryDto>> findPostSummariesByPeriod(@RequestBody DatePeriodDto datePeriodDto, @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(required = false) Integer limit) {
+        return page(postService.findPostSummariesByPeriod(datePeriodDto, cursor, limit));
+    }
+
+    @PostMapping(value = "/posts/period", params = {"view=summary", "!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> findAllPostSummariesByPeriod(@RequestBody DatePeriodDto datePeriodDto) {
+        return jsonArray(() -> postService.streamPostSummariesByPeriod(datePeriodDto));
+    }
+
+    @PostMapping(value = "/posts/period", params = "view=summary", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPostSummariesByPeriod(@RequestBody DatePeriodDto datePeriodDto) {
+        return ndjson(() -> postService.streamPostSummariesByPeriod(datePeriodDto));
+    }
+
+    static <T> ResponseEntity<List<T>> page(PageDto<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    <T> ResponseEntity<StreamingResponseBody> ndjson(Supplier<Stream<T>> source) {
+        return stream(source, MediaType.APPLICATION_NDJSON);
+    }
+
+    <T> ResponseEntity<StreamingResponseBody> jsonArray(Supplier<Stream<T>> source) {
+        return stream(source, MediaType.APPLICATION_JSON);
+    }
+
+    // writes each DTO as soon as it comes off the database cursor; the cursor is opened and closed on the writing thread
+    <T> ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<T>> source, MediaType mediaType) {
+        StreamingResponseBody body = out -> {
+            try (Stream<T> stream = source.get();
+                 SequenceWriter writer = MediaType.APPLICATION_JSON.equals(mediaType)
+                         ? objectMapper.writer().writeValuesAsArray(out)
+                         : objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                stream.forEach(item -> {
+                    try {
+                        writer.write(item);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(body);
     }
 }
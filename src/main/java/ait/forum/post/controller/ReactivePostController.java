@@ -0,0 +1,214 @@
+package ait.forum.post.controller;
+
+import ait.forum.post.dto.AuthorStatsDto;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.DailyStatsDto;
+import ait.forum.post.dto.DatePeriodDto;
+import ait.forum.post.dto.NewCommentDto;
+import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
+import ait.forum.post.service.ReactivePostService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+import static ait.forum.post.controller.PostController.page;
+
+// PostController for the reactive profile: same paths, DTOs and status codes. NDJSON responses are written as the
+// client reads them and the database cursor is only asked for more when the connection has room.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RequestMapping("/forum")
+public class ReactivePostController {
+
+    final ReactivePostService postService;
+
+    @PostMapping("/post/{author}")
+    public Mono<PostDto> addNewPost(@PathVariable String author, @RequestBody NewPostDto newPostDto) {
+        return postService.addNewPost(author, newPostDto);
+    }
+
+    @GetMapping(value = "/post/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> findPostById(@PathVariable String id) {
+        return postService.findPostJson(id)
+                .map(json -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .eTag(json.etag())
+                        .body(json.body()));
+    }
+
+    @DeleteMapping("/post/{id}")
+    public Mono<PostDto> removePost(@PathVariable String id) {
+        return postService.removePost(id);
+    }
+
+    @PutMapping("/post/{id}")
+    public Mono<PostDto> updatePost(@PathVariable String id, @RequestBody NewPostDto newPostDto) {
+        return postService.updatePost(id, newPostDto);
+    }
+
+    @PutMapping("/post/{id}/comment/{author}")
+    public Mono<PostDto> addComment(@PathVariable String id, @PathVariable String author, @RequestBody NewCommentDto newCommentDto) {
+        return postService.addComment(id, author, newCommentDto);
+    }
+
+    @GetMapping("/post/{id}/comments")
+    public Mono<ResponseEntity<List<CommentDto>>> findComments(@PathVariable String id, @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer limit) {
+        return postService.findComments(id, cursor, limit).map(PostController::page);
+    }
+
+    @PutMapping("/post/{id}/like")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> addLike(@PathVariable String id) {
+        return postService.addLike(id);
+    }
+
+    @GetMapping("/posts/author/{author}")
+    public Mono<ResponseEntity<List<PostDto>>> findPostsByAuthor(@PathVariable String author, @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit) {
+        return postService.findPostsByAuthor(author, cursor, limit).map(PostController::page);
+    }
+
+    // without cursor and limit every match, in one JSON array written as it comes off the database cursor
+    @GetMapping(value = "/posts/author/{author}", params = {"!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<PostDto> findAllPostsByAuthor(@PathVariable String author) {
+        return postService.streamPostsByAuthor(author);
+    }
+
+    @GetMapping(value = "/posts/author/{author}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostDto> streamPostsByAuthor(@PathVariable String author) {
+        return postService.streamPostsByAuthor(author);
+    }
+
+    // ?match=any (the default), all or none of the tags
+    @PostMapping("/posts/tags")
+    public Mono<ResponseEntity<List<PostDto>>> findPostsByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer limit) {
+        return postService.findPostsByTags(tags, match, cursor, limit).map(PostController::page);
+    }
+
+    @PostMapping(value = "/posts/tags", params = {"!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<PostDto> findAllPostsByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match) {
+        return postService.streamPostsByTags(tags, match);
+    }
+
+    @PostMapping(value = "/posts/tags", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostDto> streamPostsByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match) {
+        return postService.streamPostsByTags(tags, match);
+    }
+
+    @PostMapping("/posts/period")
+    public Mono<ResponseEntity<List<PostDto>>> findPostsByPeriod(@RequestBody DatePeriodDto datePeriodDto, @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit) {
+        return postService.findPostsByPeriod(datePeriodDto, cursor, limit).map(PostController::page);
+    }
+
+    @PostMapping(value = "/posts/period", params = {"!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<PostDto> findAllPostsByPeriod(@RequestBody DatePeriodDto datePeriodDto) {
+        return postService.streamPostsByPeriod(datePeriodDto);
+    }
+
+    @PostMapping(value = "/posts/period", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostDto> streamPostsByPeriod(@RequestBody DatePeriodDto datePeriodDto) {
+        return postService.streamPostsByPeriod(datePeriodDto);
+    }
+
+    // relevance-ranked summaries; comments=true also finds posts by the text of their comments
+    @GetMapping("/posts/search")
+    public Mono<ResponseEntity<List<PostSummaryDto>>> searchPosts(@RequestParam String q, @RequestParam(defaultValue = "false") boolean comments,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer limit) {
+        return postService.searchPosts(q, comments, cursor, limit).map(PostController::page);
+    }
+
+    // tag cloud and autocomplete: most used tags overall or among those starting with the prefix, with post counts
+    @GetMapping("/posts/tags/top")
+    public Mono<List<TagCountDto>> findPopularTags(@RequestParam(required = false) Integer limit) {
+        return postService.findPopularTags(limit);
+    }
+
+    @GetMapping("/posts/tags")
+    public Mono<List<TagCountDto>> findTagsByPrefix(@RequestParam String prefix, @RequestParam(required = false) Integer limit) {
+        return postService.findTagsByPrefix(prefix, limit);
+    }
+
+    // hot posts: likes and comments of the last hours count most, served from memory and refreshed every few seconds
+    @GetMapping("/posts/trending")
+    public Mono<List<PostSummaryDto>> findTrendingPosts(@RequestParam(required = false) Integer limit) {
+        return postService.findTrendingPosts(limit);
+    }
+
+    // dashboard counters, kept up to date as posts change instead of counted from the posts on every call
+    @GetMapping("/posts/stats/author/{author}")
+    public Mono<AuthorStatsDto> findAuthorStats(@PathVariable String author) {
+        return postService.findAuthorStats(author);
+    }
+
+    // one entry per day from dateFrom up to, not including, dateTo that has posts
+    @PostMapping("/posts/stats/period")
+    public Mono<List<DailyStatsDto>> findDailyStats(@RequestBody DatePeriodDto datePeriodDto) {
+        return postService.findDailyStats(datePeriodDto);
+    }
+
+    @GetMapping(value = "/posts/author/{author}", params = "view=summary")
+    public Mono<ResponseEntity<List<PostSummaryDto>>> findPostSummariesByAuthor(@PathVariable String author, @RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Integer limit) {
+        return postService.findPostSummariesByAuthor(author, cursor, limit).map(PostController::page);
+    }
+
+    @GetMapping(value = "/posts/author/{author}", params = {"view=summary", "!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<PostSummaryDto> findAllPostSummariesByAuthor(@PathVariable String author) {
+        return postService.streamPostSummariesByAuthor(author);
+    }
+
+    @GetMapping(value = "/posts/author/{author}", params = "view=summary", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostSummaryDto> streamPostSummariesByAuthor(@PathVariable String author) {
+        return postService.streamPostSummariesByAuthor(author);
+    }
+
+    @PostMapping(value = "/posts/tags", params = "view=summary")
+    public Mono<ResponseEntity<List<PostSummaryDto>>> findPostSummariesByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match,
+                                                                              @RequestParam(required = false) String cursor,
+                                                                              @RequestParam(required = false) Integer limit) {
+        return postService.findPostSummariesByTags(tags, match, cursor, limit).map(PostController::page);
+    }
+
+    @PostMapping(value = "/posts/tags", params = {"view=summary", "!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<PostSummaryDto> findAllPostSummariesByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match) {
+        return postService.streamPostSummariesByTags(tags, match);
+    }
+
+    @PostMapping(value = "/posts/tags", params = "view=summary", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostSummaryDto> streamPostSummariesByTags(@RequestBody Set<String> tags, @RequestParam(required = false) String match) {
+        return postService.streamPostSummariesByTags(tags, match);
+    }
+
+    @PostMapping(value = "/posts/period", params = "view=summary")
+    public Mono<ResponseEntity<List<PostSummaryDto>>> findPostSummariesByPeriod(@RequestBody DatePeriodDto datePeriodDto, @RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Integer limit) {
+        return postService.findPostSummariesByPeriod(datePeriodDto, cursor, limit).map(PostController::page);
+    }
+
+    @PostMapping(value = "/posts/period", params = {"view=summary", "!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<PostSummaryDto> findAllPostSummariesByPeriod(@RequestBody DatePeriodDto datePeriodDto) {
+        return postService.streamPostSummariesByPeriod(datePeriodDto);
+    }
+
+    @PostMapping(value = "/posts/period", params = "view=summary", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostSummaryDto> streamPostSummariesByPeriod(@RequestBody DatePeriodDto datePeriodDto) {
+        return postService.streamPostSummariesByPeriod(datePeriodDto);
+    }
+}
@@ -0,0 +1,11 @@
+package ait.forum.post.dao;
+
+import java.util.Map;
+import java.util.Set;
+
+// what became of a list of PostChanges, by position: those the server rejected or never reached, with the reason, and
+// those that matched no post because it was deleted in the meantime. The others are applied.
+public record ChangeResults(Map<Integer, String> failed, Set<Integer> notFound) {
+
+    public static final ChangeResults APPLIED = new ChangeResults(Map.of(), Set.of());
+}
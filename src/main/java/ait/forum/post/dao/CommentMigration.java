@@ -0,0 +1,131 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Moves comments embedded in posts by earlier versions into the comments collection.
+// On by default: the read path only looks at the comments collection, so until this has run legacy posts show none.
+// Once no post has the array left a run is one empty query.
+// Comments are upserted in bulks of about BATCH_SIZE, and only then are the arrays of the posts in that bulk removed,
+// so an interrupted run loses nothing and can simply be restarted. Comment ids are derived from the post id and array
+// position, so a restarted run overwrites the comments it already copied instead of duplicating them. They are
+// ObjectIds like those of every other comment, so the keyset tie-break on _id always compares values of one type:
+// the comment's creation second, five bytes of a hash of the post id and the position, which keeps a post's comments
+// in array order when their dates are equal.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "forum.migration.comments.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class CommentMigration implements CommandLineRunner {
+
+    static final int BATCH_SIZE = 1000;
+
+    final MongoOperations mongoOperations;
+
+    @Override
+    public void run(String... args) {
+        Query query = query(where("comments").exists(true));
+        query.fields().include("comments");
+        Batch batch = new Batch();
+        try (Stream<Document> stream = mongoOperations.stream(query, Document.class, mongoOperations.getCollectionName(Post.class))) {
+            for (Document post : (Iterable<Document>) stream::iterator) {
+                batch.add(post);
+                if (batch.comments >= BATCH_SIZE) {
+                    batch.flush();
+                }
+            }
+        }
+        batch.flush();
+        log.info("Migrated {} embedded comments from {} posts", batch.migratedComments, batch.migratedPosts);
+    }
+
+    class Batch {
+        final List<Document> posts = new ArrayList<>();
+        int comments;
+        long migratedPosts;
+        long migratedComments;
+
+        void add(Document post) {
+            posts.add(post);
+            comments += post.getList("comments", Document.class, List.of()).size();
+        }
+
+        // comments first, then the arrays they came from
+        void flush() {
+            if (posts.isEmpty()) {
+                return;
+            }
+            if (comments > 0) {
+                BulkOperations commentBulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Comment.class);
+                posts.forEach(post -> copyComments(commentBulk, post));
+                commentBulk.execute();
+            }
+            BulkOperations postBulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+            posts.forEach(post -> removeComments(postBulk, post));
+            postBulk.execute();
+            migratedPosts += posts.size();
+            migratedComments += comments;
+            posts.clear();
+            comments = 0;
+        }
+    }
+
+    void copyComments(BulkOperations bulk, Document post) {
+        String postId = post.get("_id").toString();
+        List<Document> embedded = post.getList("comments", Document.class, List.of());
+        for (int i = 0; i < embedded.size(); i++) {
+            Document comment = embedded.get(i);
+            bulk.upsert(query(where("id").is(commentId(postId, i, comment.getDate("dateCreated")))), new Update()
+                    .set("postId", postId)
+                    .set("user", comment.get("user"))
+                    .set("message", comment.get("message"))
+                    .set("dateCreated", comment.get("dateCreated"))
+                    .set("likes", comment.get("likes", 0)));
+        }
+    }
+
+    // unset and count in one update, guarded by the array still being there
+    void removeComments(BulkOperations bulk, Document post) {
+        int count = post.getList("comments", Document.class, List.of()).size();
+        bulk.updateOne(query(where("_id").is(post.get("_id")).and("comments").exists(true)),
+                new Update().unset("comments").inc("commentsCount", count));
+    }
+
+    static ObjectId commentId(String postId, int index, Date dateCreated) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(postId.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        int seconds = dateCreated == null ? 0 : (int) (dateCreated.getTime() / 1000);
+        return new ObjectId(ByteBuffer.allocate(12)
+                .putInt(seconds)
+                .put(digest, 0, 5)
+                .put((byte) (index >>> 16)).put((byte) (index >>> 8)).put((byte) index)
+                .array());
+    }
+}
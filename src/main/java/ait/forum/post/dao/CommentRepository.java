@@ -0,0 +1,8 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Comment;
+import org.springframework.data.repository.CrudRepository;
+
+public interface CommentRepository extends CrudRepository<Comment, String>, CommentRepositoryCustom {
+    void deleteByPostId(String postId);
+}
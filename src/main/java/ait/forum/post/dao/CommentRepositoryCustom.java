@@ -0,0 +1,15 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Comment;
+
+import java.util.List;
+import java.util.Map;
+
+public interface CommentRepositoryCustom {
+    List<Comment> findPage(String postId, Cursor after, int limit);
+
+    List<Comment> findLatest(String postId, int limit);
+
+    // ids of the posts whose comments match the text index, each with its best comment's score, most relevant first
+    Map<String, Double> searchPostIds(String text, int limit);
+}
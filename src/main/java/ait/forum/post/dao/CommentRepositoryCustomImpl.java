@@ -0,0 +1,74 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Comment;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@RequiredArgsConstructor
+public class CommentRepositoryCustomImpl implements CommentRepositoryCustom {
+
+    final MongoOperations mongoOperations;
+
+    // chronological thread order, served from the {postId, dateCreated, _id} index
+    @Override
+    public List<Comment> findPage(String postId, Cursor after, int limit) {
+        return mongoOperations.find(pageQuery(postId, after, limit), Comment.class);
+    }
+
+    @Override
+    public List<Comment> findLatest(String postId, int limit) {
+        List<Comment> comments = new ArrayList<>(mongoOperations.find(latestQuery(postId, limit), Comment.class));
+        Collections.reverse(comments);
+        return comments;
+    }
+
+    @Override
+    public Map<String, Double> searchPostIds(String text, int limit) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        mongoOperations.aggregate(searchAggregation(text, limit), mongoOperations.getCollectionName(Comment.class), Document.class)
+                .forEach(document -> scores.put(document.getString("_id"), document.get("score", Number.class).doubleValue()));
+        return scores;
+    }
+
+    static Aggregation searchAggregation(String text, int limit) {
+        return Aggregation.newAggregation(
+                Aggregation.match(TextCriteria.forDefaultLanguage().matching(text)),
+                Aggregation.addFields().addFieldWithValue("score", new Document("$meta", "textScore")).build(),
+                Aggregation.group("postId").max("score").as("score"),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "score").and(Sort.by("_id"))),
+                Aggregation.limit(limit));
+    }
+
+    static Query pageQuery(String postId, Cursor after, int limit) {
+        Criteria criteria = where("postId").is(postId);
+        if (after != null) {
+            criteria.orOperator(
+                    where("dateCreated").gt(after.dateCreated()),
+                    where("dateCreated").is(after.dateCreated()).and("id").gt(after.id()));
+        }
+        return Query.query(criteria)
+                .with(Sort.by("dateCreated", "id"))
+                .limit(limit);
+    }
+
+    // newest first; callers put the page back into chronological order
+    static Query latestQuery(String postId, int limit) {
+        return Query.query(where("postId").is(postId))
+                .with(Sort.by(Sort.Direction.DESC, "dateCreated", "id"))
+                .limit(limit);
+    }
+}
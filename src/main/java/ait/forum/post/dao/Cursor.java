@@ -0,0 +1,23 @@
+package ait.forum.post.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// keyset position: the (dateCreated, id) of the last item of the previous page, as an opaque url-safe token
+public record Cursor(LocalDateTime dateCreated, String id) {
+
+    public String encode() {
+        String raw = dateCreated + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf('|');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+    }
+}
@@ -0,0 +1,73 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class IndexBootstrap implements ApplicationRunner {
+
+    // posts are written in more than one language: split on words, without stemming or stop words for any of them
+    static final String SEARCH_LANGUAGE = "none";
+    // the case-insensitive collated indexes the finders used before they matched the normalized fields
+    static final Set<String> LEGACY_COLLATED_INDEXES = Set.of("author_dateCreated_id", "tags_dateCreated_id", "dateCreated_id");
+
+    final MongoOperations mongoOperations;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        mongoOperations.indexOps(Comment.class).ensureIndex(new Index()
+                .on("postId", Sort.Direction.ASC)
+                .on("dateCreated", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("postId_dateCreated_id"));
+        mongoOperations.indexOps(Comment.class).ensureIndex(new TextIndexDefinition.TextIndexDefinitionBuilder()
+                .onField("message")
+                .withDefaultLanguage(SEARCH_LANGUAGE)
+                .named("message_text")
+                .build());
+        // every post finder filters on one of these prefixes and sorts newest first, so pages are read off the index in order
+        IndexOperations posts = mongoOperations.indexOps(Post.class);
+        // finders match the normalized fields now, which made the earlier collated indexes dead weight; dateCreated_id is
+        // recreated without collation below. Collated indexes added by anyone else are left alone.
+        posts.getIndexInfo().stream()
+                .filter(index -> LEGACY_COLLATED_INDEXES.contains(index.getName()) && index.getCollation().isPresent())
+                .forEach(index -> posts.dropIndex(index.getName()));
+        posts.ensureIndex(newestFirst("authorNormalized"));
+        posts.ensureIndex(newestFirst("tagsNormalized"));
+        posts.ensureIndex(new Index()
+                .on("dateCreated", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("dateCreated_id"));
+        // search: a word in the title counts for more than the same word in the body
+        posts.ensureIndex(new TextIndexDefinition.TextIndexDefinitionBuilder()
+                .onField("title", 5F)
+                .onField("content")
+                .withDefaultLanguage(SEARCH_LANGUAGE)
+                .named("title_content_text")
+                .build());
+        // users are only ever looked up by login, which is their _id
+    }
+
+    Index newestFirst(String field) {
+        return new Index()
+                .on(field, Sort.Direction.ASC)
+                .on("dateCreated", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named(field + "_dateCreated_id");
+    }
+}
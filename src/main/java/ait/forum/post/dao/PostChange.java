@@ -0,0 +1,7 @@
+package ait.forum.post.dao;
+
+import java.util.Set;
+
+// one server-side change to a post: amounts to add to its counters and tags to merge in or take out
+public record PostChange(String id, int likes, int comments, Set<String> addTags, Set<String> removeTags) {
+}
@@ -0,0 +1,70 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Fills authorNormalized/tagsNormalized on posts written before the finders switched to them.
+// Each update is guarded by the author and tags it was computed from, so a concurrent edit is never overwritten.
+// On by default: the finders miss posts without the fields, and once none are left a run is one indexed empty query.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "forum.migration.normalized-fields.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PostNormalizationBackfill implements CommandLineRunner {
+
+    static final int BATCH_SIZE = 1000;
+
+    final MongoOperations mongoOperations;
+
+    @Override
+    public void run(String... args) {
+        // null also matches a missing field, and is what a legacy post saved through updatePost carries
+        Query query = query(where("authorNormalized").is(null));
+        query.fields().include("author", "tags");
+        long posts = 0;
+        try (Stream<Document> stream = mongoOperations.stream(query, Document.class, mongoOperations.getCollectionName(Post.class))) {
+            BulkOperations bulk = null;
+            int batched = 0;
+            for (Document post : (Iterable<Document>) stream::iterator) {
+                if (bulk == null) {
+                    bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+                }
+                backfill(bulk, post);
+                posts++;
+                if (++batched == BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = null;
+                    batched = 0;
+                }
+            }
+            if (bulk != null) {
+                bulk.execute();
+            }
+        }
+        log.info("Backfilled normalized author and tags for {} posts", posts);
+    }
+
+    void backfill(BulkOperations bulk, Document post) {
+        String author = post.getString("author");
+        List<String> tags = post.getList("tags", String.class);
+        bulk.updateOne(query(where("_id").is(post.get("_id")).and("author").is(author).and("tags").is(tags)), new Update()
+                .set("authorNormalized", Post.normalize(author))
+                .set("tagsNormalized", Post.normalize(tags == null ? null : new HashSet<>(tags))));
+    }
+}
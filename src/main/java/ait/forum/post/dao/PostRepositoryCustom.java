@@ -0,0 +1,73 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+import ait.forum.post.model.PostStats;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface PostRepositoryCustom {
+    boolean incrementLikes(String id, int delta);
+
+    // one unordered bulk in the map's iteration order; a BulkOperationException reports failures by position in it
+    int incrementLikes(Map<String, Long> deltas);
+
+    Optional<Post> incrementCommentsCount(String id, int delta);
+
+    // the removed post, whatever its version
+    Optional<Post> removeById(String id);
+
+    Optional<PostUpdate> updateFields(String id, String title, String content, Set<String> tags);
+
+    // positions of the posts the server rejected, with its reason; the others are stored
+    Map<Integer, String> insertAll(List<Post> posts);
+
+    Set<String> findExistingIds(Collection<String> ids);
+
+    // normalized tags of each of these posts that exists
+    Map<String, Set<String>> findTagsByIds(Collection<String> ids);
+
+    Map<String, Long> countTags();
+
+    // per-author and per-day PostStats computed from the posts themselves, days taken in the given zone
+    List<PostStats> aggregateStats(ZoneId zone);
+
+    // applied in the given order
+    ChangeResults updateAll(List<PostChange> changes);
+
+    List<Post> findPageByAuthor(String author, Cursor after, int limit);
+
+    List<Post> findPageByTags(TagQuery tags, Cursor after, int limit);
+
+    List<Post> findPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit);
+
+    Stream<Post> streamByAuthor(String author);
+
+    Stream<Post> streamByTags(TagQuery tags);
+
+    Stream<Post> streamByPeriod(LocalDate from, LocalDate to);
+
+    // the same queries returning posts that carry only the summary fields
+    List<Post> findSummaryPageByAuthor(String author, Cursor after, int limit);
+
+    List<Post> findSummaryPageByTags(TagQuery tags, Cursor after, int limit);
+
+    List<Post> findSummaryPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit);
+
+    Stream<Post> streamSummariesByAuthor(String author);
+
+    Stream<Post> streamSummariesByTags(TagQuery tags);
+
+    Stream<Post> streamSummariesByPeriod(LocalDate from, LocalDate to);
+
+    List<Post> findSummariesByIds(Collection<String> ids);
+
+    // matches of the title and content text index, most relevant first, carrying the summary fields
+    List<SearchHit> search(String text, int limit);
+}
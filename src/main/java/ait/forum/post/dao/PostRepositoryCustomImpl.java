@@ -0,0 +1,431 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+import ait.forum.post.model.PostStats;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@RequiredArgsConstructor
+public class PostRepositoryCustomImpl implements PostRepositoryCustom {
+
+    static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "dateCreated", "id");
+    // what a feed shows: content, normalized copies and legacy embedded comments stay on the server
+    static final String[] SUMMARY_FIELDS = {"title", "author", "dateCreated", "tags", "likes", "commentsCount"};
+
+    static final String SCORE = "score";
+
+    final MongoOperations mongoOperations;
+
+    // single $inc on the server: no document transfer and no lost updates between concurrent likes.
+    // Bumping the version too makes a concurrent versioned save of the whole post retry instead of undoing the like.
+    @Override
+    public boolean incrementLikes(String id, int delta) {
+        return mongoOperations.updateFirst(query(where("id").is(id)), increment("likes", delta), Post.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public int incrementLikes(Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        deltas.forEach((id, delta) -> bulk.updateOne(query(where("id").is(id)), increment("likes", delta)));
+        return bulk.execute().getMatchedCount();
+    }
+
+    @Override
+    public Optional<Post> incrementCommentsCount(String id, int delta) {
+        Post post = mongoOperations.findAndModify(postDtoQuery(id), increment("commentsCount", delta),
+                FindAndModifyOptions.options().returnNew(true), Post.class);
+        return Optional.ofNullable(post);
+    }
+
+    // a delete has nothing to merge: one findAndRemove, so likes and comments bumping the version cannot make it retry
+    @Override
+    public Optional<Post> removeById(String id) {
+        return Optional.ofNullable(mongoOperations.findAndRemove(query(where("id").is(id)), Post.class));
+    }
+
+    // one unordered bulk insert per batch, so a rejected document does not stop the ones after it. Ids and the initial
+    // version are set here as MongoTemplate.insert would set them, leaving the posts ready for versioned saves.
+    @Override
+    public Map<Integer, String> insertAll(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return Map.of();
+        }
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        for (Post post : posts) {
+            Document document = new Document();
+            mongoOperations.getConverter().write(post, document);
+            document.putIfAbsent("_id", new ObjectId());
+            document.put("version", 0L);
+            bulk.insert(document);
+        }
+        try {
+            bulk.execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            return e.getErrors().stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage, (first, second) -> first));
+        }
+    }
+
+    @Override
+    public Set<String> findExistingIds(Collection<String> ids) {
+        Query query = query(where("id").in(ids));
+        query.fields().include("id");
+        return mongoOperations.find(query, Post.class).stream()
+                .map(Post::getId)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Map<String, Set<String>> findTagsByIds(Collection<String> ids) {
+        Query query = query(where("id").in(ids));
+        query.fields().include("tagsNormalized");
+        return mongoOperations.find(query, Post.class).stream()
+                .collect(Collectors.toMap(Post::getId, post -> post.getTagsNormalized() == null ? Set.of() : post.getTagsNormalized()));
+    }
+
+    // distinct normalized tags with the number of posts carrying each, counted by the server
+    @Override
+    public Map<String, Long> countTags() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.project("tagsNormalized"),
+                Aggregation.unwind("tagsNormalized"),
+                Aggregation.group("tagsNormalized").count().as("count"));
+        Map<String, Long> counts = new HashMap<>();
+        mongoOperations.aggregate(aggregation, Post.class, Document.class)
+                .forEach(document -> counts.put(document.getString("_id"), document.get("count", Number.class).longValue()));
+        return counts;
+    }
+
+    // two grouping passes over the posts, each answering one document per author or day
+    @Override
+    public List<PostStats> aggregateStats(ZoneId zone) {
+        Aggregation byAuthor = Aggregation.newAggregation(
+                Aggregation.project("authorNormalized", "likes", "commentsCount"),
+                Aggregation.group("authorNormalized").count().as("posts").sum("likes").as("likes")
+                        .sum("commentsCount").as("comments"));
+        Aggregation byDay = Aggregation.newAggregation(
+                Aggregation.project("likes", "commentsCount").and(DateOperators.DateToString.dateOf("dateCreated")
+                        .toString("%Y-%m-%d").withTimezone(DateOperators.Timezone.valueOf(zone.getId()))).as("day"),
+                Aggregation.group("day").count().as("posts").sum("likes").as("likes")
+                        .sum("commentsCount").as("comments"));
+        List<PostStats> stats = new ArrayList<>();
+        // posts without an author or creation date are in neither kind of counter, as PostStatistics skips them too
+        mongoOperations.aggregate(byAuthor, Post.class, Document.class).forEach(document -> {
+            if (document.getString("_id") != null) {
+                stats.add(stats(PostStats.authorId(document.getString("_id")), document));
+            }
+        });
+        mongoOperations.aggregate(byDay, Post.class, Document.class).forEach(document -> {
+            if (document.getString("_id") != null) {
+                stats.add(stats(PostStats.dayId(LocalDate.parse(document.getString("_id"))), document));
+            }
+        });
+        return stats;
+    }
+
+    static PostStats stats(String id, Document document) {
+        return new PostStats(id, document.get("posts", Number.class).longValue(), document.get("likes", Number.class).longValue(),
+                document.get("comments", Number.class).longValue());
+    }
+
+    // one bulk write for any number of changes. Ordered, so several changes to the same post land as listed;
+    // the server then stops at the first failure and the changes after it are not applied.
+    // The server only reports how many changes matched in total; when some did not, the posts still there are looked
+    // up once and the changes of the others are reported as not found.
+    @Override
+    public ChangeResults updateAll(List<PostChange> changes) {
+        if (changes.isEmpty()) {
+            return ChangeResults.APPLIED;
+        }
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.ORDERED, Post.class);
+        changes.forEach(change -> bulk.updateOne(query(where("id").is(change.id())), changeUpdate(change)));
+        Map<Integer, String> failed = new HashMap<>();
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> failed.put(error.getIndex(), error.getMessage()));
+            int stoppedAt = failed.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+            for (int i = stoppedAt + 1; i < changes.size(); i++) {
+                failed.put(i, "Not applied, an earlier operation in the batch failed");
+            }
+            result = e.getResult();
+        }
+        if (result.getMatchedCount() >= changes.size() - failed.size()) {
+            return new ChangeResults(failed, Set.of());
+        }
+        Set<String> existing = findExistingIds(changes.stream().map(PostChange::id).collect(Collectors.toSet()));
+        Set<Integer> notFound = new HashSet<>();
+        for (int i = 0; i < changes.size(); i++) {
+            if (!failed.containsKey(i) && !existing.contains(changes.get(i).id())) {
+                notFound.add(i);
+            }
+        }
+        return new ChangeResults(failed, notFound);
+    }
+
+    // tags are removed in any letter case, as the tag finders match them
+    static Update changeUpdate(PostChange change) {
+        Update update = new Update();
+        if (change.likes() != 0) {
+            update.inc("likes", change.likes());
+        }
+        if (change.comments() != 0) {
+            update.inc("commentsCount", change.comments());
+        }
+        if (change.addTags() != null && !change.addTags().isEmpty()) {
+            update.addToSet("tags").each(change.addTags().toArray());
+            update.addToSet("tagsNormalized").each(Post.normalize(change.addTags()).toArray());
+        }
+        if (change.removeTags() != null && !change.removeTags().isEmpty()) {
+            List<Pattern> anyCase = change.removeTags().stream()
+                    .map(tag -> Pattern.compile("^" + Pattern.quote(tag) + "$", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE))
+                    .toList();
+            update.pull("tags", new Document("$in", anyCase));
+            update.pull("tagsNormalized", new Document("$in", List.copyOf(Post.normalize(change.removeTags()))));
+        }
+        return update.inc("version", 1);
+    }
+
+    // one findAndModify instead of load-patch-save: only the changed fields travel, tags are merged on the server
+    // and nothing read in between can be overwritten. The returned post carries just what PostDto needs.
+    // It is read as it was before the update, to tell which tags are new to it, and the update is replayed on it.
+    @Override
+    public Optional<PostUpdate> updateFields(String id, String title, String content, Set<String> tags) {
+        Query query = postDtoQuery(id);
+        Update update = fieldsUpdate(title, content, tags);
+        if (update == null) {
+            return Optional.ofNullable(mongoOperations.findOne(query, Post.class))
+                    .map(post -> new PostUpdate(post, Set.of()));
+        }
+        query.fields().include("tagsNormalized");
+        return Optional.ofNullable(mongoOperations.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false), Post.class))
+                .map(post -> updated(post, title, content, tags));
+    }
+
+    // replays the update on the post as read before it
+    static PostUpdate updated(Post post, String title, String content, Set<String> tags) {
+        Set<String> addedTags = Post.normalize(tags);
+        addedTags.removeAll(post.getTagsNormalized());
+        if (title != null) {
+            post.setTitle(title);
+        }
+        if (content != null) {
+            post.setContent(content);
+        }
+        if (tags != null) {
+            tags.forEach(post::addTag);
+        }
+        return new PostUpdate(post, addedTags);
+    }
+
+    static Query postDtoQuery(String id) {
+        Query query = query(where("id").is(id));
+        query.fields().include("title", "content", "author", "dateCreated", "tags", "likes", "commentsCount");
+        return query;
+    }
+
+    // null when there is nothing to change
+    static Update fieldsUpdate(String title, String content, Set<String> tags) {
+        Update update = new Update();
+        if (title != null) {
+            update.set("title", title);
+        }
+        if (content != null) {
+            update.set("content", content);
+        }
+        if (tags != null && !tags.isEmpty()) {
+            update.addToSet("tags").each(tags.toArray());
+            update.addToSet("tagsNormalized").each(Post.normalize(tags).toArray());
+        }
+        if (update.getUpdateObject().isEmpty()) {
+            return null;
+        }
+        return update.inc("version", 1);
+    }
+
+    static Update increment(String counter, Number delta) {
+        return new Update().inc(counter, delta).inc("version", 1);
+    }
+
+    @Override
+    public List<Post> findPageByAuthor(String author, Cursor after, int limit) {
+        return findPage(byAuthor(author), after, limit);
+    }
+
+    @Override
+    public List<Post> findPageByTags(TagQuery tags, Cursor after, int limit) {
+        return findPage(byTags(tags), after, limit);
+    }
+
+    @Override
+    public List<Post> findPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit) {
+        return findPage(byPeriod(from, to), after, limit);
+    }
+
+    @Override
+    public Stream<Post> streamByAuthor(String author) {
+        return stream(byAuthor(author));
+    }
+
+    @Override
+    public Stream<Post> streamByTags(TagQuery tags) {
+        return stream(byTags(tags));
+    }
+
+    @Override
+    public Stream<Post> streamByPeriod(LocalDate from, LocalDate to) {
+        return stream(byPeriod(from, to));
+    }
+
+    @Override
+    public List<Post> findSummaryPageByAuthor(String author, Cursor after, int limit) {
+        return findPage(summary(pageQuery(byAuthor(author), after, limit)));
+    }
+
+    @Override
+    public List<Post> findSummaryPageByTags(TagQuery tags, Cursor after, int limit) {
+        return findPage(summary(pageQuery(byTags(tags), after, limit)));
+    }
+
+    @Override
+    public List<Post> findSummaryPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit) {
+        return findPage(summary(pageQuery(byPeriod(from, to), after, limit)));
+    }
+
+    @Override
+    public Stream<Post> streamSummariesByAuthor(String author) {
+        return stream(summary(pageQuery(byAuthor(author), null, 0)));
+    }
+
+    @Override
+    public Stream<Post> streamSummariesByTags(TagQuery tags) {
+        return stream(summary(pageQuery(byTags(tags), null, 0)));
+    }
+
+    @Override
+    public Stream<Post> streamSummariesByPeriod(LocalDate from, LocalDate to) {
+        return stream(summary(pageQuery(byPeriod(from, to), null, 0)));
+    }
+
+    // exact matches on the lowercased copies keep the old case-insensitive semantics without regexes or collations
+    static Criteria byAuthor(String author) {
+        return where("authorNormalized").is(Post.normalize(author));
+    }
+
+    static Criteria byTags(Set<String> tags) {
+        return byTags(TagQuery.any(tags));
+    }
+
+    // All three read newest first. ANY merges the tag index ranges of all the tags. ALL scans the range of one tag and
+    // checks the others on each post found there; callers list the rarest tag first, as the server caches the plan
+    // per query shape with the scanned tag chosen by position. NONE walks the date index and skips matching posts.
+    static Criteria byTags(TagQuery query) {
+        List<String> tags = query.tags().stream()
+                .map(Post::normalize)
+                .distinct()
+                .toList();
+        return switch (query.match()) {
+            case ANY -> where("tagsNormalized").in(tags);
+            case ALL -> where("tagsNormalized").all(tags);
+            case NONE -> where("tagsNormalized").nin(tags);
+        };
+    }
+
+    @Override
+    public List<Post> findSummariesByIds(Collection<String> ids) {
+        return mongoOperations.find(summary(query(where("id").in(ids))), Post.class);
+    }
+
+    // read as documents to keep the score, which is not a field of Post
+    @Override
+    public List<SearchHit> search(String text, int limit) {
+        return mongoOperations.find(searchQuery(text, limit), Document.class, mongoOperations.getCollectionName(Post.class))
+                .stream()
+                .map(document -> new SearchHit(mongoOperations.getConverter().read(Post.class, document),
+                        document.get(SCORE, Number.class).doubleValue()))
+                .toList();
+    }
+
+    // ties broken by _id so that deeper pages of the same search line up with the earlier ones
+    static Query searchQuery(String text, int limit) {
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text))
+                .includeScore(SCORE)
+                .sortByScore()
+                .with(Sort.by("_id"))
+                .limit(limit);
+        return summary(query);
+    }
+
+    static Criteria byPeriod(LocalDate from, LocalDate to) {
+        return where("dateCreated").gt(from).lt(to);
+    }
+
+    // keyset pagination: newest first, continuing strictly below the (dateCreated, id) of the previous page
+    List<Post> findPage(Criteria criteria, Cursor after, int limit) {
+        return findPage(pageQuery(criteria, after, limit));
+    }
+
+    List<Post> findPage(Query query) {
+        return mongoOperations.find(query, Post.class);
+    }
+
+    Stream<Post> stream(Criteria criteria) {
+        return stream(pageQuery(criteria, null, 0));
+    }
+
+    Stream<Post> stream(Query query) {
+        return mongoOperations.stream(query, Post.class);
+    }
+
+    static Query summary(Query query) {
+        query.fields().include(SUMMARY_FIELDS);
+        return query;
+    }
+
+    static Query pageQuery(Criteria criteria, Cursor after, int limit) {
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    where("dateCreated").lt(after.dateCreated()),
+                    where("dateCreated").is(after.dateCreated()).and("id").lt(after.id())));
+        }
+        return Query.query(criteria).with(NEWEST_FIRST).limit(limit);
+    }
+}
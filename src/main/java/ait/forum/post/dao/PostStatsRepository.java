@@ -0,0 +1,7 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.PostStats;
+import org.springframework.data.repository.CrudRepository;
+
+public interface PostStatsRepository extends CrudRepository<PostStats, String>, PostStatsRepositoryCustom {
+}
@@ -0,0 +1,19 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.PostStats;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface PostStatsRepositoryCustom {
+    // PostStats id -> amounts, added with $inc and created where missing
+    void increment(Map<String, StatsDelta> deltas);
+
+    // days in [from, to) that have posts, oldest first
+    List<PostStats> findDays(LocalDate from, LocalDate to);
+
+    // overwrites the given documents and deletes the ones with the given ids
+    void replace(Collection<PostStats> stats, Collection<String> deleted);
+}
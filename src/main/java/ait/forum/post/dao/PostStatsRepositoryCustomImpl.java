@@ -0,0 +1,60 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.PostStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@RequiredArgsConstructor
+public class PostStatsRepositoryCustomImpl implements PostStatsRepositoryCustom {
+
+    final MongoOperations mongoOperations;
+
+    // one unordered bulk of upserts, however many authors and days the deltas touch
+    @Override
+    public void increment(Map<String, StatsDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, PostStats.class);
+        deltas.forEach((id, delta) -> bulk.upsert(query(where("id").is(id)), new Update()
+                .inc("posts", delta.posts())
+                .inc("likes", delta.likes())
+                .inc("comments", delta.comments())));
+        bulk.execute();
+    }
+
+    // the days from up to, not including, to: the posts findPageByPeriod returns for the same dates
+    @Override
+    public List<PostStats> findDays(LocalDate from, LocalDate to) {
+        Query query = query(where("id").gte(PostStats.dayId(from)).lt(PostStats.dayId(to)))
+                .with(Sort.by("id"));
+        return mongoOperations.find(query, PostStats.class);
+    }
+
+    @Override
+    public void replace(Collection<PostStats> stats, Collection<String> deleted) {
+        if (!stats.isEmpty()) {
+            BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, PostStats.class);
+            stats.forEach(s -> bulk.upsert(query(where("id").is(s.getId())), new Update()
+                    .set("posts", s.getPosts())
+                    .set("likes", s.getLikes())
+                    .set("comments", s.getComments())));
+            bulk.execute();
+        }
+        if (!deleted.isEmpty()) {
+            mongoOperations.remove(query(where("id").in(deleted)), PostStats.class);
+        }
+    }
+}
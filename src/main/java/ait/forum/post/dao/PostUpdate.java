@@ -0,0 +1,9 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+
+import java.util.Set;
+
+// a post after updateFields, with the normalized tags the update added that it did not carry before
+public record PostUpdate(Post post, Set<String> addedTags) {
+}
@@ -0,0 +1,9 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Comment;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCommentRepository extends ReactiveCrudRepository<Comment, String>, ReactiveCommentRepositoryCustom {
+    Mono<Void> deleteByPostId(String postId);
+}
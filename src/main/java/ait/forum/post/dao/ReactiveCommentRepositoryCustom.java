@@ -0,0 +1,16 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Comment;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+public interface ReactiveCommentRepositoryCustom {
+    Flux<Comment> findPage(String postId, Cursor after, int limit);
+
+    Flux<Comment> findLatest(String postId, int limit);
+
+    // ids of the posts whose comments match the text index, each with its best comment's score, most relevant first
+    Mono<Map<String, Double>> searchPostIds(String text, int limit);
+}
@@ -0,0 +1,47 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Comment;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ait.forum.post.dao.CommentRepositoryCustomImpl.latestQuery;
+import static ait.forum.post.dao.CommentRepositoryCustomImpl.pageQuery;
+import static ait.forum.post.dao.CommentRepositoryCustomImpl.searchAggregation;
+
+@RequiredArgsConstructor
+public class ReactiveCommentRepositoryCustomImpl implements ReactiveCommentRepositoryCustom {
+
+    final ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Flux<Comment> findPage(String postId, Cursor after, int limit) {
+        return mongoOperations.find(pageQuery(postId, after, limit), Comment.class);
+    }
+
+    // at most limit comments, so collecting them to restore chronological order is fine
+    @Override
+    public Flux<Comment> findLatest(String postId, int limit) {
+        return mongoOperations.find(latestQuery(postId, limit), Comment.class)
+                .collect(ArrayList<Comment>::new, List::add)
+                .flatMapIterable(comments -> {
+                    Collections.reverse(comments);
+                    return comments;
+                });
+    }
+
+    @Override
+    public Mono<Map<String, Double>> searchPostIds(String text, int limit) {
+        return mongoOperations.aggregate(searchAggregation(text, limit), mongoOperations.getCollectionName(Comment.class), Document.class)
+                .collect(LinkedHashMap::new, (scores, document) -> scores.put(document.getString("_id"),
+                        document.get("score", Number.class).doubleValue()));
+    }
+}
@@ -0,0 +1,7 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface ReactivePostRepository extends ReactiveCrudRepository<Post, String>, ReactivePostRepositoryCustom {
+}
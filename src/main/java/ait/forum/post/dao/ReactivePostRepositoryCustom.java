@@ -0,0 +1,50 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+// Non-blocking counterpart of PostRepositoryCustom: same queries, same indexes. Unbounded finders are cursors that
+// fetch the next batch only when the subscriber asks for more, so a slow client slows the query instead of the heap.
+public interface ReactivePostRepositoryCustom {
+    Mono<Boolean> incrementLikes(String id, int delta);
+
+    Mono<Post> incrementCommentsCount(String id, int delta);
+
+    Mono<Post> removeById(String id);
+
+    Mono<PostUpdate> updateFields(String id, String title, String content, Set<String> tags);
+
+    Flux<Post> findPageByAuthor(String author, Cursor after, int limit);
+
+    Flux<Post> findPageByTags(TagQuery tags, Cursor after, int limit);
+
+    Flux<Post> findPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit);
+
+    Flux<Post> streamByAuthor(String author);
+
+    Flux<Post> streamByTags(TagQuery tags);
+
+    Flux<Post> streamByPeriod(LocalDate from, LocalDate to);
+
+    Flux<Post> findSummaryPageByAuthor(String author, Cursor after, int limit);
+
+    Flux<Post> findSummaryPageByTags(TagQuery tags, Cursor after, int limit);
+
+    Flux<Post> findSummaryPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit);
+
+    Flux<Post> streamSummariesByAuthor(String author);
+
+    Flux<Post> streamSummariesByTags(TagQuery tags);
+
+    Flux<Post> streamSummariesByPeriod(LocalDate from, LocalDate to);
+
+    Flux<Post> findSummariesByIds(Collection<String> ids);
+
+    // matches of the title and content text index, most relevant first, carrying the summary fields
+    Flux<SearchHit> search(String text, int limit);
+}
@@ -0,0 +1,131 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+import static ait.forum.post.dao.PostRepositoryCustomImpl.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@RequiredArgsConstructor
+public class ReactivePostRepositoryCustomImpl implements ReactivePostRepositoryCustom {
+
+    final ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Mono<Boolean> incrementLikes(String id, int delta) {
+        return mongoOperations.updateFirst(query(where("id").is(id)), increment("likes", delta), Post.class)
+                .map(result -> result.getMatchedCount() > 0);
+    }
+
+    @Override
+    public Mono<Post> incrementCommentsCount(String id, int delta) {
+        return mongoOperations.findAndModify(postDtoQuery(id), increment("commentsCount", delta),
+                FindAndModifyOptions.options().returnNew(true), Post.class);
+    }
+
+    @Override
+    public Mono<Post> removeById(String id) {
+        return mongoOperations.findAndRemove(query(where("id").is(id)), Post.class);
+    }
+
+    @Override
+    public Mono<PostUpdate> updateFields(String id, String title, String content, Set<String> tags) {
+        Query query = postDtoQuery(id);
+        Update update = fieldsUpdate(title, content, tags);
+        if (update == null) {
+            return mongoOperations.findOne(query, Post.class)
+                    .map(post -> new PostUpdate(post, Set.of()));
+        }
+        query.fields().include("tagsNormalized");
+        return mongoOperations.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false), Post.class)
+                .map(post -> updated(post, title, content, tags));
+    }
+
+    @Override
+    public Flux<Post> findPageByAuthor(String author, Cursor after, int limit) {
+        return find(pageQuery(byAuthor(author), after, limit));
+    }
+
+    @Override
+    public Flux<Post> findPageByTags(TagQuery tags, Cursor after, int limit) {
+        return find(pageQuery(byTags(tags), after, limit));
+    }
+
+    @Override
+    public Flux<Post> findPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit) {
+        return find(pageQuery(byPeriod(from, to), after, limit));
+    }
+
+    @Override
+    public Flux<Post> streamByAuthor(String author) {
+        return find(pageQuery(byAuthor(author), null, 0));
+    }
+
+    @Override
+    public Flux<Post> streamByTags(TagQuery tags) {
+        return find(pageQuery(byTags(tags), null, 0));
+    }
+
+    @Override
+    public Flux<Post> streamByPeriod(LocalDate from, LocalDate to) {
+        return find(pageQuery(byPeriod(from, to), null, 0));
+    }
+
+    @Override
+    public Flux<Post> findSummaryPageByAuthor(String author, Cursor after, int limit) {
+        return find(summary(pageQuery(byAuthor(author), after, limit)));
+    }
+
+    @Override
+    public Flux<Post> findSummaryPageByTags(TagQuery tags, Cursor after, int limit) {
+        return find(summary(pageQuery(byTags(tags), after, limit)));
+    }
+
+    @Override
+    public Flux<Post> findSummaryPageByPeriod(LocalDate from, LocalDate to, Cursor after, int limit) {
+        return find(summary(pageQuery(byPeriod(from, to), after, limit)));
+    }
+
+    @Override
+    public Flux<Post> streamSummariesByAuthor(String author) {
+        return find(summary(pageQuery(byAuthor(author), null, 0)));
+    }
+
+    @Override
+    public Flux<Post> streamSummariesByTags(TagQuery tags) {
+        return find(summary(pageQuery(byTags(tags), null, 0)));
+    }
+
+    @Override
+    public Flux<Post> streamSummariesByPeriod(LocalDate from, LocalDate to) {
+        return find(summary(pageQuery(byPeriod(from, to), null, 0)));
+    }
+
+    @Override
+    public Flux<Post> findSummariesByIds(Collection<String> ids) {
+        return find(summary(query(where("id").in(ids))));
+    }
+
+    @Override
+    public Flux<SearchHit> search(String text, int limit) {
+        return mongoOperations.find(searchQuery(text, limit), Document.class, mongoOperations.getCollectionName(Post.class))
+                .map(document -> new SearchHit(mongoOperations.getConverter().read(Post.class, document),
+                        document.get(SCORE, Number.class).doubleValue()));
+    }
+
+    Flux<Post> find(Query query) {
+        return mongoOperations.find(query, Post.class);
+    }
+}
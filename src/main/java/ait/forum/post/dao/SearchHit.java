@@ -0,0 +1,7 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+
+// a post found by text search, with the relevance MongoDB gave it
+public record SearchHit(Post post, double score) {
+}
@@ -0,0 +1,13 @@
+package ait.forum.post.dao;
+
+// amounts to add to one PostStats document
+public record StatsDelta(long posts, long likes, long comments) {
+
+    public StatsDelta plus(StatsDelta other) {
+        return new StatsDelta(posts + other.posts, likes + other.likes, comments + other.comments);
+    }
+
+    public boolean isZero() {
+        return posts == 0 && likes == 0 && comments == 0;
+    }
+}
@@ -0,0 +1,16 @@
+package ait.forum.post.dao;
+
+import java.util.Collection;
+import java.util.List;
+
+// posts carrying any, all or none of the tags. For ALL the tags are best listed rarest first, see byTags.
+public record TagQuery(Match match, List<String> tags) {
+
+    public enum Match {
+        ANY, ALL, NONE
+    }
+
+    public static TagQuery any(Collection<String> tags) {
+        return new TagQuery(Match.ANY, List.copyOf(tags));
+    }
+}
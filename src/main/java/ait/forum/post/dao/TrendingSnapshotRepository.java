@@ -0,0 +1,7 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.TrendingSnapshot;
+import org.springframework.data.repository.CrudRepository;
+
+public interface TrendingSnapshotRepository extends CrudRepository<TrendingSnapshot, String> {
+}
@@ -0,0 +1,15 @@
+package ait.forum.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuthorStatsDto {
+    String author;
+    long posts;
+    long likes;
+    long comments;
+}
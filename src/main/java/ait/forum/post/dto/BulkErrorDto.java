@@ -0,0 +1,14 @@
+package ait.forum.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkErrorDto {
+    // zero-based position in the request
+    int index;
+    String message;
+}
@@ -0,0 +1,26 @@
+package ait.forum.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkOperationDto {
+
+    public enum Type {
+        LIKE, COMMENT, ADD_TAGS, REMOVE_TAGS
+    }
+
+    Type type;
+    String postId;
+    // likes to add, one when absent
+    Integer count;
+    String author;
+    String message;
+    Set<String> tags;
+
+}
@@ -0,0 +1,21 @@
+package ait.forum.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkOperationResultDto {
+
+    public enum Status {
+        APPLIED, INVALID, NOT_FOUND, FAILED
+    }
+
+    // zero-based position in the request
+    int index;
+    String postId;
+    Status status;
+    String message;
+}
@@ -0,0 +1,20 @@
+package ait.forum.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+// one record of a bulk import: a NewPostDto that names its own author
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkPostDto {
+
+    String author;
+    String title;
+    String content;
+    Set<String> tags;
+
+}
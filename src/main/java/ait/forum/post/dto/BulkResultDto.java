@@ -0,0 +1,18 @@
+package ait.forum.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkResultDto {
+    int received;
+    int inserted;
+    int failed;
+    // at most forum.bulk.max-errors of the failures, by position
+    List<BulkErrorDto> errors;
+}
@@ -0,0 +1,18 @@
+package ait.forum.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// the posts created on one day, with the likes and comments they have received so far
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyStatsDto {
+    LocalDate date;
+    long posts;
+    long likes;
+    long comments;
+}
@@ -10,17 +10,16 @@ import java.util.Set;
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class PostDto {
     String id;
     String title;
     String content;
     String author;
     LocalDateTime dateCreated;
-    @Singular
     Set<String> tags;
     Integer likes;
-    @Singular
+    Integer commentsCount;
     List<CommentDto> comments;
 
     public PostDto(String id, String title, String content, String author) {
@@ -31,6 +30,7 @@ public class PostDto {
         this.dateCreated = LocalDateTime.now();
         this.tags = Set.of();
         this.likes = 0;
+        this.commentsCount = 0;
         this.comments = new ArrayList<>();
     }
 }
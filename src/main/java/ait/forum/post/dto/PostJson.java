@@ -0,0 +1,5 @@
+package ait.forum.post.dto;
+
+// a post rendered once to UTF-8 JSON, with a strong validator derived from those exact bytes
+public record PostJson(byte[] body, String etag) {
+}
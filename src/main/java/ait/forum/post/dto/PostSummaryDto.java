@@ -0,0 +1,21 @@
+package ait.forum.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostSummaryDto {
+    String id;
+    String title;
+    String author;
+    LocalDateTime dateCreated;
+    Set<String> tags;
+    Integer likes;
+    Integer commentsCount;
+}
@@ -0,0 +1,14 @@
+package ait.forum.post.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TagCountDto {
+    // lowercased, as the tag finders match it
+    String tag;
+    long count;
+}
@@ -0,0 +1,8 @@
+package ait.forum.post.dto.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = "Search text is required")
+public class InvalidSearchException extends RuntimeException {
+}
@@ -4,13 +4,18 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Getter
-@EqualsAndHashCode(of = {"user", "dateCreated"})
+@EqualsAndHashCode(of = "id")
 @NoArgsConstructor
+@Document(collection = "comments")
 public class Comment {
+    @Setter
+    String id;
+    String postId;
     @Setter
     String user;
     @Setter
@@ -18,7 +23,8 @@ public class Comment {
     LocalDateTime dateCreated = LocalDateTime.now();
     int likes;
 
-    public Comment(String user, String message) {
+    public Comment(String postId, String user, String message) {
+        this.postId = postId;
         this.user = user;
         this.message = message;
     }
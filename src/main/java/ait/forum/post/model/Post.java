@@ -4,13 +4,14 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Getter
 @EqualsAndHashCode(of = "id")
@@ -23,18 +24,29 @@ public class Post {
     String title;
     @Setter
     String content;
-    @Setter
     String author;
+    // lowercased copies the finders match exactly, so author and tag lookups are plain indexed equality
+    String authorNormalized;
     LocalDateTime dateCreated = LocalDateTime.now();
     Set<String> tags = new HashSet<>();
+    Set<String> tagsNormalized = new HashSet<>();
     int likes;
-    List<Comment> comments = new ArrayList<>();
+    int commentsCount;
+    @Version
+    Long version;
 
     public Post(String title, String content, Set<String> tags, String author) {
         this.title = title;
         this.content = content;
         this.tags = tags;
         this.author = author;
+        authorNormalized = normalize(author);
+        tagsNormalized = normalize(tags);
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+        authorNormalized = normalize(author);
     }
 
     public void addLike(){
@@ -42,19 +54,41 @@ public class Post {
     }
 
     public boolean addTag(String tag){
-        return tags.add(tag);
+        Set<String> normalized = normalizedTags();
+        boolean added = tags.add(tag);
+        if (added) {
+            normalized.add(normalize(tag));
+        }
+        return added;
     }
 
+    // the normalized value stays while another case variant of the tag is still there
     public boolean removeTag(String tag){
-        return tags.remove(tag);
+        Set<String> normalized = normalizedTags();
+        boolean removed = tags.remove(tag);
+        if (removed) {
+            String value = normalize(tag);
+            if (!tags.contains(value) && tags.stream().noneMatch(other -> value.equals(normalize(other)))) {
+                normalized.remove(value);
+            }
+        }
+        return removed;
+    }
+
+    // posts stored before the normalized fields existed are normalized in full once, then patched per tag
+    Set<String> normalizedTags() {
+        if (tagsNormalized == null || tagsNormalized.isEmpty() && !tags.isEmpty()) {
+            tagsNormalized = normalize(tags);
+        }
+        return tagsNormalized;
     }
 
-    public boolean addComment(Comment comment){
-        return comments.add(comment);
+    public static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
     }
 
-    public boolean removeComment(Comment comment){
-        return comments.remove(comment);
+    public static Set<String> normalize(Set<String> values) {
+        return values == null ? new HashSet<>() : values.stream().map(Post::normalize).collect(Collectors.toCollection(HashSet::new));
     }
 
 }
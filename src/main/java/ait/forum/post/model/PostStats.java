@@ -0,0 +1,36 @@
+package ait.forum.post.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+
+// Posts, likes and comments of one author or of the posts created on one day. Ids are "author:" plus the normalized
+// author or "day:" plus the ISO date, so a date range is a range of ids.
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "post_stats")
+public class PostStats {
+    static final String AUTHOR = "author:";
+    static final String DAY = "day:";
+
+    String id;
+    long posts;
+    long likes;
+    long comments;
+
+    public static String authorId(String author) {
+        return AUTHOR + Post.normalize(author);
+    }
+
+    public static String dayId(LocalDate day) {
+        return DAY + day;
+    }
+
+    public LocalDate getDay() {
+        return id.startsWith(DAY) ? LocalDate.parse(id.substring(DAY.length())) : null;
+    }
+}
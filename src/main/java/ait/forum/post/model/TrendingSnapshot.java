@@ -0,0 +1,20 @@
+package ait.forum.post.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+// the trending scores as of the last snapshot, so a restart does not empty the feed. Scores are relative to epoch.
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "trending")
+public class TrendingSnapshot {
+    String id;
+    Instant epoch;
+    Map<String, Double> scores;
+}
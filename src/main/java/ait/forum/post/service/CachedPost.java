@@ -0,0 +1,49 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+// A cached post plus its rendered JSON. The JSON is built on first request rather than on every change,
+// so a burst of likes on a hot post costs one serialization at the next read. Racing renders are harmless.
+public final class CachedPost {
+
+    final PostDto post;
+    volatile PostJson json;
+
+    public CachedPost(PostDto post) {
+        this.post = post;
+    }
+
+    public PostDto post() {
+        return post;
+    }
+
+    public PostJson json(ObjectMapper objectMapper) {
+        PostJson rendered = json;
+        if (rendered == null) {
+            rendered = render(objectMapper);
+            json = rendered;
+        }
+        return rendered;
+    }
+
+    PostJson render(ObjectMapper objectMapper) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(post);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return new PostJson(body, Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dto.PostDto;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+// Local in-process backend. The first miss publishes a pending future and loads on its own thread, later misses wait
+// on that future: single-flight without holding a map lock across the database read, which would pin a virtual
+// thread to its carrier. Invalidations drop a pending load, so only callers already waiting see its result.
+@Component
+@ConditionalOnProperty(prefix = "forum.post.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CaffeinePostCache implements PostCache {
+
+    final AsyncCache<String, CachedPost> posts;
+
+    public CaffeinePostCache(MeterRegistry meterRegistry,
+                             @Value("${forum.post.cache.ttl:PT30S}") Duration ttl,
+                             @Value("${forum.post.cache.max-size:10000}") long maxSize) {
+        posts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(expireAfterLoad(ttl))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, posts.synchronous(), "posts");
+    }
+
+    @Override
+    public CachedPost get(String id, Function<String, PostDto> loader) {
+        CompletableFuture<CachedPost> cached = posts.getIfPresent(id);
+        if (cached != null) {
+            return join(cached);
+        }
+        CompletableFuture<CachedPost> loading = new CompletableFuture<>();
+        cached = posts.asMap().putIfAbsent(id, loading);
+        if (cached != null) {
+            return join(cached);
+        }
+        try {
+            CachedPost post = new CachedPost(loader.apply(id));
+            loading.complete(post);
+            return post;
+        } catch (Throwable e) {
+            // waiters get the same failure; errors included, or they would block on the future forever
+            loading.completeExceptionally(e);
+            posts.asMap().remove(id, loading);
+            throw e;
+        }
+    }
+
+    // a like racing a pending load cannot be applied to it; dropping the load makes the next read see the like
+    @Override
+    public void update(String id, UnaryOperator<PostDto> change) {
+        posts.asMap().computeIfPresent(id, (key, cached) -> cached.isDone() && !cached.isCompletedExceptionally()
+                ? CompletableFuture.completedFuture(new CachedPost(change.apply(cached.join().post())))
+                : null);
+    }
+
+    @Override
+    public void invalidate(String id) {
+        posts.asMap().remove(id);
+    }
+
+    static CachedPost join(CompletableFuture<CachedPost> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // in-place updates keep the remaining lifetime, so even a post liked every second is reread within ttl
+    static Expiry<String, CachedPost> expireAfterLoad(Duration ttl) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, CachedPost value, long currentTime) {
+                return ttl.toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, CachedPost value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+
+            @Override
+            public long expireAfterRead(String key, CachedPost value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
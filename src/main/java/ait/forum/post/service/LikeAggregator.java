@@ -0,0 +1,214 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.PostRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Write-behind stage for likes: counted in memory and written as one unordered bulk of $inc updates.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "forum.likes.write-behind", name = "enabled", havingValue = "true")
+public class LikeAggregator {
+
+    final PostRepository postRepository;
+    final Duration maxStaleness;
+    final long maxPending;
+    final int maxAttempts;
+    final Cache<String, Boolean> knownPosts;
+    // failed flushes per post id, only touched inside flush
+    final Map<String, Integer> attempts = new HashMap<>();
+
+    volatile Generation current = new Generation();
+    final LongAdder pendingLikes = new LongAdder();
+    final AtomicBoolean flushRequested = new AtomicBoolean();
+    final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "like-aggregator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    final Counter acceptedCounter;
+    final Counter writtenCounter;
+    final Counter droppedCounter;
+    final Timer flushTimer;
+
+    public LikeAggregator(PostRepository postRepository, MeterRegistry meterRegistry,
+                          @Value("${forum.likes.write-behind.max-staleness:PT1S}") Duration maxStaleness,
+                          @Value("${forum.likes.write-behind.max-pending:10000}") long maxPending,
+                          @Value("${forum.likes.write-behind.max-attempts:10}") int maxAttempts,
+                          @Value("${forum.likes.write-behind.known-posts:100000}") long knownPostsSize,
+                          @Value("${forum.likes.write-behind.known-posts-ttl:PT10M}") Duration knownPostsTtl) {
+        this.postRepository = postRepository;
+        this.maxStaleness = maxStaleness;
+        this.maxPending = maxPending;
+        this.maxAttempts = maxAttempts;
+        knownPosts = Caffeine.newBuilder()
+                .maximumSize(knownPostsSize)
+                .expireAfterWrite(knownPostsTtl)
+                .build();
+        acceptedCounter = Counter.builder("forum.likes.accepted")
+                .description("Likes accepted by the write-behind stage")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("forum.likes.updates")
+                .description("Per-post $inc updates sent to the database")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("forum.likes.dropped")
+                .description("Likes given up after max-attempts failed flushes")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("forum.likes.flush")
+                .description("Latency of one bulk like flush")
+                .register(meterRegistry);
+        Gauge.builder("forum.likes.coalescing.ratio", this, LikeAggregator::coalescingRatio)
+                .description("Accepted likes per database update")
+                .register(meterRegistry);
+        Gauge.builder("forum.likes.pending", pendingLikes, LongAdder::sum)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        long period = maxStaleness.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(maxStaleness.toMillis() + 5000, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    // false, and nothing recorded, when the post does not exist
+    public boolean addLike(String id) {
+        if (knownPosts.getIfPresent(id) == null) {
+            if (!postRepository.existsById(id)) {
+                return false;
+            }
+            knownPosts.put(id, Boolean.TRUE);
+        }
+        add(id, 1);
+        pendingLikes.increment();
+        acceptedCounter.increment();
+        if (pendingLikes.sum() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+        return true;
+    }
+
+    public void forget(String id) {
+        knownPosts.invalidate(id);
+    }
+
+    public synchronized int flush() {
+        flushRequested.set(false);
+        Generation generation = current;
+        current = new Generation();
+        // writers that registered on the old generation before the swap finish within a few instructions
+        while (generation.writers.sum() != 0) {
+            Thread.onSpinWait();
+        }
+        // insertion ordered, so the positions the bulk reports failures at are positions in this map
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        generation.likes.forEach((id, adder) -> deltas.put(id, adder.sum()));
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        long total = deltas.values().stream().mapToLong(Long::longValue).sum();
+        try {
+            flushTimer.record(() -> postRepository.incrementLikes(deltas));
+        } catch (BulkOperationException e) {
+            // the bulk is unordered: every update without an error was applied, only the failed ones are retried
+            List<String> ids = new ArrayList<>(deltas.keySet());
+            Map<String, Long> failed = new LinkedHashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                String id = ids.get(error.getIndex());
+                failed.put(id, deltas.get(id));
+            }
+            attempts.keySet().removeIf(id -> deltas.containsKey(id) && !failed.containsKey(id));
+            pendingLikes.add(failed.values().stream().mapToLong(Long::longValue).sum() - total);
+            failed.forEach(this::retry);
+            writtenCounter.increment(deltas.size() - e.getErrors().size());
+            throw e;
+        } catch (RuntimeException e) {
+            // nothing is known to have been written: put all the likes back so the next flush retries them
+            deltas.forEach(this::retry);
+            throw e;
+        }
+        attempts.keySet().removeAll(deltas.keySet());
+        pendingLikes.add(-total);
+        writtenCounter.increment(deltas.size());
+        return deltas.size();
+    }
+
+    void retry(String id, long delta) {
+        int attempt = attempts.merge(id, 1, Integer::sum);
+        if (attempt < maxAttempts) {
+            add(id, delta);
+            return;
+        }
+        attempts.remove(id);
+        pendingLikes.add(-delta);
+        droppedCounter.increment(delta);
+        log.error("Dropping {} likes for post {} after {} failed flushes", delta, id, attempt);
+    }
+
+    void add(String id, long delta) {
+        Generation generation;
+        while (true) {
+            generation = current;
+            generation.writers.increment();
+            if (generation == current) {
+                break;
+            }
+            generation.writers.decrement();
+        }
+        try {
+            generation.likes.computeIfAbsent(id, k -> new LongAdder()).add(delta);
+        } finally {
+            generation.writers.decrement();
+        }
+    }
+
+    void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Like flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    double coalescingRatio() {
+        double written = writtenCounter.count();
+        return written == 0 ? 0 : acceptedCounter.count() / written;
+    }
+
+    static final class Generation {
+        final ConcurrentHashMap<String, LongAdder> likes = new ConcurrentHashMap<>();
+        final LongAdder writers = new LongAdder();
+    }
+}
@@ -0,0 +1,33 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dto.PostDto;
+
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+// Read-through store for findPostById. Implementations must call the loader at most once per id at a time,
+// so a miss on a hot post costs a single database read however many requests are waiting for it.
+public interface PostCache {
+
+    PostCache NONE = new PostCache() {
+        @Override
+        public CachedPost get(String id, Function<String, PostDto> loader) {
+            return new CachedPost(loader.apply(id));
+        }
+
+        @Override
+        public void update(String id, UnaryOperator<PostDto> change) {
+        }
+
+        @Override
+        public void invalidate(String id) {
+        }
+    };
+
+    CachedPost get(String id, Function<String, PostDto> loader);
+
+    // applied only when the post is cached, never triggers a load
+    void update(String id, UnaryOperator<PostDto> change);
+
+    void invalidate(String id);
+}
@@ -0,0 +1,60 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dto.AuthorStatsDto;
+import ait.forum.post.dto.BulkPostDto;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.DailyStatsDto;
+import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import ait.forum.post.model.PostStats;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+
+// plain field copies in place of reflective ModelMapper matching; the JSON produced is the same
+@Component
+public class PostMapper {
+
+    public Post toPost(String author, NewPostDto newPostDto) {
+        HashSet<String> tags = newPostDto.getTags() == null ? new HashSet<>() : new HashSet<>(newPostDto.getTags());
+        return new Post(newPostDto.getTitle(), newPostDto.getContent(), tags, author);
+    }
+
+    public Post toPost(BulkPostDto bulkPostDto) {
+        HashSet<String> tags = bulkPostDto.getTags() == null ? new HashSet<>() : new HashSet<>(bulkPostDto.getTags());
+        return new Post(bulkPostDto.getTitle(), bulkPostDto.getContent(), tags, bulkPostDto.getAuthor());
+    }
+
+    public PostDto toPostDto(Post post) {
+        return toPostDto(post, List.of());
+    }
+
+    public PostDto toPostDto(Post post, List<Comment> comments) {
+        return new PostDto(post.getId(), post.getTitle(), post.getContent(), post.getAuthor(), post.getDateCreated(),
+                post.getTags() == null ? null : new HashSet<>(post.getTags()),
+                post.getLikes(), post.getCommentsCount(),
+                comments == null ? List.of() : comments.stream().map(this::toCommentDto).toList());
+    }
+
+    public PostSummaryDto toPostSummaryDto(Post post) {
+        return new PostSummaryDto(post.getId(), post.getTitle(), post.getAuthor(), post.getDateCreated(),
+                post.getTags() == null ? null : new HashSet<>(post.getTags()),
+                post.getLikes(), post.getCommentsCount());
+    }
+
+    public AuthorStatsDto toAuthorStatsDto(String author, PostStats stats) {
+        return new AuthorStatsDto(author, stats.getPosts(), stats.getLikes(), stats.getComments());
+    }
+
+    public DailyStatsDto toDailyStatsDto(PostStats stats) {
+        return new DailyStatsDto(stats.getDay(), stats.getPosts(), stats.getLikes(), stats.getComments());
+    }
+
+    public CommentDto toCommentDto(Comment comment) {
+        return new CommentDto(comment.getUser(), comment.getMessage(), comment.getDateCreated(), comment.getLikes());
+    }
+}
@@ -1,28 +1,80 @@
 package ait.forum.post.service;
 
+import ait.forum.post.dto.AuthorStatsDto;
+import ait.forum.post.dto.BulkOperationDto;
+import ait.forum.post.dto.BulkOperationResultDto;
+import ait.forum.post.dto.BulkResultDto;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.DailyStatsDto;
 import ait.forum.post.dto.DatePeriodDto;
 import ait.forum.post.dto.NewCommentDto;
 import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PageDto;
 import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface PostService {
     PostDto addNewPost(String author, NewPostDto newPostDto);
 
+    BulkResultDto importPosts(InputStream posts) throws IOException;
+
+    List<BulkOperationResultDto> applyOperations(List<BulkOperationDto> operations);
+
     PostDto findPostById(String id);
 
+    PostJson findPostJson(String id);
+
     PostDto removePost(String id);
 
     PostDto updatePost(String id, NewPostDto newPostDto);
 
     PostDto addComment(String id, String author, NewCommentDto newCommentDto);
 
+    PageDto<CommentDto> findComments(String id, String cursor, Integer limit);
+
     void addLike(String id);
 
-    Iterable<PostDto> findPostsByAuthor(String author);
+    PageDto<PostDto> findPostsByAuthor(String author, String cursor, Integer limit);
+
+    PageDto<PostDto> findPostsByTags(Set<String> tags, String match, String cursor, Integer limit);
+
+    PageDto<PostDto> findPostsByPeriod(DatePeriodDto datePeriodDto, String cursor, Integer limit);
+
+    Stream<PostDto> streamPostsByAuthor(String author);
+
+    Stream<PostDto> streamPostsByTags(Set<String> tags, String match);
+
+    Stream<PostDto> streamPostsByPeriod(DatePeriodDto datePeriodDto);
+
+    PageDto<PostSummaryDto> findPostSummariesByAuthor(String author, String cursor, Integer limit);
+
+    PageDto<PostSummaryDto> findPostSummariesByTags(Set<String> tags, String match, String cursor, Integer limit);
+
+    PageDto<PostSummaryDto> findPostSummariesByPeriod(DatePeriodDto datePeriodDto, String cursor, Integer limit);
+
+    Stream<PostSummaryDto> streamPostSummariesByAuthor(String author);
+
+    Stream<PostSummaryDto> streamPostSummariesByTags(Set<String> tags, String match);
+
+    Stream<PostSummaryDto> streamPostSummariesByPeriod(DatePeriodDto datePeriodDto);
+
+    PageDto<PostSummaryDto> searchPosts(String text, boolean includeComments, String cursor, Integer limit);
+
+    List<TagCountDto> findPopularTags(Integer limit);
+
+    List<TagCountDto> findTagsByPrefix(String prefix, Integer limit);
+
+    List<PostSummaryDto> findTrendingPosts(Integer limit);
 
-    Iterable<PostDto> findPostsByTags(Set<String> tags);
+    AuthorStatsDto findAuthorStats(String author);
 
-    Iterable<PostDto> findPostsByPeriod(DatePeriodDto datePeriodDto);
+    List<DailyStatsDto> findDailyStats(DatePeriodDto datePeriodDto);
 }
@@ -1,100 +1,593 @@
 package ait.forum.post.service;
 
+import ait.forum.post.dao.ChangeResults;
+import ait.forum.post.dao.CommentRepository;
+import ait.forum.post.dao.Cursor;
+import ait.forum.post.dao.PostChange;
 import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dao.PostUpdate;
+import ait.forum.post.dao.SearchHit;
+import ait.forum.post.dao.TagQuery;
+import ait.forum.post.dto.AuthorStatsDto;
+import ait.forum.post.dto.BulkErrorDto;
+import ait.forum.post.dto.BulkOperationDto;
+import ait.forum.post.dto.BulkOperationResultDto;
+import ait.forum.post.dto.BulkPostDto;
+import ait.forum.post.dto.BulkResultDto;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.DailyStatsDto;
 import ait.forum.post.dto.DatePeriodDto;
 import ait.forum.post.dto.NewCommentDto;
 import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PageDto;
 import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
+import ait.forum.post.dto.exceptions.InvalidCursorException;
+import ait.forum.post.dto.exceptions.InvalidSearchException;
+import ait.forum.post.dto.exceptions.InvalidTagQueryException;
 import ait.forum.post.dto.exceptions.PostNotFoundException;
 import ait.forum.post.model.Comment;
 import ait.forum.post.model.Post;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
 
     final PostRepository postRepository;
-    final ModelMapper modelMapper;
+    final CommentRepository commentRepository;
+    final PostMapper postMapper;
+    final ObjectProvider<LikeAggregator> likeAggregator;
+    final PostCache postCache;
+    final ObjectMapper objectMapper;
+    final TagIndex tagIndex;
+    final TrendingPosts trendingPosts;
+    final PostStatistics postStatistics;
+
+    @Value("${forum.post.latest-comments:10}")
+    int latestComments = 10;
+    @Value("${forum.page.default-limit:20}")
+    int defaultLimit = 20;
+    @Value("${forum.page.max-limit:100}")
+    int maxLimit = 100;
+    @Value("${forum.bulk.batch-size:1000}")
+    int bulkBatchSize = 1000;
+    @Value("${forum.bulk.max-errors:1000}")
+    int bulkMaxErrors = 1000;
+    @Value("${forum.search.max-results:1000}")
+    int searchMaxResults = 1000;
 
     @Override
     public PostDto addNewPost(String author, NewPostDto newPostDto) {
-        Post post = modelMapper.map(newPostDto, Post.class);
-        post.setAuthor(author);
-        post = postRepository.save(post);
-        return modelMapper.map(post, PostDto.class);
+        Post post = postRepository.save(postMapper.toPost(author, newPostDto));
+        tagIndex.add(post.getTags());
+        postStatistics.postAdded(post);
+        return postMapper.toPostDto(post);
+    }
+
+    // Records are stored in unordered batches; invalid posts are reported and skipped, malformed JSON ends the read.
+    @Override
+    public BulkResultDto importPosts(InputStream posts) throws IOException {
+        PostImport postImport = new PostImport();
+        try (JsonParser parser = objectMapper.createParser(posts)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                postImport.add(parser.readValueAsTree());
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            postImport.fail(postImport.received++, "Malformed JSON, the rest of the request was not read: " + e.getOriginalMessage());
+        }
+        return postImport.finish();
+    }
+
+    class PostImport {
+        final List<Post> batch = new ArrayList<>();
+        // request position of each post in the batch
+        final List<Integer> positions = new ArrayList<>();
+        final List<BulkErrorDto> errors = new ArrayList<>();
+        int received;
+        int inserted;
+        int failed;
+
+        void add(JsonNode node) {
+            int index = received++;
+            BulkPostDto record;
+            try {
+                record = objectMapper.treeToValue(node, BulkPostDto.class);
+            } catch (JsonProcessingException e) {
+                fail(index, "Not a post: " + e.getOriginalMessage());
+                return;
+            }
+            if (record == null || isBlank(record.getAuthor()) || isBlank(record.getTitle())) {
+                fail(index, "Author and title are required");
+                return;
+            }
+            batch.add(postMapper.toPost(record));
+            positions.add(index);
+            if (batch.size() >= bulkBatchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            Map<Integer, String> rejected = postRepository.insertAll(batch);
+            inserted += batch.size() - rejected.size();
+            for (int i = 0; i < batch.size(); i++) {
+                if (!rejected.containsKey(i)) {
+                    tagIndex.add(batch.get(i).getTags());
+                    postStatistics.postAdded(batch.get(i));
+                }
+            }
+            rejected.forEach((i, message) -> fail(positions.get(i), message));
+            batch.clear();
+            positions.clear();
+        }
+
+        void fail(int index, String message) {
+            failed++;
+            if (errors.size() < bulkMaxErrors) {
+                errors.add(new BulkErrorDto(index, message));
+            }
+        }
+
+        BulkResultDto finish() {
+            flush();
+            errors.sort(Comparator.comparingInt(BulkErrorDto::getIndex));
+            return new BulkResultDto(received, inserted, failed, errors);
+        }
+    }
+
+    // One existence query, one ordered bulk write and one comment insert per request; results in request order.
+    @Override
+    public List<BulkOperationResultDto> applyOperations(List<BulkOperationDto> operations) {
+        BulkOperationResultDto[] results = new BulkOperationResultDto[operations.size()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            String problem = validate(operations.get(i));
+            if (problem == null) {
+                valid.add(i);
+            } else {
+                results[i] = operationResult(i, operations.get(i), BulkOperationResultDto.Status.INVALID, problem);
+            }
+        }
+        // normalized tags of every touched post as read before the write
+        Map<String, Set<String>> existing = valid.isEmpty() ? Map.of() : postRepository.findTagsByIds(valid.stream()
+                .map(i -> operations.get(i).getPostId())
+                .collect(Collectors.toSet()));
+
+        List<PostChange> changes = new ArrayList<>();
+        // request position of each change
+        List<Integer> positions = new ArrayList<>();
+        for (int i : valid) {
+            BulkOperationDto operation = operations.get(i);
+            if (existing.containsKey(operation.getPostId())) {
+                changes.add(change(operation));
+                positions.add(i);
+            } else {
+                results[i] = operationResult(i, operation, BulkOperationResultDto.Status.NOT_FOUND, null);
+            }
+        }
+        ChangeResults applied = postRepository.updateAll(changes);
+
+        List<Comment> comments = new ArrayList<>();
+        // normalized tags of each post with its applied changes replayed in order
+        Map<String, Set<String>> tagsAfter = new HashMap<>();
+        for (int c = 0; c < changes.size(); c++) {
+            int i = positions.get(c);
+            BulkOperationDto operation = operations.get(i);
+            String failure = applied.failed().get(c);
+            if (failure != null) {
+                results[i] = operationResult(i, operation, BulkOperationResultDto.Status.FAILED, failure);
+                continue;
+            }
+            // deleted after the existence check
+            if (applied.notFound().contains(c)) {
+                results[i] = operationResult(i, operation, BulkOperationResultDto.Status.NOT_FOUND, null);
+                continue;
+            }
+            PostChange change = changes.get(c);
+            if (operation.getType() == BulkOperationDto.Type.COMMENT) {
+                comments.add(new Comment(operation.getPostId(), operation.getAuthor(), operation.getMessage()));
+            }
+            if (change.addTags() != null || change.removeTags() != null) {
+                Set<String> tags = tagsAfter.computeIfAbsent(change.id(), id -> new HashSet<>(existing.get(id)));
+                if (change.addTags() != null) {
+                    tags.addAll(Post.normalize(change.addTags()));
+                }
+                if (change.removeTags() != null) {
+                    tags.removeAll(Post.normalize(change.removeTags()));
+                }
+            }
+            trendingPosts.addLikes(change.id(), change.likes());
+            trendingPosts.addComments(change.id(), change.comments());
+            postStatistics.addLikes(change.id(), change.likes());
+            postStatistics.addComments(change.id(), change.comments());
+            results[i] = operationResult(i, operation, BulkOperationResultDto.Status.APPLIED, null);
+        }
+        if (!comments.isEmpty()) {
+            commentRepository.saveAll(comments);
+        }
+        changes.forEach(change -> postCache.invalidate(change.id()));
+        tagsAfter.forEach((id, after) -> {
+            Set<String> before = existing.get(id);
+            tagIndex.add(after.stream().filter(tag -> !before.contains(tag)).toList());
+            tagIndex.remove(before.stream().filter(tag -> !after.contains(tag)).toList());
+        });
+        return Arrays.asList(results);
+    }
+
+    static String validate(BulkOperationDto operation) {
+        if (operation == null || operation.getType() == null) {
+            return "Type is required";
+        }
+        if (isBlank(operation.getPostId())) {
+            return "Post id is required";
+        }
+        return switch (operation.getType()) {
+            case LIKE -> operation.getCount() != null && operation.getCount() <= 0 ? "Count must be positive" : null;
+            case COMMENT -> isBlank(operation.getAuthor()) || isBlank(operation.getMessage())
+                    ? "Author and message are required" : null;
+            case ADD_TAGS, REMOVE_TAGS -> operation.getTags() == null || operation.getTags().isEmpty()
+                    ? "Tags are required" : null;
+        };
+    }
+
+    static PostChange change(BulkOperationDto operation) {
+        return switch (operation.getType()) {
+            case LIKE -> new PostChange(operation.getPostId(), operation.getCount() == null ? 1 : operation.getCount(), 0, null, null);
+            case COMMENT -> new PostChange(operation.getPostId(), 0, 1, null, null);
+            case ADD_TAGS -> new PostChange(operation.getPostId(), 0, 0, operation.getTags(), null);
+            case REMOVE_TAGS -> new PostChange(operation.getPostId(), 0, 0, null, operation.getTags());
+        };
+    }
+
+    static BulkOperationResultDto operationResult(int index, BulkOperationDto operation, BulkOperationResultDto.Status status,
+                                                  String message) {
+        return new BulkOperationResultDto(index, operation == null ? null : operation.getPostId(), status, message);
+    }
+
+    static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
     @Override
     public PostDto findPostById(String id) {
+        return postCache.get(id, this::loadPost).post();
+    }
+
+    @Override
+    public PostJson findPostJson(String id) {
+        return postCache.get(id, this::loadPost).json(objectMapper);
+    }
+
+    PostDto loadPost(String id) {
         Post post = postRepository.findById(id).orElseThrow(PostNotFoundException::new);
-        return modelMapper.map(post, PostDto.class);
+        if (latestComments <= 0 || post.getCommentsCount() == 0) {
+            return postMapper.toPostDto(post);
+        }
+        return postMapper.toPostDto(post, commentRepository.findLatest(id, latestComments));
     }
 
     @Override
     public PostDto removePost(String id) {
-        Post post = postRepository.findById(id).orElseThrow(PostNotFoundException::new);
-        postRepository.delete(post);
-        return modelMapper.map(post, PostDto.class);
+        Post post = postRepository.removeById(id).orElseThrow(PostNotFoundException::new);
+        commentRepository.deleteByPostId(id);
+        postCache.invalidate(id);
+        LikeAggregator aggregator = likeAggregator.getIfAvailable();
+        if (aggregator != null) {
+            aggregator.forget(id);
+        }
+        tagIndex.remove(post.getTags());
+        trendingPosts.remove(id);
+        postStatistics.postRemoved(post);
+        return postMapper.toPostDto(post);
     }
 
     @Override
     public PostDto updatePost(String id, NewPostDto newPostDto) {
-        Post post = postRepository.findById(id).orElseThrow(PostNotFoundException::new);
-        String content = newPostDto.getContent();
-        if (content != null) {
-            post.setContent(content);
+        PostUpdate update = postRepository.updateFields(id, newPostDto.getTitle(), newPostDto.getContent(), newPostDto.getTags())
+                .orElseThrow(PostNotFoundException::new);
+        postCache.invalidate(id);
+        tagIndex.add(update.addedTags());
+        return postMapper.toPostDto(update.post());
+    }
+
+    @Override
+    public PostDto addComment(String id, String author, NewCommentDto newCommentDto) {
+        Comment comment = commentRepository.save(new Comment(id, author, newCommentDto.getMessage()));
+        Post post = postRepository.incrementCommentsCount(id, 1).orElse(null);
+        if (post == null) {
+            commentRepository.delete(comment);
+            throw new PostNotFoundException();
         }
-        String title = newPostDto.getTitle();
-        if (title != null) {
-            post.setTitle(title);
+        postCache.invalidate(id);
+        trendingPosts.addComments(id, 1);
+        postStatistics.commentAdded(post);
+        return postMapper.toPostDto(post, List.of(comment));
+    }
+
+    @Override
+    public PageDto<CommentDto> findComments(String id, String cursor, Integer limit) {
+        int pageLimit = pageLimit(limit);
+        List<Comment> comments = commentRepository.findPage(id, decode(cursor), pageLimit);
+        if (comments.isEmpty() && cursor == null && !postRepository.existsById(id)) {
+            throw new PostNotFoundException();
         }
-        Set<String> tags = newPostDto.getTags();
-        if (tags != null) {
-            tags.forEach(post::addTag);
+        return page(comments, pageLimit, postMapper::toCommentDto,
+                c -> new Cursor(c.getDateCreated(), c.getId()));
+    }
+
+    @Override
+    public void addLike(String id) {
+        LikeAggregator aggregator = likeAggregator.getIfAvailable();
+        if (aggregator != null ? !aggregator.addLike(id) : !postRepository.incrementLikes(id, 1)) {
+            throw new PostNotFoundException();
         }
-        post = postRepository.save(post);
-        return modelMapper.map(post, PostDto.class);
+        // bump the cached copy instead of forcing a reload
+        postCache.update(id, post -> post.toBuilder().likes(post.getLikes() + 1).build());
+        trendingPosts.addLikes(id, 1);
+        postStatistics.addLikes(id, 1);
     }
 
     @Override
-    public PostDto addComment(String id, String author, NewCommentDto newCommentDto) {
-        Post post = postRepository.findById(id).orElseThrow(PostNotFoundException::new);
-        Comment comment = new Comment(author, newCommentDto.getMessage());
-        post.addComment(comment);
-        post = postRepository.save(post);
-        return modelMapper.map(post, PostDto.class);
+    public PageDto<PostDto> findPostsByAuthor(String author, String cursor, Integer limit) {
+        int pageLimit = pageLimit(limit);
+        return postPage(postRepository.findPageByAuthor(author, decode(cursor), pageLimit), pageLimit);
     }
 
     @Override
-    public void addLike(String id) {
-        Post post = postRepository.findById(id).orElseThrow(PostNotFoundException::new);
-        post.addLike();
-        postRepository.save(post);
+    public PageDto<PostDto> findPostsByTags(Set<String> tags, String match, String cursor, Integer limit) {
+        TagQuery query = tagQuery(tags, match, tagIndex);
+        int pageLimit = pageLimit(limit);
+        return postPage(postRepository.findPageByTags(query, decode(cursor), pageLimit), pageLimit);
     }
 
     @Override
-    public Iterable<PostDto> findPostsByAuthor(String author) {
-        return postRepository.findByAuthorIgnoreCase(author)
-                .map(p -> modelMapper.map(p, PostDto.class))
-                .toList();
+    public PageDto<PostDto> findPostsByPeriod(DatePeriodDto datePeriodDto, String cursor, Integer limit) {
+        int pageLimit = pageLimit(limit);
+        return postPage(postRepository.findPageByPeriod(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo(),
+                decode(cursor), pageLimit), pageLimit);
     }
 
     @Override
-    public Iterable<PostDto> findPostsByTags(Set<String> tags) {
-        return postRepository.findByTagsInIgnoreCase(tags)
-                .map(p -> modelMapper.map(p, PostDto.class))
-                .toList();
+    public Stream<PostDto> streamPostsByAuthor(String author) {
+        return postRepository.streamByAuthor(author)
+                .map(postMapper::toPostDto);
+    }
+
+    @Override
+    public Stream<PostDto> streamPostsByTags(Set<String> tags, String match) {
+        return postRepository.streamByTags(tagQuery(tags, match, tagIndex))
+                .map(postMapper::toPostDto);
+    }
+
+    @Override
+    public Stream<PostDto> streamPostsByPeriod(DatePeriodDto datePeriodDto) {
+        return postRepository.streamByPeriod(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo())
+                .map(postMapper::toPostDto);
+    }
+
+    @Override
+    public PageDto<PostSummaryDto> findPostSummariesByAuthor(String author, String cursor, Integer limit) {
+        int pageLimit = pageLimit(limit);
+        return summaryPage(postRepository.findSummaryPageByAuthor(author, decode(cursor), pageLimit), pageLimit);
     }
 
     @Override
-    public Iterable<PostDto> findPostsByPeriod(DatePeriodDto datePeriodDto) {
-        return postRepository.findByDateCreatedBetween(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo())
-                .map(p -> modelMapper.map(p, PostDto.class))
+    public PageDto<PostSummaryDto> findPostSummariesByTags(Set<String> tags, String match, String cursor, Integer limit) {
+        TagQuery query = tagQuery(tags, match, tagIndex);
+        int pageLimit = pageLimit(limit);
+        return summaryPage(postRepository.findSummaryPageByTags(query, decode(cursor), pageLimit), pageLimit);
+    }
+
+    @Override
+    public PageDto<PostSummaryDto> findPostSummariesByPeriod(DatePeriodDto datePeriodDto, String cursor, Integer limit) {
+        int pageLimit = pageLimit(limit);
+        return summaryPage(postRepository.findSummaryPageByPeriod(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo(),
+                decode(cursor), pageLimit), pageLimit);
+    }
+
+    @Override
+    public Stream<PostSummaryDto> streamPostSummariesByAuthor(String author) {
+        return postRepository.streamSummariesByAuthor(author)
+                .map(postMapper::toPostSummaryDto);
+    }
+
+    @Override
+    public Stream<PostSummaryDto> streamPostSummariesByTags(Set<String> tags, String match) {
+        return postRepository.streamSummariesByTags(tagQuery(tags, match, tagIndex))
+                .map(postMapper::toPostSummaryDto);
+    }
+
+    @Override
+    public Stream<PostSummaryDto> streamPostSummariesByPeriod(DatePeriodDto datePeriodDto) {
+        return postRepository.streamSummariesByPeriod(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo())
+                .map(postMapper::toPostSummaryDto);
+    }
+
+    // any (the default), all or none of the tags; for all, the rarest tag goes first
+    static TagQuery tagQuery(Set<String> tags, String match, TagIndex tagIndex) {
+        TagQuery.Match tagMatch;
+        try {
+            tagMatch = match == null || match.isBlank() ? TagQuery.Match.ANY : TagQuery.Match.valueOf(match.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTagQueryException();
+        }
+        Stream<String> normalized = (tags == null ? Stream.<String>empty() : tags.stream())
+                .map(Post::normalize)
+                .distinct();
+        if (tagMatch == TagQuery.Match.ALL) {
+            normalized = normalized.sorted(Comparator.comparingLong(tagIndex::count).thenComparing(Comparator.naturalOrder()));
+        }
+        return new TagQuery(tagMatch, normalized.toList());
+    }
+
+    // the cursor is a position in the relevance ranking, at most forum.search.max-results deep
+    @Override
+    public PageDto<PostSummaryDto> searchPosts(String text, boolean includeComments, String cursor, Integer limit) {
+        if (text == null || text.isBlank()) {
+            throw new InvalidSearchException();
+        }
+        int offset = decodeOffset(cursor);
+        int end = Math.min(offset + pageLimit(limit), searchMaxResults);
+        if (offset >= end) {
+            return new PageDto<>(List.of(), null);
+        }
+        List<SearchHit> hits = postRepository.search(text, end);
+        if (includeComments) {
+            hits = withComments(hits, commentRepository.searchPostIds(text, end), end);
+        }
+        return searchPage(hits, offset, end, searchMaxResults, postMapper::toPostSummaryDto);
+    }
+
+    @Override
+    public List<TagCountDto> findPopularTags(Integer limit) {
+        return tagIndex.mostUsed(pageLimit(limit));
+    }
+
+    @Override
+    public List<TagCountDto> findTagsByPrefix(String prefix, Integer limit) {
+        return tagIndex.mostUsed(prefix, pageLimit(limit));
+    }
+
+    @Override
+    public List<PostSummaryDto> findTrendingPosts(Integer limit) {
+        return trendingPosts.feed(pageLimit(limit));
+    }
+
+    @Override
+    public AuthorStatsDto findAuthorStats(String author) {
+        return postMapper.toAuthorStatsDto(author, postStatistics.author(author));
+    }
+
+    @Override
+    public List<DailyStatsDto> findDailyStats(DatePeriodDto datePeriodDto) {
+        return postStatistics.days(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo()).stream()
+                .map(postMapper::toDailyStatsDto)
+                .toList();
+    }
+
+    List<SearchHit> withComments(List<SearchHit> hits, Map<String, Double> commentScores, int limit) {
+        List<String> missing = missingPostIds(hits, commentScores);
+        return withComments(hits, commentScores, missing.isEmpty() ? List.of() : postRepository.findSummariesByIds(missing), limit);
+    }
+
+    // posts found only by their comments, which the post search did not return
+    static List<String> missingPostIds(List<SearchHit> hits, Map<String, Double> commentScores) {
+        Set<String> found = hits.stream().map(hit -> hit.post().getId()).collect(Collectors.toSet());
+        return commentScores.keySet().stream()
+                .filter(id -> !found.contains(id))
+                .toList();
+    }
+
+    // a post's comment score is added to its own
+    static List<SearchHit> withComments(List<SearchHit> hits, Map<String, Double> commentScores, List<Post> missing, int limit) {
+        if (commentScores.isEmpty()) {
+            return hits;
+        }
+        Map<String, SearchHit> merged = new HashMap<>();
+        hits.forEach(hit -> merged.put(hit.post().getId(), hit));
+        commentScores.forEach((id, score) -> merged.computeIfPresent(id, (key, hit) -> new SearchHit(hit.post(), hit.score() + score)));
+        missing.forEach(post -> merged.put(post.getId(), new SearchHit(post, commentScores.get(post.getId()))));
+        return merged.values().stream()
+                .sorted(Comparator.comparingDouble(SearchHit::score).reversed()
+                        .thenComparing(hit -> hit.post().getId()))
+                .limit(limit)
+                .toList();
+    }
+
+    static PageDto<PostSummaryDto> searchPage(List<SearchHit> hits, int offset, int end, int maxResults,
+                                              Function<Post, PostSummaryDto> mapper) {
+        List<PostSummaryDto> items = hits.stream()
+                .skip(offset)
+                .map(hit -> mapper.apply(hit.post()))
+                .toList();
+        String nextCursor = hits.size() == end && end < maxResults ? encodeOffset(end) : null;
+        return new PageDto<>(items, nextCursor);
+    }
+
+    static String encodeOffset(int offset) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Integer.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int decodeOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (offset < 0) {
+                throw new InvalidCursorException();
+            }
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    PageDto<PostDto> postPage(List<Post> posts, int limit) {
+        return page(posts, limit, postMapper::toPostDto, p -> new Cursor(p.getDateCreated(), p.getId()));
+    }
+
+    PageDto<PostSummaryDto> summaryPage(List<Post> posts, int limit) {
+        return page(posts, limit, postMapper::toPostSummaryDto, p -> new Cursor(p.getDateCreated(), p.getId()));
+    }
+
+    // a full page means there may be more: hand out the position of its last element
+    static <E, D> PageDto<D> page(List<E> entities, int limit, Function<E, D> mapper, Function<E, Cursor> position) {
+        List<D> items = entities.stream()
+                .map(mapper)
                 .toList();
+        String nextCursor = entities.size() == limit ? position.apply(entities.get(entities.size() - 1)).encode() : null;
+        return new PageDto<>(items, nextCursor);
+    }
+
+    int pageLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultLimit;
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return Cursor.decode(cursor);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException();
+        }
     }
 }
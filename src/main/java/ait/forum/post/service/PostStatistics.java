@@ -0,0 +1,239 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dao.PostStatsRepository;
+import ait.forum.post.dao.StatsDelta;
+import ait.forum.post.model.Post;
+import ait.forum.post.model.PostStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Posts, likes and comments per author and per day of post creation, kept as counters instead of read from the posts.
+@Slf4j
+@Component
+public class PostStatistics {
+
+    final PostRepository postRepository;
+    final PostStatsRepository postStatsRepository;
+
+    @Value("${forum.stats.flush-interval:PT1S}")
+    Duration flushInterval = Duration.ofSeconds(1);
+    @Value("${forum.stats.reconcile-interval:PT1H}")
+    Duration reconcileInterval = Duration.ofHours(1);
+    // the same on every instance, whatever the host zone, so all of them write a post's day under one key
+    @Value("${forum.stats.zone:UTC}")
+    ZoneId zone = ZoneOffset.UTC;
+
+    // PostStats id -> pending amounts
+    final ConcurrentHashMap<String, StatsDelta> pending = new ConcurrentHashMap<>();
+    // post id -> pending amounts not yet attributed to an author and day
+    final ConcurrentHashMap<String, StatsDelta> pendingByPost = new ConcurrentHashMap<>();
+    final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "post-statistics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    final Timer flushTimer;
+    final Timer reconcileTimer;
+    final AtomicLong drifted = new AtomicLong();
+
+    public PostStatistics(PostRepository postRepository, PostStatsRepository postStatsRepository, MeterRegistry meterRegistry) {
+        this.postRepository = postRepository;
+        this.postStatsRepository = postStatsRepository;
+        flushTimer = Timer.builder("forum.stats.flush")
+                .description("Latency of writing pending post statistics")
+                .register(meterRegistry);
+        reconcileTimer = Timer.builder("forum.stats.reconcile")
+                .description("Latency of recomputing post statistics from the posts")
+                .register(meterRegistry);
+        Gauge.builder("forum.stats.drifted", drifted, AtomicLong::get)
+                .description("Statistics documents the last reconciliation found wrong")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.execute(this::reconcileQuietly);
+        long flushPeriod = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushPeriod, flushPeriod, TimeUnit.MILLISECONDS);
+        long reconcilePeriod = reconcileInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::reconcileQuietly, reconcilePeriod, reconcilePeriod, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    public void postAdded(Post post) {
+        add(post, new StatsDelta(1, post.getLikes(), post.getCommentsCount()));
+    }
+
+    public void postRemoved(Post post) {
+        add(post, new StatsDelta(-1, -post.getLikes(), -post.getCommentsCount()));
+    }
+
+    public void commentAdded(Post post) {
+        add(post, new StatsDelta(0, 0, 1));
+    }
+
+    public void addLikes(String postId, long likes) {
+        merge(pendingByPost, postId, new StatsDelta(0, likes, 0));
+    }
+
+    public void addComments(String postId, long comments) {
+        merge(pendingByPost, postId, new StatsDelta(0, 0, comments));
+    }
+
+    public PostStats author(String author) {
+        String id = PostStats.authorId(author);
+        return postStatsRepository.findById(id).orElseGet(() -> new PostStats(id, 0, 0, 0));
+    }
+
+    public List<PostStats> days(LocalDate from, LocalDate to) {
+        return postStatsRepository.findDays(from, to);
+    }
+
+    void add(Post post, StatsDelta delta) {
+        add(pending, post, delta, zone);
+    }
+
+    static void merge(Map<String, StatsDelta> deltas, String id, StatsDelta delta) {
+        if (!delta.isZero()) {
+            deltas.merge(id, delta, StatsDelta::plus);
+        }
+    }
+
+    // On failure everything is put back and retried by the next flush.
+    public synchronized int flush() {
+        Map<String, StatsDelta> byPost = drain(pendingByPost);
+        Map<String, StatsDelta> deltas = drain(pending);
+        try {
+            if (!byPost.isEmpty()) {
+                for (Post post : postRepository.findSummariesByIds(byPost.keySet())) {
+                    add(deltas, post, byPost.get(post.getId()), zone);
+                }
+            }
+        } catch (RuntimeException e) {
+            byPost.forEach((id, delta) -> merge(pendingByPost, id, delta));
+            deltas.forEach((id, delta) -> merge(pending, id, delta));
+            throw e;
+        }
+        deltas.values().removeIf(StatsDelta::isZero);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        try {
+            flushTimer.record(() -> postStatsRepository.increment(deltas));
+        } catch (RuntimeException e) {
+            deltas.forEach((id, delta) -> merge(pending, id, delta));
+            throw e;
+        }
+        return deltas.size();
+    }
+
+    static void add(Map<String, StatsDelta> deltas, Post post, StatsDelta delta, ZoneId zone) {
+        if (post.getAuthor() != null) {
+            merge(deltas, PostStats.authorId(post.getAuthor()), delta);
+        }
+        if (post.getDateCreated() != null) {
+            merge(deltas, PostStats.dayId(day(post.getDateCreated(), zone)), delta);
+        }
+    }
+
+    // post dates are local times of the host zone, which is how they are stored and read back
+    static LocalDate day(LocalDateTime dateCreated, ZoneId zone) {
+        return dateCreated.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDate();
+    }
+
+    static Map<String, StatsDelta> drain(ConcurrentHashMap<String, StatsDelta> deltas) {
+        Map<String, StatsDelta> drained = new HashMap<>();
+        for (String id : deltas.keySet()) {
+            StatsDelta delta = deltas.remove(id);
+            if (delta != null) {
+                drained.put(id, delta);
+            }
+        }
+        return drained;
+    }
+
+    // Writes what is pending, then rewrites the documents that disagree with the posts; returns how many did.
+    public synchronized int reconcile() {
+        flush();
+        return reconcileTimer.record(() -> {
+            Map<String, PostStats> expected = postRepository.aggregateStats(zone).stream()
+                    .collect(Collectors.toMap(PostStats::getId, Function.identity()));
+            List<PostStats> corrected = new ArrayList<>();
+            List<String> obsolete = new ArrayList<>();
+            int stored = 0;
+            int drift = 0;
+            for (PostStats stats : postStatsRepository.findAll()) {
+                stored++;
+                PostStats actual = expected.remove(stats.getId());
+                if (actual == null) {
+                    // an author or day whose posts are all gone: only wrong if its counters did not reach zero
+                    obsolete.add(stats.getId());
+                    if (stats.getPosts() != 0 || stats.getLikes() != 0 || stats.getComments() != 0) {
+                        drift++;
+                    }
+                } else if (actual.getPosts() != stats.getPosts() || actual.getLikes() != stats.getLikes()
+                        || actual.getComments() != stats.getComments()) {
+                    corrected.add(actual);
+                    drift++;
+                }
+            }
+            // authors and days that have posts but no document
+            corrected.addAll(expected.values());
+            drift += expected.size();
+            postStatsRepository.replace(corrected, obsolete);
+            drifted.set(drift);
+            if (drift > 0) {
+                log.warn("Post statistics: {} of {} documents disagreed with the posts and were recomputed", drift,
+                        stored + expected.size());
+            }
+            return drift;
+        });
+    }
+
+    void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Post statistics flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Post statistics reconciliation failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dto.AuthorStatsDto;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.DailyStatsDto;
+import ait.forum.post.dto.DatePeriodDto;
+import ait.forum.post.dto.NewCommentDto;
+import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PageDto;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+public interface ReactivePostService {
+    Mono<PostDto> addNewPost(String author, NewPostDto newPostDto);
+
+    Mono<PostDto> findPostById(String id);
+
+    Mono<PostJson> findPostJson(String id);
+
+    Mono<PostDto> removePost(String id);
+
+    Mono<PostDto> updatePost(String id, NewPostDto newPostDto);
+
+    Mono<PostDto> addComment(String id, String author, NewCommentDto newCommentDto);
+
+    Mono<PageDto<CommentDto>> findComments(String id, String cursor, Integer limit);
+
+    Mono<Void> addLike(String id);
+
+    Mono<PageDto<PostDto>> findPostsByAuthor(String author, String cursor, Integer limit);
+
+    Mono<PageDto<PostDto>> findPostsByTags(Set<String> tags, String match, String cursor, Integer limit);
+
+    Mono<PageDto<PostDto>> findPostsByPeriod(DatePeriodDto datePeriodDto, String cursor, Integer limit);
+
+    Flux<PostDto> streamPostsByAuthor(String author);
+
+    Flux<PostDto> streamPostsByTags(Set<String> tags, String match);
+
+    Flux<PostDto> streamPostsByPeriod(DatePeriodDto datePeriodDto);
+
+    Mono<PageDto<PostSummaryDto>> findPostSummariesByAuthor(String author, String cursor, Integer limit);
+
+    Mono<PageDto<PostSummaryDto>> findPostSummariesByTags(Set<String> tags, String match, String cursor, Integer limit);
+
+    Mono<PageDto<PostSummaryDto>> findPostSummariesByPeriod(DatePeriodDto datePeriodDto, String cursor, Integer limit);
+
+    Flux<PostSummaryDto> streamPostSummariesByAuthor(String author);
+
+    Flux<PostSummaryDto> streamPostSummariesByTags(Set<String> tags, String match);
+
+    Flux<PostSummaryDto> streamPostSummariesByPeriod(DatePeriodDto datePeriodDto);
+
+    Mono<PageDto<PostSummaryDto>> searchPosts(String text, boolean includeComments, String cursor, Integer limit);
+
+    Mono<List<TagCountDto>> findPopularTags(Integer limit);
+
+    Mono<List<TagCountDto>> findTagsByPrefix(String prefix, Integer limit);
+
+    Mono<List<PostSummaryDto>> findTrendingPosts(Integer limit);
+
+    Mono<AuthorStatsDto> findAuthorStats(String author);
+
+    Mono<List<DailyStatsDto>> findDailyStats(DatePeriodDto datePeriodDto);
+}
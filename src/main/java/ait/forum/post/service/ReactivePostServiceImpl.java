@@ -0,0 +1,313 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.Cursor;
+import ait.forum.post.dao.ReactiveCommentRepository;
+import ait.forum.post.dao.ReactivePostRepository;
+import ait.forum.post.dao.SearchHit;
+import ait.forum.post.dto.AuthorStatsDto;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.DailyStatsDto;
+import ait.forum.post.dto.DatePeriodDto;
+import ait.forum.post.dto.NewCommentDto;
+import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PageDto;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
+import ait.forum.post.dto.exceptions.InvalidSearchException;
+import ait.forum.post.dto.exceptions.PostNotFoundException;
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static ait.forum.post.service.PostServiceImpl.decode;
+import static ait.forum.post.service.PostServiceImpl.decodeOffset;
+import static ait.forum.post.service.PostServiceImpl.missingPostIds;
+import static ait.forum.post.service.PostServiceImpl.page;
+import static ait.forum.post.service.PostServiceImpl.searchPage;
+import static ait.forum.post.service.PostServiceImpl.tagQuery;
+import static ait.forum.post.service.PostServiceImpl.withComments;
+
+// PostServiceImpl on reactive repositories, for the reactive profile. Single posts are read from the database
+// every time: the read-through cache loads on the calling thread and would block an event loop.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactivePostServiceImpl implements ReactivePostService {
+
+    final ReactivePostRepository postRepository;
+    final ReactiveCommentRepository commentRepository;
+    final PostMapper postMapper;
+    final ObjectProvider<LikeAggregator> likeAggregator;
+    final ObjectMapper objectMapper;
+    final TagIndex tagIndex;
+    final TrendingPosts trendingPosts;
+    final PostStatistics postStatistics;
+
+    @Value("${forum.post.latest-comments:10}")
+    int latestComments = 10;
+    @Value("${forum.page.default-limit:20}")
+    int defaultLimit = 20;
+    @Value("${forum.page.max-limit:100}")
+    int maxLimit = 100;
+    @Value("${forum.search.max-results:1000}")
+    int searchMaxResults = 1000;
+
+    @Override
+    public Mono<PostDto> addNewPost(String author, NewPostDto newPostDto) {
+        return postRepository.save(postMapper.toPost(author, newPostDto))
+                .doOnNext(post -> {
+                    tagIndex.add(post.getTags());
+                    postStatistics.postAdded(post);
+                })
+                .map(postMapper::toPostDto);
+    }
+
+    @Override
+    public Mono<PostDto> findPostById(String id) {
+        return postRepository.findById(id)
+                .switchIfEmpty(Mono.error(PostNotFoundException::new))
+                .flatMap(post -> {
+                    if (latestComments <= 0 || post.getCommentsCount() == 0) {
+                        return Mono.just(postMapper.toPostDto(post));
+                    }
+                    return commentRepository.findLatest(id, latestComments)
+                            .collectList()
+                            .map(comments -> postMapper.toPostDto(post, comments));
+                });
+    }
+
+    @Override
+    public Mono<PostJson> findPostJson(String id) {
+        return findPostById(id)
+                .map(post -> new CachedPost(post).json(objectMapper));
+    }
+
+    @Override
+    public Mono<PostDto> removePost(String id) {
+        return postRepository.removeById(id)
+                .switchIfEmpty(Mono.error(PostNotFoundException::new))
+                .doOnNext(post -> {
+                    tagIndex.remove(post.getTags());
+                    trendingPosts.remove(id);
+                    likeAggregator.ifAvailable(aggregator -> aggregator.forget(id));
+                    postStatistics.postRemoved(post);
+                })
+                .flatMap(post -> commentRepository.deleteByPostId(id).thenReturn(postMapper.toPostDto(post)));
+    }
+
+    @Override
+    public Mono<PostDto> updatePost(String id, NewPostDto newPostDto) {
+        return postRepository.updateFields(id, newPostDto.getTitle(), newPostDto.getContent(), newPostDto.getTags())
+                .switchIfEmpty(Mono.error(PostNotFoundException::new))
+                .map(update -> {
+                    tagIndex.add(update.addedTags());
+                    return postMapper.toPostDto(update.post());
+                });
+    }
+
+    @Override
+    public Mono<PostDto> addComment(String id, String author, NewCommentDto newCommentDto) {
+        return commentRepository.save(new Comment(id, author, newCommentDto.getMessage()))
+                .flatMap(comment -> postRepository.incrementCommentsCount(id, 1)
+                        .switchIfEmpty(Mono.defer(() -> commentRepository.delete(comment).then(Mono.error(PostNotFoundException::new))))
+                        .doOnNext(post -> {
+                            trendingPosts.addComments(id, 1);
+                            postStatistics.commentAdded(post);
+                        })
+                        .map(post -> postMapper.toPostDto(post, List.of(comment))));
+    }
+
+    @Override
+    public Mono<PageDto<CommentDto>> findComments(String id, String cursor, Integer limit) {
+        return Mono.defer(() -> {
+            int pageLimit = pageLimit(limit);
+            return commentRepository.findPage(id, decode(cursor), pageLimit)
+                    .collectList()
+                    .flatMap(comments -> comments.isEmpty() && cursor == null
+                            ? postRepository.existsById(id)
+                            .flatMap(exists -> exists ? Mono.just(comments) : Mono.<List<Comment>>error(new PostNotFoundException()))
+                            : Mono.just(comments))
+                    .map(comments -> page(comments, pageLimit, postMapper::toCommentDto,
+                            c -> new Cursor(c.getDateCreated(), c.getId())));
+        });
+    }
+
+    @Override
+    public Mono<Void> addLike(String id) {
+        LikeAggregator aggregator = likeAggregator.getIfAvailable();
+        // the aggregator may check the post with the blocking repository
+        Mono<Boolean> liked = aggregator != null
+                ? Mono.fromCallable(() -> aggregator.addLike(id)).subscribeOn(Schedulers.boundedElastic())
+                : postRepository.incrementLikes(id, 1);
+        return liked
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(PostNotFoundException::new))
+                .doOnNext(added -> {
+                    trendingPosts.addLikes(id, 1);
+                    postStatistics.addLikes(id, 1);
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<PageDto<PostDto>> findPostsByAuthor(String author, String cursor, Integer limit) {
+        return postPage(cursor, limit, (after, pageLimit) -> postRepository.findPageByAuthor(author, after, pageLimit),
+                postMapper::toPostDto);
+    }
+
+    @Override
+    public Mono<PageDto<PostDto>> findPostsByTags(Set<String> tags, String match, String cursor, Integer limit) {
+        return postPage(cursor, limit, (after, pageLimit) -> postRepository.findPageByTags(tagQuery(tags, match, tagIndex), after, pageLimit),
+                postMapper::toPostDto);
+    }
+
+    @Override
+    public Mono<PageDto<PostDto>> findPostsByPeriod(DatePeriodDto datePeriodDto, String cursor, Integer limit) {
+        return postPage(cursor, limit, (after, pageLimit) -> postRepository.findPageByPeriod(datePeriodDto.getDateFrom(),
+                datePeriodDto.getDateTo(), after, pageLimit), postMapper::toPostDto);
+    }
+
+    @Override
+    public Flux<PostDto> streamPostsByAuthor(String author) {
+        return postRepository.streamByAuthor(author)
+                .map(postMapper::toPostDto);
+    }
+
+    @Override
+    public Flux<PostDto> streamPostsByTags(Set<String> tags, String match) {
+        return Flux.defer(() -> postRepository.streamByTags(tagQuery(tags, match, tagIndex)))
+                .map(postMapper::toPostDto);
+    }
+
+    @Override
+    public Flux<PostDto> streamPostsByPeriod(DatePeriodDto datePeriodDto) {
+        return postRepository.streamByPeriod(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo())
+                .map(postMapper::toPostDto);
+    }
+
+    @Override
+    public Mono<PageDto<PostSummaryDto>> findPostSummariesByAuthor(String author, String cursor, Integer limit) {
+        return postPage(cursor, limit, (after, pageLimit) -> postRepository.findSummaryPageByAuthor(author, after, pageLimit),
+                postMapper::toPostSummaryDto);
+    }
+
+    @Override
+    public Mono<PageDto<PostSummaryDto>> findPostSummariesByTags(Set<String> tags, String match, String cursor, Integer limit) {
+        return postPage(cursor, limit, (after, pageLimit) -> postRepository.findSummaryPageByTags(tagQuery(tags, match, tagIndex),
+                        after, pageLimit),
+                postMapper::toPostSummaryDto);
+    }
+
+    @Override
+    public Mono<PageDto<PostSummaryDto>> findPostSummariesByPeriod(DatePeriodDto datePeriodDto, String cursor, Integer limit) {
+        return postPage(cursor, limit, (after, pageLimit) -> postRepository.findSummaryPageByPeriod(datePeriodDto.getDateFrom(),
+                datePeriodDto.getDateTo(), after, pageLimit), postMapper::toPostSummaryDto);
+    }
+
+    @Override
+    public Flux<PostSummaryDto> streamPostSummariesByAuthor(String author) {
+        return postRepository.streamSummariesByAuthor(author)
+                .map(postMapper::toPostSummaryDto);
+    }
+
+    @Override
+    public Flux<PostSummaryDto> streamPostSummariesByTags(Set<String> tags, String match) {
+        return Flux.defer(() -> postRepository.streamSummariesByTags(tagQuery(tags, match, tagIndex)))
+                .map(postMapper::toPostSummaryDto);
+    }
+
+    @Override
+    public Flux<PostSummaryDto> streamPostSummariesByPeriod(DatePeriodDto datePeriodDto) {
+        return postRepository.streamSummariesByPeriod(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo())
+                .map(postMapper::toPostSummaryDto);
+    }
+
+    @Override
+    public Mono<PageDto<PostSummaryDto>> searchPosts(String text, boolean includeComments, String cursor, Integer limit) {
+        return Mono.defer(() -> {
+            if (text == null || text.isBlank()) {
+                return Mono.error(new InvalidSearchException());
+            }
+            int offset = decodeOffset(cursor);
+            int end = Math.min(offset + pageLimit(limit), searchMaxResults);
+            if (offset >= end) {
+                return Mono.just(new PageDto<PostSummaryDto>(List.of(), null));
+            }
+            Mono<List<SearchHit>> hits = postRepository.search(text, end).collectList();
+            if (includeComments) {
+                hits = hits.zipWith(commentRepository.searchPostIds(text, end))
+                        .flatMap(found -> findSummaries(missingPostIds(found.getT1(), found.getT2()))
+                                .map(missing -> withComments(found.getT1(), found.getT2(), missing, end)));
+            }
+            return hits.map(found -> searchPage(found, offset, end, searchMaxResults, postMapper::toPostSummaryDto));
+        });
+    }
+
+    // served from memory
+    @Override
+    public Mono<List<TagCountDto>> findPopularTags(Integer limit) {
+        return Mono.fromSupplier(() -> tagIndex.mostUsed(pageLimit(limit)));
+    }
+
+    @Override
+    public Mono<List<TagCountDto>> findTagsByPrefix(String prefix, Integer limit) {
+        return Mono.fromSupplier(() -> tagIndex.mostUsed(prefix, pageLimit(limit)));
+    }
+
+    @Override
+    public Mono<List<PostSummaryDto>> findTrendingPosts(Integer limit) {
+        return Mono.fromSupplier(() -> trendingPosts.feed(pageLimit(limit)));
+    }
+
+    // the counters are read through the blocking repository, off the event loop
+    @Override
+    public Mono<AuthorStatsDto> findAuthorStats(String author) {
+        return Mono.fromCallable(() -> postMapper.toAuthorStatsDto(author, postStatistics.author(author)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<List<DailyStatsDto>> findDailyStats(DatePeriodDto datePeriodDto) {
+        return Mono.fromCallable(() -> postStatistics.days(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo()).stream()
+                        .map(postMapper::toDailyStatsDto)
+                        .toList())
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    Mono<List<Post>> findSummaries(List<String> ids) {
+        return ids.isEmpty() ? Mono.just(List.of()) : postRepository.findSummariesByIds(ids).collectList();
+    }
+
+    // a malformed cursor or tag match becomes an error signal rather than an exception thrown at assembly time
+    <D> Mono<PageDto<D>> postPage(String cursor, Integer limit, BiFunction<Cursor, Integer, Flux<Post>> query,
+                                  Function<Post, D> mapper) {
+        return Mono.defer(() -> {
+            int pageLimit = pageLimit(limit);
+            return query.apply(decode(cursor), pageLimit)
+                    .collectList()
+                    .map(posts -> page(posts, pageLimit, mapper, p -> new Cursor(p.getDateCreated(), p.getId())));
+        });
+    }
+
+    int pageLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultLimit;
+        }
+        return Math.min(limit, maxLimit);
+    }
+}
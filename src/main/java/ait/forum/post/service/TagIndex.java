@@ -0,0 +1,215 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dto.TagCountDto;
+import ait.forum.post.model.Post;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// Normalized tag -> number of posts carrying it, sorted by tag for prefix lookups.
+@Slf4j
+@Component
+public class TagIndex {
+
+    static final Comparator<TagCountDto> MOST_USED = Comparator.comparingLong(TagCountDto::getCount).reversed()
+            .thenComparing(TagCountDto::getTag);
+
+    final PostRepository postRepository;
+    final Duration rebuildInterval;
+
+    volatile ConcurrentSkipListMap<String, Long> counts = new ConcurrentSkipListMap<>();
+    // changes made while a rebuild reads the database, replayed onto its result; null between rebuilds
+    ConcurrentHashMap<String, Long> changesDuringRebuild;
+    // shared by writers, exclusive for a rebuild to start recording and to swap in its result
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+    final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "tag-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // the overall ranking is a scan of every tag, so it is redone at most once per ranking-refresh
+    @Value("${forum.tags.ranking-refresh:PT1S}")
+    Duration rankingRefresh = Duration.ofSeconds(1);
+    volatile Ranking ranking;
+    final AtomicLong changes = new AtomicLong();
+
+    final Timer rebuildTimer;
+
+    public TagIndex(PostRepository postRepository, MeterRegistry meterRegistry,
+                    @Value("${forum.tags.rebuild-interval:PT10M}") Duration rebuildInterval) {
+        this.postRepository = postRepository;
+        this.rebuildInterval = rebuildInterval;
+        rebuildTimer = Timer.builder("forum.tags.rebuild")
+                .description("Latency of rebuilding the tag index from the database")
+                .register(meterRegistry);
+        Gauge.builder("forum.tags.distinct", this, index -> index.counts.size())
+                .description("Distinct tags in the tag index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public void add(Collection<String> tags) {
+        change(tags, 1);
+    }
+
+    public void remove(Collection<String> tags) {
+        change(tags, -1);
+    }
+
+    void change(Collection<String> tags, long delta) {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        // a post carrying a tag in two letter cases counts once, as it matches once
+        Set<String> normalizedTags = tags.stream()
+                .map(Post::normalize)
+                .collect(Collectors.toSet());
+        lock.readLock().lock();
+        try {
+            for (String normalized : normalizedTags) {
+                apply(counts, normalized, delta);
+                changes.incrementAndGet();
+                if (changesDuringRebuild != null) {
+                    changesDuringRebuild.merge(normalized, delta, Long::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rebuilds the counts from the database, replaying what was written meanwhile.
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ConcurrentSkipListMap<String, Long> rebuilt = new ConcurrentSkipListMap<>();
+        try {
+            rebuildTimer.record(() -> postRepository.countTags().forEach((tag, count) -> apply(rebuilt, tag, count)));
+        } catch (RuntimeException e) {
+            swap(null);
+            throw e;
+        }
+        swap(rebuilt);
+    }
+
+    // writers wait for the swap, so each change lands either in the old counts or in the replayed ones
+    void swap(ConcurrentSkipListMap<String, Long> rebuilt) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilt != null) {
+                changesDuringRebuild.forEach((tag, delta) -> apply(rebuilt, tag, delta));
+                counts = rebuilt;
+                ranking = null;
+            }
+            changesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Tag index rebuild failed, keeping the current counts: {}", e.getMessage());
+        }
+    }
+
+    static void apply(ConcurrentSkipListMap<String, Long> counts, String tag, long delta) {
+        if (tag == null) {
+            return;
+        }
+        counts.compute(tag, (key, count) -> {
+            long updated = (count == null ? 0 : count) + delta;
+            return updated > 0 ? updated : null;
+        });
+    }
+
+    public List<TagCountDto> mostUsed(int limit) {
+        Ranking current = ranking;
+        long now = System.nanoTime();
+        if (current == null || current.limit < limit
+                || current.changes != changes.get() && now - current.computedAt >= rankingRefresh.toNanos()) {
+            long seen = changes.get();
+            int computeLimit = current == null ? limit : Math.max(limit, current.limit);
+            current = new Ranking(seen, now, computeLimit, mostUsed(counts, computeLimit));
+            ranking = current;
+        }
+        return current.tags.size() <= limit ? current.tags : current.tags.subList(0, limit);
+    }
+
+    // most used first among the tags starting with the prefix, in any letter case
+    public List<TagCountDto> mostUsed(String prefix, int limit) {
+        String normalized = Post.normalize(prefix);
+        if (normalized == null || normalized.isEmpty()) {
+            return mostUsed(limit);
+        }
+        return mostUsed(counts.subMap(normalized, normalized + Character.MAX_VALUE), limit);
+    }
+
+    public long count(String tag) {
+        return counts.getOrDefault(Post.normalize(tag), 0L);
+    }
+
+    record Ranking(long changes, long computedAt, int limit, List<TagCountDto> tags) {
+    }
+
+    // one pass with a heap of the limit best seen so far, rather than sorting every tag
+    static List<TagCountDto> mostUsed(Map<String, Long> counts, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<TagCountDto> best = new PriorityQueue<>(limit + 1, MOST_USED.reversed());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            long count = entry.getValue();
+            if (best.size() == limit && count < best.peek().getCount()) {
+                continue;
+            }
+            best.add(new TagCountDto(entry.getKey(), count));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<TagCountDto> result = new ArrayList<>(best);
+        result.sort(MOST_USED);
+        return List.copyOf(result);
+    }
+}
@@ -0,0 +1,323 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dao.TrendingSnapshotRepository;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.model.Post;
+import ait.forum.post.model.TrendingSnapshot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Posts ranked by likes and comments that lose half their weight every half-life, served as GET /forum/posts/trending.
+@Slf4j
+@Component
+public class TrendingPosts {
+
+    static final String SNAPSHOT_ID = "posts";
+    // 2^64 leaves ample room below the double range; beyond it the scores are scaled back to a new epoch
+    static final double REBASE_HALF_LIVES = 64;
+
+    static final Comparator<Entry> LOWEST_FIRST = Comparator.comparingDouble(Entry::score).thenComparing(Entry::id);
+
+    final PostRepository postRepository;
+    final TrendingSnapshotRepository snapshotRepository;
+    final PostMapper postMapper;
+
+    @Value("${forum.trending.half-life:PT6H}")
+    Duration halfLife = Duration.ofHours(6);
+    // a comment takes more effort than a like and says more about a post being discussed
+    @Value("${forum.trending.comment-weight:3}")
+    double commentWeight = 3;
+    @Value("${forum.trending.capacity:10000}")
+    int capacity = 10000;
+    @Value("${forum.trending.size:100}")
+    int size = 100;
+    @Value("${forum.trending.snapshot-interval:PT30S}")
+    Duration snapshotInterval = Duration.ofSeconds(30);
+    // each instance only sees its own likes and comments, so each saves and restores its own scores
+    @Value("${forum.trending.instance-id:}")
+    String instanceId = "";
+
+    Clock clock = Clock.systemUTC();
+    // scores and ranking belong to the thread folding the boosts in; the other threads only see feed and tracked
+    Instant epoch;
+    final Map<String, Double> scores = new HashMap<>();
+    final TreeSet<Entry> ranking = new TreeSet<>(LOWEST_FIRST);
+    volatile List<PostSummaryDto> feed = List.of();
+    volatile int tracked;
+
+    // recorded since the last fold, replaced when the epoch moves
+    volatile Boosts boosts;
+    final Set<String> removed = ConcurrentHashMap.newKeySet();
+
+    final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "trending-posts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    final Timer snapshotTimer;
+
+    public TrendingPosts(PostRepository postRepository, TrendingSnapshotRepository snapshotRepository, PostMapper postMapper,
+                         MeterRegistry meterRegistry) {
+        this.postRepository = postRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.postMapper = postMapper;
+        epoch = clock.instant();
+        boosts = new Boosts(epoch, new ConcurrentHashMap<>());
+        snapshotTimer = Timer.builder("forum.trending.snapshot")
+                .description("Latency of loading the trending feed and saving the scores")
+                .register(meterRegistry);
+        Gauge.builder("forum.trending.tracked", this, TrendingPosts::tracked)
+                .description("Posts with a trending score")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.execute(this::restoreQuietly);
+        long period = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        snapshotQuietly();
+    }
+
+    public void addLikes(String id, int likes) {
+        add(id, likes);
+    }
+
+    public void addComments(String id, int comments) {
+        add(id, comments * commentWeight);
+    }
+
+    // gone from the feed with the next snapshot
+    public void remove(String id) {
+        boosts.byId().remove(id);
+        removed.add(id);
+    }
+
+    // the served feed, at most size posts as of the last snapshot
+    public List<PostSummaryDto> feed(int limit) {
+        List<PostSummaryDto> current = feed;
+        return current.size() <= limit ? current : current.subList(0, limit);
+    }
+
+    void add(String id, double weight) {
+        if (weight > 0) {
+            record(id, weight, clock.instant());
+        }
+    }
+
+    // Adds boost, given against boostEpoch, rescaled to the epoch of the boosts it lands in.
+    void record(String id, double boost, Instant boostEpoch) {
+        while (boost > 0) {
+            Boosts current = boosts;
+            Boost adder = current.byId().get(id);
+            if (adder == null) {
+                adder = current.byId().computeIfAbsent(id, key -> new Boost());
+            }
+            adder.sum.add(boost * Math.pow(2, halfLives(current.epoch(), boostEpoch)));
+            if (!adder.closed) {
+                return;
+            }
+            boost = adder.sum.sumThenReset();
+            boostEpoch = current.epoch();
+        }
+    }
+
+    // Adders found idle are dropped from boosts, so posts nobody touches any more cost nothing until they are.
+    synchronized void fold() {
+        for (String id : removed) {
+            removed.remove(id);
+            Double score = scores.remove(id);
+            if (score != null) {
+                ranking.remove(new Entry(id, score));
+            }
+        }
+        Boosts current = boosts;
+        for (Iterator<Map.Entry<String, Boost>> entries = current.byId().entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<String, Boost> entry = entries.next();
+            double boost = entry.getValue().sum.sumThenReset();
+            if (boost == 0) {
+                entries.remove();
+                boost = entry.getValue().close();
+            }
+            merge(entry.getKey(), boost, current.epoch());
+        }
+        tracked = scores.size();
+    }
+
+    // a boost recorded against another epoch is carried over to the scores' one first
+    void merge(String id, double boost, Instant boostEpoch) {
+        if (boost > 0) {
+            merge(id, boost * Math.pow(2, halfLives(epoch, boostEpoch)));
+        }
+    }
+
+    void merge(String id, double boost) {
+        Double score = scores.get(id);
+        if (score == null) {
+            if (scores.size() >= capacity) {
+                Entry lowest = ranking.first();
+                if (lowest.score() >= boost) {
+                    return;
+                }
+                ranking.pollFirst();
+                scores.remove(lowest.id());
+            }
+            score = 0.0;
+        } else {
+            ranking.remove(new Entry(id, score));
+        }
+        double updated = score + boost;
+        scores.put(id, updated);
+        ranking.add(new Entry(id, updated));
+    }
+
+    double halfLives(Instant from, Instant to) {
+        return (double) Duration.between(from, to).toMillis() / halfLife.toMillis();
+    }
+
+    // Loads the top posts in one query and swaps the feed. Removed posts are simply not found and drop out of the feed.
+    public void snapshot() {
+        List<String> top;
+        TrendingSnapshot snapshot;
+        synchronized (this) {
+            fold();
+            Instant now = clock.instant();
+            if (halfLives(epoch, now) > REBASE_HALF_LIVES) {
+                rebase(now);
+            }
+            top = new ArrayList<>(size);
+            for (Entry entry : ranking.descendingSet()) {
+                if (top.size() == size) {
+                    break;
+                }
+                top.add(entry.id());
+            }
+            snapshot = new TrendingSnapshot(snapshotId(), epoch, new HashMap<>(scores));
+        }
+        snapshotTimer.record(() -> {
+            Map<String, Post> posts = top.isEmpty() ? Map.of() : postRepository.findSummariesByIds(top).stream()
+                    .collect(Collectors.toMap(Post::getId, Function.identity()));
+            feed = top.stream()
+                    .map(posts::get)
+                    .filter(Objects::nonNull)
+                    .map(postMapper::toPostSummaryDto)
+                    .toList();
+            snapshotRepository.save(snapshot);
+        });
+    }
+
+    // Scales every score to a later epoch, which new boosts are recorded against from now on.
+    synchronized void rebase(Instant newEpoch) {
+        Boosts old = boosts;
+        boosts = new Boosts(newEpoch, new ConcurrentHashMap<>());
+        double factor = Math.pow(2, -halfLives(epoch, newEpoch));
+        List<Entry> entries = new ArrayList<>(ranking);
+        ranking.clear();
+        for (Entry entry : entries) {
+            double score = entry.score() * factor;
+            scores.put(entry.id(), score);
+            ranking.add(new Entry(entry.id(), score));
+        }
+        epoch = newEpoch;
+        old.byId().forEach((id, adder) -> merge(id, adder.close(), old.epoch()));
+    }
+
+    // the saved scores are carried over to the current epoch and added to whatever arrived since the start
+    public void restore() {
+        TrendingSnapshot snapshot = snapshotRepository.findById(snapshotId()).orElse(null);
+        if (snapshot == null || snapshot.getScores() == null) {
+            return;
+        }
+        synchronized (this) {
+            double factor = Math.pow(2, halfLives(epoch, snapshot.getEpoch()));
+            snapshot.getScores().forEach((id, score) -> merge(id, score * factor));
+        }
+        snapshot();
+    }
+
+    // the host name unless forum.trending.instance-id is set
+    String snapshotId() {
+        return SNAPSHOT_ID + ":" + (instanceId == null || instanceId.isBlank() ? hostName() : instanceId);
+    }
+
+    static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    void restoreQuietly() {
+        try {
+            restore();
+        } catch (RuntimeException e) {
+            log.warn("Trending scores could not be restored, starting empty: {}", e.getMessage());
+        }
+    }
+
+    void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.warn("Trending snapshot failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    // as of the last fold
+    int tracked() {
+        return tracked;
+    }
+
+    record Entry(String id, double score) {
+    }
+
+    record Boosts(Instant epoch, ConcurrentHashMap<String, Boost> byId) {
+    }
+
+    // A post's boosts since the last fold; once closed, a writer takes back what the fold did not take.
+    static final class Boost {
+        final DoubleAdder sum = new DoubleAdder();
+        volatile boolean closed;
+
+        double close() {
+            closed = true;
+            return sum.sumThenReset();
+        }
+    }
+}
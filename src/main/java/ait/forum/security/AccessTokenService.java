@@ -0,0 +1,128 @@
+package ait.forum.security;
+
+import ait.forum.accounting.dao.UserAccountRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+// Short-lived HS256 tokens carrying login and roles, so bearer requests need neither BCrypt nor, mostly, the database.
+@Component
+public class AccessTokenService {
+
+    static final String ROLES_CLAIM = "roles";
+    static final String VERSION_CLAIM = "ver";
+    static final String ROLE_PREFIX = "ROLE_";
+
+    final UserAccountRepository userAccountRepository;
+    final boolean enabled;
+    final Duration ttl;
+    final JwtEncoder jwtEncoder;
+    final JwtDecoder jwtDecoder;
+    // empty for logins without an account
+    final Cache<String, Optional<Long>> versions;
+
+    public AccessTokenService(UserAccountRepository userAccountRepository,
+                              @Value("${forum.security.token.enabled:false}") boolean enabled,
+                              @Value("${forum.security.token.secret:}") String secret,
+                              @Value("${forum.security.token.ttl:PT15M}") Duration ttl,
+                              @Value("${forum.security.token.version-ttl:PT5S}") Duration versionTtl,
+                              @Value("${forum.security.cache.max-size:10000}") long maxSize) throws GeneralSecurityException {
+        this.userAccountRepository = userAccountRepository;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(versionTtl)
+                .build();
+        // without a configured secret tokens are only valid for the lifetime of this process
+        SecretKey key = secret.isBlank()
+                ? KeyGenerator.getInstance("HmacSHA256").generateKey()
+                : new SecretKeySpec(Base64.getDecoder().decode(secret), "HmacSHA256");
+        jwtEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(JwtValidators.createDefault(), this::validateVersion));
+        jwtDecoder = decoder;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // only a password check may mint a token, with the version read from the database
+    public Optional<String> issue(Authentication authentication) {
+        if (!enabled || !(authentication instanceof UsernamePasswordAuthenticationToken)) {
+            return Optional.empty();
+        }
+        String login = authentication.getName();
+        Optional<Long> version = userAccountRepository.findTokenVersion(login);
+        versions.put(login, version);
+        if (version.isEmpty()) {
+            return Optional.empty();
+        }
+        List<String> roles = authentication.getAuthorities()
+                .stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(a -> a.startsWith(ROLE_PREFIX))
+                .map(a -> a.substring(ROLE_PREFIX.length()))
+                .toList();
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .subject(login)
+                .issuedAt(now)
+                .expiresAt(now.plus(ttl))
+                .claim(ROLES_CLAIM, roles)
+                .claim(VERSION_CLAIM, version.get())
+                .build();
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+        return Optional.of(jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue());
+    }
+
+    // called after the account's tokenVersion was bumped or the account removed, so this instance sees it at once
+    public void revoke(String login) {
+        versions.invalidate(login);
+    }
+
+    public JwtDecoder decoder() {
+        return jwtDecoder;
+    }
+
+    public JwtAuthenticationConverter authenticationConverter() {
+        JwtGrantedAuthoritiesConverter authorities = new JwtGrantedAuthoritiesConverter();
+        authorities.setAuthoritiesClaimName(ROLES_CLAIM);
+        authorities.setAuthorityPrefix(ROLE_PREFIX);
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authorities);
+        return converter;
+    }
+
+    OAuth2TokenValidatorResult validateVersion(Jwt jwt) {
+        Object version = jwt.getClaim(VERSION_CLAIM);
+        Optional<Long> current = versions.get(jwt.getSubject(), userAccountRepository::findTokenVersion);
+        if (version instanceof Number number && current.isPresent() && number.longValue() == current.get()) {
+            return OAuth2TokenValidatorResult.success();
+        }
+        return OAuth2TokenValidatorResult.failure(new OAuth2Error("invalid_token", "Token has been revoked", null));
+    }
+}
@@ -0,0 +1,133 @@
+package ait.forum.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+
+// Loaded users plus proof that a presented password already passed BCrypt, so repeat logins skip both.
+@Component
+public class AuthenticationCache implements UserCache {
+
+    final Cache<String, StampedUser> users;
+    final Cache<String, byte[]> verifiedCredentials;
+    // absent means 0; every put under a generation rewrites it, so it outlives the entries stamped with it
+    final Cache<String, Long> generations;
+    final SecretKey key;
+
+    public AuthenticationCache(MeterRegistry meterRegistry,
+                               @Value("${forum.security.cache.ttl:PT5M}") Duration ttl,
+                               @Value("${forum.security.cache.max-size:10000}") long maxSize) throws GeneralSecurityException {
+        users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        verifiedCredentials = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        generations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        key = KeyGenerator.getInstance("HmacSHA256").generateKey();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "auth.users");
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedCredentials, "auth.credentials");
+    }
+
+    public long generation(String username) {
+        Long generation = generations.getIfPresent(username);
+        return generation == null ? 0 : generation;
+    }
+
+    // the user as loaded after reading generation(username)
+    public UserDetails stamp(UserDetails user, long generation) {
+        return new StampedUser(user, generation);
+    }
+
+    // copies in and out: ProviderManager erases the password of the principal it hands back
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        StampedUser user = users.getIfPresent(username);
+        return user == null ? null : new StampedUser(user, user.generation);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        ifCurrent(user, () -> users.put(user.getUsername(), new StampedUser(user, generationOf(user))));
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        evict(username);
+    }
+
+    public boolean isVerified(UserDetails user, String presentedPassword) {
+        byte[] verified = verifiedCredentials.getIfPresent(user.getUsername());
+        return verified != null && MessageDigest.isEqual(verified, digest(user, presentedPassword));
+    }
+
+    public void markVerified(UserDetails user, String presentedPassword) {
+        ifCurrent(user, () -> verifiedCredentials.put(user.getUsername(), digest(user, presentedPassword)));
+    }
+
+    // compute locks the login's generation, so an evict cannot slip in between the check and the put
+    public void evict(String username) {
+        generations.asMap().compute(username, (login, generation) -> {
+            users.invalidate(username);
+            verifiedCredentials.invalidate(username);
+            return generation == null ? 1 : generation + 1;
+        });
+    }
+
+    void ifCurrent(UserDetails user, Runnable put) {
+        generations.asMap().compute(user.getUsername(), (login, generation) -> {
+            if (generationOf(user) == (generation == null ? 0 : generation)) {
+                put.run();
+            }
+            return generation;
+        });
+    }
+
+    // an unstamped user cannot be told apart from a stale one
+    static long generationOf(UserDetails user) {
+        return user instanceof StampedUser stamped ? stamped.generation : -1;
+    }
+
+    static final class StampedUser extends User {
+        final long generation;
+
+        StampedUser(UserDetails user, long generation) {
+            super(user.getUsername(), user.getPassword(), user.isEnabled(), user.isAccountNonExpired(),
+                    user.isCredentialsNonExpired(), user.isAccountNonLocked(), user.getAuthorities());
+            this.generation = generation;
+        }
+    }
+
+    byte[] digest(UserDetails user, String presentedPassword) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            mac.update(user.getPassword().getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(presentedPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
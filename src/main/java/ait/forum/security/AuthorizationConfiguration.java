@@ -1,6 +1,7 @@
 package ait.forum.security;
 
 import ait.forum.accounting.model.Role;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,17 +11,26 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthorizationConfiguration {
 
     @Bean
-    SecurityFilterChain web(HttpSecurity http) throws Exception {
+    SecurityFilterChain web(HttpSecurity http, AccessTokenService accessTokenService) throws Exception {
         http.httpBasic(Customizer.withDefaults());
+        if (accessTokenService.isEnabled()) {
+            // Basic stays for /account/login, everything else can present the issued bearer token
+            http.oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt
+                    .decoder(accessTokenService.decoder())
+                    .jwtAuthenticationConverter(accessTokenService.authenticationConverter())));
+        }
         http.csrf(csrf -> csrf.disable());
 
         http.authorizeHttpRequests(authorize -> authorize
                 .requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**").permitAll()  // Разрешаем доступ к Swagger без авторизации
                 .requestMatchers("/account/register", "/forum/posts/**").permitAll()
                 .requestMatchers("/account/user/{login}/role/{role}").hasRole(Role.ADMINISTRATOR.name())
+                .requestMatchers("/forum/bulk/posts").hasRole(Role.ADMINISTRATOR.name())
+                .requestMatchers("/forum/bulk/operations").hasAnyRole(Role.ADMINISTRATOR.name(), Role.MODERATOR.name())
                 .requestMatchers(HttpMethod.PUT, "/account/user/{login}").access(new WebExpressionAuthorizationManager("#login == authentication.name"))
                 .requestMatchers(HttpMethod.DELETE, "/account/user/{login}").access(new WebExpressionAuthorizationManager("#login == authentication.name or hasRole('ADMINISTRATOR')"))
                 .anyRequest().authenticated()
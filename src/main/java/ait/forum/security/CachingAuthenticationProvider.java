@@ -0,0 +1,39 @@
+package ait.forum.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+// HTTP Basic sends the password with every request; only the first one per TTL window pays for the database and BCrypt
+@Component
+public class CachingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    final AuthenticationCache authenticationCache;
+
+    public CachingAuthenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                         AuthenticationCache authenticationCache) {
+        super(passwordEncoder);
+        this.authenticationCache = authenticationCache;
+        // the generation is read before loading, so an evict during the load makes the result stale
+        setUserDetailsService(username -> {
+            long generation = authenticationCache.generation(username);
+            return authenticationCache.stamp(userDetailsService.loadUserByUsername(username), generation);
+        });
+        setUserCache(authenticationCache);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        Object credentials = authentication.getCredentials();
+        if (credentials != null && authenticationCache.isVerified(userDetails, credentials.toString())) {
+            return;
+        }
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        authenticationCache.markVerified(userDetails, credentials.toString());
+    }
+}
@@ -0,0 +1,71 @@
+package ait.forum.security;
+
+import ait.forum.accounting.model.Role;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManagerAdapter;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// AuthorizationConfiguration's rules for the reactive profile. Basic credentials go through the same
+// CachingAuthenticationProvider; the adapter runs it on a bounded elastic thread, off the event loop.
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthorizationConfiguration {
+
+    static final String ADMINISTRATOR = "ROLE_" + Role.ADMINISTRATOR.name();
+
+    @Bean
+    ReactiveAuthenticationManager reactiveAuthenticationManager(CachingAuthenticationProvider authenticationProvider) {
+        return new ReactiveAuthenticationManagerAdapter(new ProviderManager(authenticationProvider));
+    }
+
+    @Bean
+    SecurityWebFilterChain web(ServerHttpSecurity http, AccessTokenService accessTokenService) {
+        http.httpBasic(Customizer.withDefaults());
+        if (accessTokenService.isEnabled()) {
+            JwtDecoder decoder = accessTokenService.decoder();
+            http.oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt
+                    // a token version missing from the cache is read with the blocking repository
+                    .jwtDecoder(token -> Mono.fromCallable(() -> decoder.decode(token)).subscribeOn(Schedulers.boundedElastic()))
+                    .jwtAuthenticationConverter(new ReactiveJwtAuthenticationConverterAdapter(accessTokenService.authenticationConverter()))));
+        }
+        http.csrf(ServerHttpSecurity.CsrfSpec::disable);
+
+        http.authorizeExchange(authorize -> authorize
+                .pathMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                .pathMatchers("/account/register", "/forum/posts/**").permitAll()
+                .pathMatchers("/account/user/{login}/role/{role}").hasRole(Role.ADMINISTRATOR.name())
+                .pathMatchers(HttpMethod.PUT, "/account/user/{login}").access((authentication, context) -> authentication
+                        .map(auth -> new AuthorizationDecision(isOwner(auth, context.getVariables().get("login")))))
+                .pathMatchers(HttpMethod.DELETE, "/account/user/{login}").access((authentication, context) -> authentication
+                        .map(auth -> new AuthorizationDecision(isOwner(auth, context.getVariables().get("login")) || isAdministrator(auth))))
+                .anyExchange().authenticated()
+        );
+        return http.build();
+    }
+
+    static boolean isOwner(Authentication authentication, Object login) {
+        return authentication.isAuthenticated() && authentication.getName().equals(login);
+    }
+
+    static boolean isAdministrator(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(ADMINISTRATOR::equals);
+    }
+}
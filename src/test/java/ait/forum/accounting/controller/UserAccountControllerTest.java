@@ -5,6 +5,7 @@ import ait.forum.accounting.dto.UserDto;
 import ait.forum.accounting.dto.UserEditDto;
 import ait.forum.accounting.dto.UserRegisterDto;
 import ait.forum.accounting.service.UserAccountService;
+import ait.forum.security.AccessTokenService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.Optional;
 import java.util.Set;
 
 import static org.hamcrest.Matchers.hasItem;
@@ -30,6 +32,9 @@ public class UserAccountControllerTest {
     @Mock
     private UserAccountService userAccountService;
 
+    @Mock
+    private AccessTokenService accessTokenService;
+
     @InjectMocks
     private UserAccountController userAccountController;
 
@@ -64,6 +69,22 @@ public class UserAccountControllerTest {
         mockMvc.perform(post("/account/login")
                         .principal(authentication))
                 .andExpect(status().isOk())
+                .andExpect(jsonPath("$.login").value("testuser"))
+                .andExpect(header().doesNotExist("Authorization"));
+    }
+
+    @Test
+    public void testLoginIssuesToken() throws Exception {
+        UserDto userDto = new UserDto("testuser", "John", "Doe", Set.of("USER"));
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getName()).thenReturn("testuser");
+        when(userAccountService.getUser("testuser")).thenReturn(userDto);
+        when(accessTokenService.issue(authentication)).thenReturn(Optional.of("signed.token.value"));
+
+        mockMvc.perform(post("/account/login")
+                        .principal(authentication))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Authorization", "Bearer signed.token.value"))
                 .andExpect(jsonPath("$.login").value("testuser"));
     }
 
@@ -0,0 +1,125 @@
+package ait.forum.accounting.service;
+
+import ait.forum.accounting.dao.ReactiveUserAccountRepository;
+import ait.forum.accounting.dto.UserEditDto;
+import ait.forum.accounting.dto.UserRegisterDto;
+import ait.forum.accounting.dto.exceptions.UserConflictException;
+import ait.forum.accounting.dto.exceptions.UserExistsException;
+import ait.forum.accounting.dto.exceptions.UserNotFoundException;
+import ait.forum.accounting.model.Role;
+import ait.forum.accounting.model.UserAccount;
+import ait.forum.configuration.OptimisticRetry;
+import ait.forum.security.AccessTokenService;
+import ait.forum.security.AuthenticationCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveUserAccountServiceTest {
+
+    @InjectMocks
+    private ReactiveUserAccountServiceImpl userAccountService;
+
+    @Mock
+    private ReactiveUserAccountRepository userAccountRepository;
+
+    @Spy
+    private UserAccountMapper userAccountMapper = new UserAccountMapper();
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private AuthenticationCache authenticationCache;
+
+    @Mock
+    private AccessTokenService accessTokenService;
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(3, Duration.ZERO, Duration.ZERO);
+
+    private UserAccount userAccount;
+
+    @BeforeEach
+    void setUp() {
+        userAccount = new UserAccount("john", "password", "John", "Doe");
+    }
+
+    @Test
+    void register_ShouldHashPasswordOffTheCallingThread() {
+        Thread caller = Thread.currentThread();
+        when(userAccountRepository.existsById("john")).thenReturn(Mono.just(false));
+        when(passwordEncoder.encode("password")).thenAnswer(invocation -> {
+            assertNotSame(caller, Thread.currentThread());
+            return "hashed";
+        });
+        when(userAccountRepository.save(any(UserAccount.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(userAccountService.register(new UserRegisterDto("john", "password", "John", "Doe")))
+                .assertNext(user -> assertEquals("john", user.getLogin()))
+                .verifyComplete();
+        verify(userAccountRepository).save(argThat(saved -> saved.getPassword().equals("hashed")));
+    }
+
+    @Test
+    void register_ShouldMapLostRaceToUserExists() {
+        when(userAccountRepository.existsById("john")).thenReturn(Mono.just(false));
+        when(passwordEncoder.encode("password")).thenReturn("hashed");
+        when(userAccountRepository.save(any(UserAccount.class))).thenReturn(Mono.error(new DuplicateKeyException("john")));
+
+        StepVerifier.create(userAccountService.register(new UserRegisterDto("john", "password", "John", "Doe")))
+                .expectError(UserExistsException.class)
+                .verify();
+    }
+
+    @Test
+    void updateUser_ShouldSignalNotFound() {
+        when(userAccountRepository.updateNames("john", "Johnny", null)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userAccountService.updateUser("john", new UserEditDto("Johnny", null)))
+                .expectError(UserNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void changeRolesList_ShouldForgetCredentialsAfterSave() {
+        when(userAccountRepository.findById("john")).thenReturn(Mono.just(userAccount));
+        when(userAccountRepository.save(userAccount)).thenReturn(Mono.just(userAccount));
+        long tokenVersion = userAccount.getTokenVersion();
+
+        StepVerifier.create(userAccountService.changeRolesList("john", "moderator", true))
+                .assertNext(roles -> assertTrue(roles.getRoles().contains(Role.MODERATOR.name())))
+                .verifyComplete();
+        assertEquals(tokenVersion + 1, userAccount.getTokenVersion());
+        verify(authenticationCache).evict("john");
+        verify(accessTokenService).revoke("john");
+    }
+
+    @Test
+    void changeRolesList_ShouldSignalConflictWhenAttemptsAreExhausted() {
+        when(userAccountRepository.findById("john")).thenReturn(Mono.fromSupplier(() -> new UserAccount("john", "password", "John", "Doe")));
+        when(userAccountRepository.save(any(UserAccount.class))).thenReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+
+        StepVerifier.create(userAccountService.changeRolesList("john", "moderator", true))
+                .expectError(UserConflictException.class)
+                .verify();
+        verify(userAccountRepository, times(3)).save(any(UserAccount.class));
+        verifyNoInteractions(authenticationCache);
+    }
+}
@@ -0,0 +1,67 @@
+package ait.forum.accounting.service;
+
+import ait.forum.accounting.dto.RolesDto;
+import ait.forum.accounting.dto.UserDto;
+import ait.forum.accounting.dto.UserRegisterDto;
+import ait.forum.accounting.model.Role;
+import ait.forum.accounting.model.UserAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.config.Configuration.AccessLevel;
+import org.modelmapper.convention.MatchingStrategies;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// parity with the ModelMapper configuration the services used before UserAccountMapper
+class UserAccountMapperTest {
+
+    private final UserAccountMapper userAccountMapper = new UserAccountMapper();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private ModelMapper modelMapper;
+    private UserAccount userAccount;
+
+    @BeforeEach
+    void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setFieldMatchingEnabled(true)
+                .setFieldAccessLevel(AccessLevel.PRIVATE)
+                .setMatchingStrategy(MatchingStrategies.STRICT);
+        userAccount = new UserAccount("john", "hash", "John", "Doe");
+        userAccount.addRole(Role.ADMINISTRATOR.name());
+    }
+
+    @Test
+    void toUserDto_ShouldProduceSameJsonAsModelMapper() throws Exception {
+        assertSameJson(modelMapper.map(userAccount, UserDto.class), userAccountMapper.toUserDto(userAccount));
+    }
+
+    @Test
+    void toRolesDto_ShouldProduceSameJsonAsModelMapper() throws Exception {
+        assertSameJson(modelMapper.map(userAccount, RolesDto.class), userAccountMapper.toRolesDto(userAccount));
+    }
+
+    @Test
+    void toUserAccount_ShouldMatchModelMapper() {
+        UserRegisterDto userRegisterDto = new UserRegisterDto("john", "secret", "John", "Doe");
+        UserAccount expected = modelMapper.map(userRegisterDto, UserAccount.class);
+
+        UserAccount actual = userAccountMapper.toUserAccount(userRegisterDto);
+
+        assertEquals(expected.getLogin(), actual.getLogin());
+        assertEquals(expected.getPassword(), actual.getPassword());
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getRoles(), actual.getRoles());
+    }
+
+    void assertSameJson(Object expected, Object actual) throws Exception {
+        JSONAssert.assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual),
+                JSONCompareMode.NON_EXTENSIBLE);
+    }
+}
@@ -4,18 +4,26 @@ import ait.forum.accounting.dao.UserAccountRepository;
 import ait.forum.accounting.dto.UserDto;
 import ait.forum.accounting.dto.UserEditDto;
 import ait.forum.accounting.dto.UserRegisterDto;
+import ait.forum.accounting.dto.exceptions.UserConflictException;
 import ait.forum.accounting.dto.exceptions.UserExistsException;
 import ait.forum.accounting.dto.exceptions.UserNotFoundException;
+import ait.forum.accounting.model.Role;
 import ait.forum.accounting.model.UserAccount;
+import ait.forum.configuration.OptimisticRetry;
+import ait.forum.security.AccessTokenService;
+import ait.forum.security.AuthenticationCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.modelmapper.ModelMapper;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.Set;
 
@@ -32,12 +40,21 @@ class UserAccountServiceTest {
     @Mock
     private UserAccountRepository userAccountRepository;
 
-    @Mock
-    private ModelMapper modelMapper;
+    @Spy
+    private UserAccountMapper userAccountMapper = new UserAccountMapper();
 
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private AuthenticationCache authenticationCache;
+
+    @Mock
+    private AccessTokenService accessTokenService;
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(3, Duration.ZERO, Duration.ZERO);
+
     private UserAccount userAccount;
     private UserDto userDto;
     private UserRegisterDto userRegisterDto;
@@ -53,8 +70,6 @@ class UserAccountServiceTest {
     void testRegister_Success() {
         when(userAccountRepository.existsById(any())).thenReturn(false);
         when(passwordEncoder.encode(any())).thenReturn("encodedPassword");
-        when(modelMapper.map(any(UserRegisterDto.class), eq(UserAccount.class))).thenReturn(userAccount);
-        when(modelMapper.map(any(UserAccount.class), eq(UserDto.class))).thenReturn(userDto);
         when(userAccountRepository.save(any())).thenReturn(userAccount);
 
         UserDto result = userAccountService.register(userRegisterDto);
@@ -73,7 +88,6 @@ class UserAccountServiceTest {
     @Test
     void testGetUser_Success() {
         when(userAccountRepository.findById(any())).thenReturn(Optional.of(userAccount));
-        when(modelMapper.map(any(UserAccount.class), eq(UserDto.class))).thenReturn(userDto);
 
         UserDto result = userAccountService.getUser("testUser");
 
@@ -90,24 +104,35 @@ class UserAccountServiceTest {
     @Test
     void testRemoveUser_Success() {
         when(userAccountRepository.findById(any())).thenReturn(Optional.of(userAccount));
-        when(modelMapper.map(any(UserAccount.class), eq(UserDto.class))).thenReturn(userDto);
 
         UserDto result = userAccountService.removeUser("testUser");
 
         assertNotNull(result);
         verify(userAccountRepository, times(1)).delete(any());
+        verify(authenticationCache).evict("testUser");
+        verify(accessTokenService).revoke("testUser");
     }
 
     @Test
     void testUpdateUser_Success() {
-        UserEditDto userEditDto = new UserEditDto("Jane", "Doe");
-        when(userAccountRepository.findById(any())).thenReturn(Optional.of(userAccount));
-        when(modelMapper.map(any(UserAccount.class), eq(UserDto.class))).thenReturn(userDto);
+        UserEditDto userEditDto = new UserEditDto("Jane", null);
+        when(userAccountRepository.updateNames("testUser", "Jane", null))
+                .thenReturn(Optional.of(new UserAccount("testUser", null, "Jane", "Doe")));
 
         UserDto result = userAccountService.updateUser("testUser", userEditDto);
 
-        assertNotNull(result);
-        verify(userAccountRepository, times(1)).save(any());
+        assertEquals("Jane", result.getFirstName());
+        assertEquals("Doe", result.getLastName());
+        verify(userAccountRepository, never()).findById(any());
+        verify(userAccountRepository, never()).save(any());
+    }
+
+    @Test
+    void testUpdateUser_NotFound() {
+        when(userAccountRepository.updateNames(any(), any(), any())).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class,
+                () -> userAccountService.updateUser("testUser", new UserEditDto("Jane", "Doe")));
     }
 
     @Test
@@ -115,9 +140,63 @@ class UserAccountServiceTest {
         when(userAccountRepository.findById(any())).thenReturn(Optional.of(userAccount));
         when(passwordEncoder.encode(any())).thenReturn("newEncodedPassword");
 
+        long tokenVersion = userAccount.getTokenVersion();
+
         userAccountService.changePassword("testUser", "newPassword");
 
         verify(userAccountRepository, times(1)).save(any());
+        assertEquals(tokenVersion + 1, userAccount.getTokenVersion());
+        verify(authenticationCache).evict("testUser");
+        verify(accessTokenService).revoke("testUser");
     }
-}
 
+    @Test
+    void testChangeRolesList_ShouldEvictCachedAuthentication() {
+        when(userAccountRepository.findById(any())).thenReturn(Optional.of(userAccount));
+
+        long tokenVersion = userAccount.getTokenVersion();
+
+        userAccountService.changeRolesList("testUser", "moderator", true);
+
+        verify(userAccountRepository, times(1)).save(any());
+        assertEquals(tokenVersion + 1, userAccount.getTokenVersion());
+        verify(authenticationCache).evict("testUser");
+        verify(accessTokenService).revoke("testUser");
+    }
+
+    @Test
+    void testChangeRolesList_ShouldRetryOnVersionConflict() {
+        when(userAccountRepository.findById(any()))
+                .thenReturn(Optional.of(new UserAccount("testUser", "password", "John", "Doe")))
+                .thenReturn(Optional.of(userAccount));
+        when(userAccountRepository.save(any()))
+                .thenThrow(new OptimisticLockingFailureException("stale"))
+                .thenAnswer(i -> i.getArgument(0));
+
+        userAccountService.changeRolesList("testUser", "moderator", true);
+
+        verify(userAccountRepository, times(2)).findById("testUser");
+        assertTrue(userAccount.getRoles().contains(Role.MODERATOR));
+        verify(authenticationCache, times(1)).evict("testUser");
+    }
+
+    @Test
+    void testChangePassword_ShouldReportConflictWhenRetriesAreExhausted() {
+        when(userAccountRepository.findById(any())).thenReturn(Optional.of(userAccount));
+        when(userAccountRepository.save(any())).thenThrow(new OptimisticLockingFailureException("stale"));
+
+        assertThrows(UserConflictException.class,
+                () -> userAccountService.changePassword("testUser", "newPassword"));
+        verify(userAccountRepository, times(3)).save(any());
+    }
+
+    @Test
+    void testRegister_ShouldReportExistingUserWhenInsertRaces() {
+        when(userAccountRepository.existsById("testUser")).thenReturn(false);
+        when(passwordEncoder.encode(any())).thenReturn("encoded");
+        when(userAccountRepository.save(any())).thenThrow(new DuplicateKeyException("duplicate"));
+
+        assertThrows(UserExistsException.class,
+                () -> userAccountService.register(new UserRegisterDto("testUser", "password", "John", "Doe")));
+    }
+}
@@ -0,0 +1,228 @@
+package ait.forum.configuration;
+
+import ait.forum.accounting.dao.UserAccountRepository;
+import ait.forum.accounting.dto.UserEditDto;
+import ait.forum.accounting.model.Role;
+import ait.forum.accounting.model.UserAccount;
+import ait.forum.accounting.service.UserAccountMapper;
+import ait.forum.accounting.service.UserAccountServiceImpl;
+import ait.forum.post.dao.CommentRepository;
+import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dao.PostStatsRepository;
+import ait.forum.post.dao.TrendingSnapshotRepository;
+import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.exceptions.PostNotFoundException;
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import ait.forum.post.service.LikeAggregator;
+import ait.forum.post.service.PostCache;
+import ait.forum.post.service.PostMapper;
+import ait.forum.post.service.PostServiceImpl;
+import ait.forum.post.service.PostStatistics;
+import ait.forum.post.service.TagIndex;
+import ait.forum.post.service.TrendingPosts;
+import ait.forum.security.AccessTokenService;
+import ait.forum.security.AuthenticationCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against the in-memory MongoDB of TestMongo, or the server in MONGODB_URI when it is set
+@Slf4j
+@DataMongoTest
+class OptimisticConcurrencyIntegrationTest {
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        TestMongo.register(registry);
+    }
+
+    static final int THREADS = 8;
+    static final int UPDATES_PER_THREAD = 25;
+
+    @Autowired
+    PostRepository postRepository;
+
+    @Autowired
+    CommentRepository commentRepository;
+
+    @Autowired
+    TrendingSnapshotRepository trendingSnapshotRepository;
+
+    @Autowired
+    PostStatsRepository postStatsRepository;
+
+    @Autowired
+    UserAccountRepository userAccountRepository;
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    PostServiceImpl postService;
+    UserAccountServiceImpl userAccountService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // generous attempts: this test is about lost updates, exhaustion is covered by the unit tests
+        OptimisticRetry optimisticRetry = new OptimisticRetry(100, Duration.ofMillis(1), Duration.ofMillis(20));
+        postService = new PostServiceImpl(postRepository, commentRepository, new PostMapper(),
+                new DefaultListableBeanFactory().getBeanProvider(LikeAggregator.class), PostCache.NONE,
+                Jackson2ObjectMapperBuilder.json().build(),
+                new TagIndex(postRepository, new SimpleMeterRegistry(), Duration.ofMinutes(10)),
+                new TrendingPosts(postRepository, trendingSnapshotRepository, new PostMapper(), new SimpleMeterRegistry()),
+                new PostStatistics(postRepository, postStatsRepository, new SimpleMeterRegistry()));
+        userAccountService = new UserAccountServiceImpl(userAccountRepository, new UserAccountMapper(),
+                new BCryptPasswordEncoder(4), new AuthenticationCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100),
+                new AccessTokenService(userAccountRepository, false, "", Duration.ofMinutes(1), Duration.ZERO, 100), optimisticRetry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(Post.class);
+        mongoTemplate.dropCollection(Comment.class);
+        mongoTemplate.dropCollection(UserAccount.class);
+    }
+
+    @Test
+    void concurrentTagUpdatesAndLikes_ShouldAllSurviveOnHotPost() throws Exception {
+        Post post = postRepository.save(new Post("hot", "content", new HashSet<>(), "author"));
+
+        long elapsed = hammer(i -> {
+            postService.updatePost(post.getId(), new NewPostDto(null, null, Set.of("tag" + i)));
+            postService.addLike(post.getId());
+        });
+
+        Post stored = postRepository.findById(post.getId()).orElseThrow();
+        log.info("one hot post: {} updates and likes in {} ms", THREADS * UPDATES_PER_THREAD, elapsed);
+        assertEquals(THREADS * UPDATES_PER_THREAD, stored.getTags().size());
+        assertEquals(THREADS * UPDATES_PER_THREAD, stored.getLikes());
+    }
+
+    // same amount of work spread over one post per thread: no version conflicts, so it scales with cores
+    @Test
+    void concurrentUpdates_ShouldNotConflictAcrossDifferentPosts() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            ids.add(postRepository.save(new Post("post" + t, "content", new HashSet<>(), "author")).getId());
+        }
+
+        long elapsed = hammer(i -> {
+            String id = ids.get(i / UPDATES_PER_THREAD);
+            postService.updatePost(id, new NewPostDto(null, null, Set.of("tag" + i)));
+            postService.addLike(id);
+        });
+
+        log.info("one post per thread: {} updates and likes in {} ms", THREADS * UPDATES_PER_THREAD, elapsed);
+        for (String id : ids) {
+            Post stored = postRepository.findById(id).orElseThrow();
+            assertEquals(UPDATES_PER_THREAD, stored.getTags().size());
+            assertEquals(UPDATES_PER_THREAD, stored.getLikes());
+        }
+    }
+
+    // every like bumps the version, so a removal that compared versions would keep losing to the likes on a hot post
+    @Test
+    void removePost_ShouldNotConflictWithLikesChangingTheVersion() throws Exception {
+        Post post = postRepository.save(new Post("hot", "content", new HashSet<>(), "author"));
+        postService.addLike(post.getId());
+        assertNotEquals(post.getVersion(), postRepository.findById(post.getId()).orElseThrow().getVersion());
+        AtomicReference<PostDto> removed = new AtomicReference<>();
+
+        hammer(i -> {
+            if (i == UPDATES_PER_THREAD / 2) {
+                removed.set(postService.removePost(post.getId()));
+                return;
+            }
+            try {
+                postService.addLike(post.getId());
+            } catch (PostNotFoundException e) {
+                // liked after the removal
+            }
+        });
+
+        assertNotNull(removed.get());
+        assertTrue(removed.get().getLikes() >= 1);
+        assertFalse(postRepository.existsById(post.getId()));
+    }
+
+    @Test
+    void concurrentProfileAndRoleChanges_ShouldAllSurvive() throws Exception {
+        userAccountRepository.save(new UserAccount("john", "password", "John", "Doe"));
+
+        hammer(i -> {
+            if (i % 2 == 0) {
+                userAccountService.updateUser("john", new UserEditDto("John" + i, null));
+            } else {
+                userAccountService.changeRolesList("john", i % 4 == 1 ? "moderator" : "administrator", true);
+            }
+        });
+
+        UserAccount stored = userAccountRepository.findById("john").orElseThrow();
+        assertEquals(Set.of(Role.USER, Role.MODERATOR, Role.ADMINISTRATOR), stored.getRoles());
+        assertTrue(stored.getFirstName().startsWith("John"));
+    }
+
+    @Test
+    void versionBackfill_ShouldLetLegacyDocumentsBeSavedAgain() {
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", "legacy")
+                .append("password", "password")
+                .append("roles", List.of("USER")));
+
+        new VersionBackfill(mongoTemplate).afterSingletonsInstantiated();
+        userAccountService.updateUser("legacy", new UserEditDto("Legacy", null));
+
+        UserAccount stored = userAccountRepository.findById("legacy").orElseThrow();
+        assertEquals("Legacy", stored.getFirstName());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    // runs THREADS workers at once, worker t doing operations t * UPDATES_PER_THREAD .. (t + 1) * UPDATES_PER_THREAD - 1
+    long hammer(IntConsumer operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int first = t * UPDATES_PER_THREAD;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = first; i < first + UPDATES_PER_THREAD; i++) {
+                    operation.accept(i);
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        return Math.max((System.nanoTime() - begin) / 1_000_000, 1);
+    }
+}
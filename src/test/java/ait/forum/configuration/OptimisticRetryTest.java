@@ -0,0 +1,113 @@
+package ait.forum.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+
+    private final OptimisticRetry optimisticRetry = new OptimisticRetry(3, Duration.ofMillis(1), Duration.ofMillis(2));
+
+    @Test
+    void run_ShouldRetryUntilSaveWins() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticRetry.run(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("stale");
+            }
+            return "saved";
+        }, IllegalStateException::new);
+
+        assertEquals("saved", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void run_ShouldThrowConflictWhenAttemptsAreExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> optimisticRetry.run(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale");
+        }, IllegalStateException::new));
+
+        assertEquals(3, attempts.get());
+        assertInstanceOf(OptimisticLockingFailureException.class, e.getCause());
+    }
+
+    @Test
+    void run_ShouldNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalArgumentException.class, () -> optimisticRetry.run(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException();
+        }, IllegalStateException::new));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void runMono_ShouldResubscribeUntilSaveWins() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> save = Mono.fromCallable(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("stale");
+            }
+            return "saved";
+        });
+
+        StepVerifier.create(optimisticRetry.run(save, IllegalStateException::new))
+                .expectNext("saved")
+                .verifyComplete();
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void runMono_ShouldSignalConflictWhenAttemptsAreExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> save = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new OptimisticLockingFailureException("stale"));
+        });
+
+        StepVerifier.create(optimisticRetry.run(save, IllegalStateException::new))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(IllegalStateException.class, e);
+                    assertInstanceOf(OptimisticLockingFailureException.class, e.getCause());
+                })
+                .verify();
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void runMono_ShouldNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> save = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new IllegalArgumentException());
+        });
+
+        StepVerifier.create(optimisticRetry.run(save, IllegalStateException::new))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void backoff_ShouldStayWithinMaxBackoff() {
+        long begin = System.nanoTime();
+        for (int attempt = 1; attempt <= 40; attempt++) {
+            assertTrue(optimisticRetry.backoff(attempt));
+        }
+
+        assertTrue(System.nanoTime() - begin < Duration.ofSeconds(1).toNanos());
+    }
+}
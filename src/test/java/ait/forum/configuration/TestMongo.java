@@ -0,0 +1,37 @@
+package ait.forum.configuration;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.net.InetSocketAddress;
+
+// The MongoDB the @DataMongoTest integration tests run against: the server in MONGODB_URI when it is set, otherwise an
+// in-memory mongo-java-server started once for the whole test run. That server has no explain, text search or
+// collations, so tests of those stay marked to run only against MONGODB_URI.
+public final class TestMongo {
+
+    static String uri;
+
+    private TestMongo() {
+    }
+
+    public static void register(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", TestMongo::uri);
+    }
+
+    public static synchronized String uri() {
+        if (uri == null) {
+            String external = System.getenv("MONGODB_URI");
+            if (external != null && !external.isBlank()) {
+                uri = external;
+            } else {
+                MongoServer server = new MongoServer(new MemoryBackend());
+                InetSocketAddress address = server.bind();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::shutdownNow));
+                uri = "mongodb://" + address.getHostString() + ":" + address.getPort() + "/forum_test";
+            }
+        }
+        return uri;
+    }
+}
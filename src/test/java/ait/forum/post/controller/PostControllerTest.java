@@ -1,24 +1,50 @@
 package ait.forum.post.controller;
 
+import ait.forum.post.dto.AuthorStatsDto;
+import ait.forum.post.dto.BulkErrorDto;
+import ait.forum.post.dto.BulkOperationResultDto;
+import ait.forum.post.dto.BulkResultDto;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.PageDto;
 import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
 import ait.forum.post.dto.NewPostDto;
 import ait.forum.post.dto.NewCommentDto;
 import ait.forum.post.dto.DatePeriodDto;
+import ait.forum.post.dto.DailyStatsDto;
+import ait.forum.post.dto.exceptions.InvalidTagQueryException;
 import ait.forum.post.service.PostService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,6 +56,9 @@ class PostControllerTest {
     @Mock
     private PostService postService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private PostController postController;
 
@@ -51,16 +80,111 @@ class PostControllerTest {
                 .andExpect(jsonPath("$.title").value("Test Title"));
     }
 
+    @Test
+    void testImportPosts() throws Exception {
+        when(postService.importPosts(any()))
+                .thenReturn(new BulkResultDto(2, 1, 1, List.of(new BulkErrorDto(1, "Author and title are required"))));
+
+        mockMvc.perform(post("/forum/bulk/posts")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"author\":\"a\",\"title\":\"t\"}\n{\"title\":\"t\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1));
+    }
+
+    @Test
+    void testApplyOperations() throws Exception {
+        when(postService.applyOperations(any())).thenReturn(List.of(
+                new BulkOperationResultDto(0, "1", BulkOperationResultDto.Status.APPLIED, null),
+                new BulkOperationResultDto(1, "2", BulkOperationResultDto.Status.NOT_FOUND, null)));
+
+        mockMvc.perform(post("/forum/bulk/operations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"type\":\"LIKE\",\"postId\":\"1\"},{\"type\":\"ADD_TAGS\",\"postId\":\"2\",\"tags\":[\"java\"]}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void testSearchPosts() throws Exception {
+        when(postService.searchPosts("virtual threads", true, null, null))
+                .thenReturn(new PageDto<>(List.of(summary("1", "Virtual threads")), "next"));
+
+        mockMvc.perform(get("/forum/posts/search").param("q", "virtual threads").param("comments", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$[0].title").value("Virtual threads"));
+    }
+
+    @Test
+    void testFindTags() throws Exception {
+        when(postService.findPopularTags(5)).thenReturn(List.of(new TagCountDto("java", 3), new TagCountDto("spring", 1)));
+        when(postService.findTagsByPrefix("sp", null)).thenReturn(List.of(new TagCountDto("spring", 1)));
+
+        mockMvc.perform(get("/forum/posts/tags/top").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].tag").value("java"))
+                .andExpect(jsonPath("$[0].count").value(3));
+        mockMvc.perform(get("/forum/posts/tags").param("prefix", "sp"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].tag").value("spring"));
+    }
+
+    @Test
+    void testFindTrendingPosts() throws Exception {
+        when(postService.findTrendingPosts(10)).thenReturn(List.of(new PostSummaryDto("1", "Hot", "author", LocalDateTime.now(),
+                Set.of("java"), 12, 4)));
+
+        mockMvc.perform(get("/forum/posts/trending").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("1"))
+                .andExpect(jsonPath("$[0].likes").value(12));
+    }
+
+    @Test
+    void testFindStats() throws Exception {
+        when(postService.findAuthorStats("alice")).thenReturn(new AuthorStatsDto("alice", 3, 7, 2));
+        when(postService.findDailyStats(any(DatePeriodDto.class))).thenReturn(List.of(new DailyStatsDto(LocalDate.of(2024, 3, 1), 3, 7, 2)));
+
+        mockMvc.perform(get("/forum/posts/stats/author/alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posts").value(3))
+                .andExpect(jsonPath("$.likes").value(7));
+        mockMvc.perform(post("/forum/posts/stats/period").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"dateFrom\":\"2024-03-01\",\"dateTo\":\"2024-04-01\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].posts").value(3))
+                .andExpect(jsonPath("$[0].comments").value(2));
+    }
+
     @Test
     void testFindPostById() throws Exception {
-        PostDto postDto = new PostDto("1", "Test Title", "Test Content", "testUser");
-        when(postService.findPostById(anyString())).thenReturn(postDto);
+        when(postService.findPostJson("1")).thenReturn(postJson());
 
         mockMvc.perform(get("/forum/post/1"))
                 .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "\"v1\""))
                 .andExpect(jsonPath("$.title").value("Test Title"));
     }
 
+    @Test
+    void testFindPostByIdNotModified() throws Exception {
+        when(postService.findPostJson("1")).thenReturn(postJson());
+
+        mockMvc.perform(get("/forum/post/1").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/forum/post/1").header("If-None-Match", "\"v0\""))
+                .andExpect(status().isOk());
+    }
+
+    PostJson postJson() {
+        return new PostJson("{\"id\":\"1\",\"title\":\"Test Title\"}".getBytes(StandardCharsets.UTF_8), "v1");
+    }
+
     @Test
     void testRemovePost() throws Exception {
         PostDto postDto = new PostDto("1", "Test Title", "Test Content", "testUser");
@@ -94,6 +218,17 @@ class PostControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testFindComments() throws Exception {
+        PageDto<CommentDto> page = new PageDto<>(List.of(new CommentDto("testUser", "Hello", null, 0)), "next");
+        when(postService.findComments(eq("1"), isNull(), eq(1))).thenReturn(page);
+
+        mockMvc.perform(get("/forum/post/1/comments").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$[0].message").value("Hello"));
+    }
+
     @Test
     void testAddLike() throws Exception {
         mockMvc.perform(put("/forum/post/1/like"))
@@ -103,34 +238,144 @@ class PostControllerTest {
     @Test
     void testFindPostsByAuthor() throws Exception {
         List<PostDto> posts = List.of(new PostDto("1", "Test Title", "Test Content", "testUser"));
-        when(postService.findPostsByAuthor(anyString())).thenReturn(posts);
+        when(postService.findPostsByAuthor(anyString(), isNull(), eq(1))).thenReturn(new PageDto<>(posts, "next"));
 
-        mockMvc.perform(get("/forum/posts/author/testUser"))
+        mockMvc.perform(get("/forum/posts/author/testUser").param("limit", "1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
                 .andExpect(jsonPath("$[0].title").value("Test Title"));
     }
 
+    @Test
+    void testFindAllPostsByAuthorWithoutPaging() throws Exception {
+        when(postService.streamPostsByAuthor("testUser")).thenReturn(Stream.of(
+                new PostDto("1", "First", "Content", "testUser"),
+                new PostDto("2", "Second", "Content", "testUser")));
+
+        MvcResult result = mockMvc.perform(get("/forum/posts/author/testUser"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].title").value("Second"));
+        verify(postService, never()).findPostsByAuthor(anyString(), any(), any());
+    }
+
+    @Test
+    void testStreamPostsByAuthor() throws Exception {
+        when(postService.streamPostsByAuthor("testUser")).thenReturn(Stream.of(
+                new PostDto("1", "First", "Content", "testUser"),
+                new PostDto("2", "Second", "Content", "testUser")));
+
+        MvcResult result = mockMvc.perform(get("/forum/posts/author/testUser").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].contains("\"title\":\"Second\""));
+    }
+
+    @Test
+    void testFindPostSummariesByAuthor() throws Exception {
+        List<PostSummaryDto> posts = List.of(summary("1", "Test Title"));
+        when(postService.findPostSummariesByAuthor(anyString(), eq("c1"), isNull())).thenReturn(new PageDto<>(posts, "next"));
+
+        mockMvc.perform(get("/forum/posts/author/testUser").param("view", "summary").param("cursor", "c1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$[0].title").value("Test Title"))
+                .andExpect(jsonPath("$[0].content").doesNotExist());
+    }
+
+    @Test
+    void testStreamPostSummariesByTags() throws Exception {
+        when(postService.streamPostSummariesByTags(Set.of("java"), null)).thenReturn(Stream.of(summary("1", "First"), summary("2", "Second")));
+
+        MvcResult result = mockMvc.perform(post("/forum/posts/tags").param("view", "summary")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"java\"]")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertFalse(lines[0].contains("content"));
+    }
+
+    @Test
+    void testFindPostSummariesByPeriod() throws Exception {
+        when(postService.findPostSummariesByPeriod(any(DatePeriodDto.class), isNull(), eq(5)))
+                .thenReturn(new PageDto<>(List.of(summary("1", "Test Title")), null));
+
+        mockMvc.perform(post("/forum/posts/period").param("view", "summary").param("limit", "5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"dateFrom\":\"2023-01-01\",\"dateTo\":\"2023-12-31\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].commentsCount").value(0));
+    }
+
     @Test
     void testFindPostsByTags() throws Exception {
         List<PostDto> posts = List.of(new PostDto("1", "Test Title", "Test Content", "testUser"));
-        when(postService.findPostsByTags(any(Set.class))).thenReturn(posts);
+        when(postService.findPostsByTags(anySet(), isNull(), isNull(), eq(20))).thenReturn(new PageDto<>(posts, null));
+        when(postService.findPostsByTags(anySet(), eq("all"), isNull(), eq(20))).thenReturn(new PageDto<>(List.of(), null));
 
-        mockMvc.perform(post("/forum/posts/tags")
+        mockMvc.perform(post("/forum/posts/tags").param("limit", "20")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("[\"java\",\"spring\"]"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].title").value("Test Title"));
+        mockMvc.perform(post("/forum/posts/tags").param("match", "all").param("limit", "20")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"java\",\"spring\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void testFindAllPostsByTagsRejectsBadMatchBeforeWriting() throws Exception {
+        when(postService.streamPostsByTags(anySet(), eq("some"))).thenThrow(new InvalidTagQueryException());
+
+        MvcResult result = mockMvc.perform(post("/forum/posts/tags").param("match", "some")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"java\"]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
     void testFindPostsByPeriod() throws Exception {
-        List<PostDto> posts = List.of(new PostDto("1", "Test Title", "Test Content", "testUser"));
-        when(postService.findPostsByPeriod(any(DatePeriodDto.class))).thenReturn(posts);
+        when(postService.streamPostsByPeriod(any(DatePeriodDto.class)))
+                .thenReturn(Stream.of(new PostDto("1", "Test Title", "Test Content", "testUser")));
 
-        mockMvc.perform(post("/forum/posts/period")
+        MvcResult result = mockMvc.perform(post("/forum/posts/period")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"dateFrom\":\"2023-01-01\",\"dateTo\":\"2023-12-31\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].title").value("Test Title"));
     }
-}
\ No newline at end of file
+
+    static PostSummaryDto summary(String id, String title) {
+        return new PostSummaryDto(id, title, "testUser", LocalDateTime.now(), Set.of("java"), 0, 0);
+    }
+}
@@ -0,0 +1,242 @@
+package ait.forum.post.controller;
+
+import ait.forum.post.dto.AuthorStatsDto;
+import ait.forum.post.dto.DailyStatsDto;
+import ait.forum.post.dto.DatePeriodDto;
+import ait.forum.post.dto.PageDto;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
+import ait.forum.post.dto.exceptions.InvalidSearchException;
+import ait.forum.post.dto.exceptions.InvalidTagQueryException;
+import ait.forum.post.dto.exceptions.PostNotFoundException;
+import ait.forum.post.service.ReactivePostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+class ReactivePostControllerTest {
+
+    private WebTestClient webTestClient;
+
+    @Mock
+    private ReactivePostService postService;
+
+    @InjectMocks
+    private ReactivePostController postController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        webTestClient = WebTestClient.bindToController(postController).build();
+    }
+
+    @Test
+    void testFindPostById() {
+        when(postService.findPostJson("1")).thenReturn(Mono.just(postJson()));
+
+        webTestClient.get().uri("/forum/post/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().valueEquals("ETag", "\"v1\"")
+                .expectBody().jsonPath("$.title").isEqualTo("Test Title");
+    }
+
+    @Test
+    void testFindPostByIdNotModified() {
+        when(postService.findPostJson("1")).thenReturn(Mono.just(postJson()));
+
+        webTestClient.get().uri("/forum/post/1")
+                .header("If-None-Match", "\"v1\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void testFindPostByIdNotFound() {
+        when(postService.findPostJson("1")).thenReturn(Mono.error(new PostNotFoundException()));
+
+        webTestClient.get().uri("/forum/post/1")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testAddLike() {
+        when(postService.addLike("1")).thenReturn(Mono.empty());
+
+        webTestClient.put().uri("/forum/post/1/like")
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void testFindPostsByAuthor() {
+        when(postService.findPostsByAuthor(eq("testUser"), isNull(), eq(1)))
+                .thenReturn(Mono.just(new PageDto<>(List.of(new PostDto("1", "Test Title", "Test Content", "testUser")), "next")));
+
+        webTestClient.get().uri("/forum/posts/author/testUser?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", "next")
+                .expectBody().jsonPath("$[0].title").isEqualTo("Test Title");
+    }
+
+    @Test
+    void testFindAllPostsByAuthorWithoutPaging() {
+        when(postService.streamPostsByAuthor("testUser")).thenReturn(Flux.just(
+                new PostDto("1", "First", "Content", "testUser"),
+                new PostDto("2", "Second", "Content", "testUser")));
+
+        webTestClient.get().uri("/forum/posts/author/testUser")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBody().jsonPath("$.length()").isEqualTo(2).jsonPath("$[1].title").isEqualTo("Second");
+    }
+
+    @Test
+    void testStreamPostsByAuthor() {
+        when(postService.streamPostsByAuthor("testUser")).thenReturn(Flux.just(
+                new PostDto("1", "First", "Content", "testUser"),
+                new PostDto("2", "Second", "Content", "testUser")));
+
+        Flux<PostDto> body = webTestClient.get().uri("/forum/posts/author/testUser")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(PostDto.class)
+                .getResponseBody();
+
+        StepVerifier.create(body)
+                .expectNextMatches(post -> post.getTitle().equals("First"))
+                .expectNextMatches(post -> post.getTitle().equals("Second"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindPostsByTagsPassesMatch() {
+        when(postService.findPostsByTags(eq(Set.of("java")), eq("all"), isNull(), eq(20)))
+                .thenReturn(Mono.just(new PageDto<>(List.of(new PostDto("1", "Test Title", "Test Content", "testUser")), null)));
+        when(postService.streamPostsByTags(Set.of("java"), "some")).thenReturn(Flux.error(new InvalidTagQueryException()));
+
+        webTestClient.post().uri("/forum/posts/tags?match=all&limit=20")
+                .bodyValue(Set.of("java"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].id").isEqualTo("1");
+        webTestClient.post().uri("/forum/posts/tags?match=some")
+                .bodyValue(Set.of("java"))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testStreamPostSummariesByTags() {
+        when(postService.streamPostSummariesByTags(Set.of("java"), null)).thenReturn(Flux.just(summary("1", "First"), summary("2", "Second")));
+
+        Flux<PostSummaryDto> body = webTestClient.post().uri("/forum/posts/tags?view=summary")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(Set.of("java"))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(PostSummaryDto.class)
+                .getResponseBody();
+
+        StepVerifier.create(body)
+                .expectNextMatches(post -> post.getId().equals("1"))
+                .expectNextMatches(post -> post.getId().equals("2"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testSearchPosts() {
+        when(postService.searchPosts(eq("java"), eq(true), isNull(), eq(1)))
+                .thenReturn(Mono.just(new PageDto<>(List.of(summary("1", "Test Title")), "next")));
+        when(postService.searchPosts(eq(" "), eq(false), isNull(), isNull())).thenReturn(Mono.error(new InvalidSearchException()));
+
+        webTestClient.get().uri("/forum/posts/search?q=java&comments=true&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", "next")
+                .expectBody().jsonPath("$[0].id").isEqualTo("1");
+        webTestClient.get().uri("/forum/posts/search?q= ")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testFindTags() {
+        when(postService.findPopularTags(5)).thenReturn(Mono.just(List.of(new TagCountDto("java", 3))));
+        when(postService.findTagsByPrefix("sp", null)).thenReturn(Mono.just(List.of(new TagCountDto("spring", 2))));
+
+        webTestClient.get().uri("/forum/posts/tags/top?limit=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].tag").isEqualTo("java").jsonPath("$[0].count").isEqualTo(3);
+        webTestClient.get().uri("/forum/posts/tags?prefix=sp")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].tag").isEqualTo("spring");
+    }
+
+    @Test
+    void testFindTrendingPosts() {
+        when(postService.findTrendingPosts(2)).thenReturn(Mono.just(List.of(summary("1", "Hot"), summary("2", "Warm"))));
+
+        webTestClient.get().uri("/forum/posts/trending?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].title").isEqualTo("Hot").jsonPath("$[1].id").isEqualTo("2");
+    }
+
+    @Test
+    void testFindStats() {
+        when(postService.findAuthorStats("testUser")).thenReturn(Mono.just(new AuthorStatsDto("testUser", 3, 5, 1)));
+        when(postService.findDailyStats(any(DatePeriodDto.class)))
+                .thenReturn(Mono.just(List.of(new DailyStatsDto(LocalDate.of(2024, 3, 1), 4, 10, 2))));
+
+        webTestClient.get().uri("/forum/posts/stats/author/testUser")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.posts").isEqualTo(3);
+        webTestClient.post().uri("/forum/posts/stats/period")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"dateFrom\":\"2024-03-01\",\"dateTo\":\"2024-03-08\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].likes").isEqualTo(10);
+    }
+
+    PostJson postJson() {
+        return new PostJson("{\"id\":\"1\",\"title\":\"Test Title\"}".getBytes(StandardCharsets.UTF_8), "v1");
+    }
+
+    static PostSummaryDto summary(String id, String title) {
+        return new PostSummaryDto(id, title, "testUser", LocalDateTime.now(), Set.of("java"), 0, 0);
+    }
+}
@@ -0,0 +1,182 @@
+package ait.forum.post.dao;
+
+import ait.forum.configuration.TestMongo;
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Index bootstrap and case-insensitive matching run against the in-memory MongoDB of TestMongo. The explain and text
+// search tests need a real server: MONGODB_URI=mongodb://localhost:27017/forum_test mvn test -Dtest=IndexExplainIntegrationTest
+@DataMongoTest
+class IndexExplainIntegrationTest {
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        TestMongo.register(registry);
+    }
+
+    static final Collation IGNORE_CASE = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    PostRepositoryCustomImpl postRepository;
+
+    @BeforeEach
+    void setUp() {
+        new IndexBootstrap(mongoTemplate).run(null);
+        postRepository = new PostRepositoryCustomImpl(mongoTemplate);
+        for (int i = 0; i < 200; i++) {
+            mongoTemplate.save(new Post("title" + i, "content", Set.of("tag" + i % 10), "author" + i % 20));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(Post.class);
+        mongoTemplate.dropCollection(Comment.class);
+    }
+
+    @Test
+    void run_ShouldDropOnlyTheLegacyCollatedIndexes() {
+        IndexOperations posts = mongoTemplate.indexOps(Post.class);
+        posts.ensureIndex(new Index().on("author", Sort.Direction.ASC).named("author_dateCreated_id").collation(IGNORE_CASE));
+        posts.ensureIndex(new Index().on("title", Sort.Direction.ASC).named("title_ci").collation(IGNORE_CASE));
+
+        new IndexBootstrap(mongoTemplate).run(null);
+
+        Set<String> names = posts.getIndexInfo().stream().map(IndexInfo::getName).collect(Collectors.toSet());
+        assertFalse(names.contains("author_dateCreated_id"));
+        assertTrue(names.contains("title_ci"));
+        assertTrue(names.contains("authorNormalized_dateCreated_id"));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+    void findPageByAuthor_ShouldUseAuthorIndex() {
+        Query query = PostRepositoryCustomImpl.pageQuery(PostRepositoryCustomImpl.byAuthor("AUTHOR3"), null, 20);
+
+        assertIndexScan(query, "authorNormalized_dateCreated_id");
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+    void findPageByTags_ShouldUseTagsIndex() {
+        Query query = PostRepositoryCustomImpl.pageQuery(PostRepositoryCustomImpl.byTags(Set.of("Tag1", "TAG2")), null, 20);
+
+        assertIndexScan(query, "tagsNormalized_dateCreated_id");
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+    void findPageByTags_ShouldUseTagsIndexForAllAndDateIndexForNone() {
+        Query all = PostRepositoryCustomImpl.pageQuery(
+                PostRepositoryCustomImpl.byTags(new TagQuery(TagQuery.Match.ALL, List.of("tag3", "tag4"))), null, 20);
+        Query none = PostRepositoryCustomImpl.pageQuery(
+                PostRepositoryCustomImpl.byTags(new TagQuery(TagQuery.Match.NONE, List.of("tag3"))), null, 20);
+
+        assertIndexScan(all, "tagsNormalized_dateCreated_id");
+        // quoted, as the tags index name ends the same way
+        assertIndexScan(none, "\"dateCreated_id\"");
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+    void findPageByPeriod_ShouldUseDateIndexAfterCursor() {
+        LocalDate today = LocalDate.now();
+        Query query = PostRepositoryCustomImpl.pageQuery(PostRepositoryCustomImpl.byPeriod(today.minusDays(7), today.plusDays(1)),
+                new Cursor(LocalDateTime.now(), "000000000000000000000000"), 20);
+
+        assertIndexScan(query, "dateCreated_id");
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+    void commentPage_ShouldUsePostIdIndex() {
+        Query query = Query.query(where("postId").is("post")).with(Sort.by("dateCreated", "id")).limit(20);
+
+        assertIndexScan(query, Comment.class, "postId_dateCreated_id");
+    }
+
+    @Test
+    void caseInsensitiveMatch_ShouldFindMixedCaseValues() {
+        mongoTemplate.save(new Post("mixed", "content", Set.of("Java"), "MixedCase"));
+
+        assertEquals(1, mongoTemplate.count(
+                PostRepositoryCustomImpl.pageQuery(PostRepositoryCustomImpl.byAuthor("mixedcase"), null, 0), Post.class));
+        assertEquals(1, mongoTemplate.count(
+                PostRepositoryCustomImpl.pageQuery(PostRepositoryCustomImpl.byTags(Set.of("JAVA")), null, 0), Post.class));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+    void search_ShouldRankTitleMatchesFirstAndFindPostsByComment() {
+        Post inTitle = mongoTemplate.save(new Post("Virtual threads explained", "a short note", Set.of("java"), "author"));
+        Post inContent = mongoTemplate.save(new Post("Notes", "some words about virtual threads", Set.of("java"), "author"));
+        Post quiet = mongoTemplate.save(new Post("Quiet post", "nothing to see", Set.of("java"), "author"));
+        mongoTemplate.save(new Comment(quiet.getId(), "user", "have you tried virtual threads?"));
+        CommentRepositoryCustomImpl commentRepository = new CommentRepositoryCustomImpl(mongoTemplate);
+
+        List<SearchHit> hits = postRepository.search("virtual", 10);
+        Map<String, Double> commentHits = commentRepository.searchPostIds("virtual", 10);
+
+        assertEquals(List.of(inTitle.getId(), inContent.getId()), hits.stream().map(hit -> hit.post().getId()).toList());
+        assertNull(hits.get(0).post().getContent());
+        assertEquals(List.of(quiet.getId()), List.copyOf(commentHits.keySet()));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+    void search_ShouldUseTextIndex() {
+        Query query = PostRepositoryCustomImpl.searchQuery("title5", 20);
+
+        assertIndexScan(query, "title_content_text");
+    }
+
+    void assertIndexScan(Query query, String indexName) {
+        assertIndexScan(query, Post.class, indexName);
+    }
+
+    void assertIndexScan(Query query, Class<?> type, String indexName) {
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(type);
+        Document find = new Document("find", mongoTemplate.getCollectionName(type))
+                .append("filter", queryMapper.getMappedObject(query.getQueryObject(), entity))
+                .append("sort", queryMapper.getMappedSort(query.getSortObject(), entity))
+                .append("limit", query.getLimit());
+
+        Document explain = mongoTemplate.getDb().runCommand(new Document("explain", find));
+        String winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+
+        assertTrue(winningPlan.contains("IXSCAN") || winningPlan.contains("TEXT"), winningPlan);
+        assertFalse(winningPlan.contains("COLLSCAN"), winningPlan);
+        assertTrue(winningPlan.contains(indexName), winningPlan);
+    }
+}
@@ -0,0 +1,106 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs only against a real MongoDB: MONGODB_URI=mongodb://localhost:27017 mvn test -Dtest=LikeContentionBenchmarkTest
+@Slf4j
+@EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+class LikeContentionBenchmarkTest {
+
+    static final int THREADS = 32;
+    static final int LIKES_PER_THREAD = 500;
+
+    MongoClient mongoClient;
+    MongoTemplate mongoTemplate;
+    PostRepositoryCustom postRepository;
+    Post post;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = MongoClients.create(System.getenv("MONGODB_URI"));
+        mongoTemplate = new MongoTemplate(mongoClient, "forum_benchmark");
+        postRepository = new PostRepositoryCustomImpl(mongoTemplate);
+        post = mongoTemplate.insert(new Post("Hot post", "content", Set.of("hot"), "author"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(Post.class);
+        mongoClient.close();
+    }
+
+    @Test
+    void incrementLikes_ShouldNotLoseUpdatesUnderContention() throws Exception {
+        long elapsed = hammer(() -> postRepository.incrementLikes(post.getId(), 1));
+
+        int expected = THREADS * LIKES_PER_THREAD;
+        int actual = mongoTemplate.findById(post.getId(), Post.class).getLikes();
+        log.info("$inc: {} likes by {} threads in {} ms ({} ops/s), stored {}",
+                expected, THREADS, elapsed, Math.round(expected * 1000.0 / elapsed), actual);
+        assertEquals(expected, actual);
+    }
+
+    // with @Version a stale save is rejected instead of silently lost; the rejections are what $inc avoids
+    @Test
+    void readModifyWrite_ShouldRejectStaleSavesForComparison() throws Exception {
+        AtomicInteger rejected = new AtomicInteger();
+        long elapsed = hammer(() -> {
+            Post p = mongoTemplate.findById(post.getId(), Post.class);
+            p.addLike();
+            try {
+                mongoTemplate.save(p);
+            } catch (OptimisticLockingFailureException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        int attempted = THREADS * LIKES_PER_THREAD;
+        int actual = mongoTemplate.findById(post.getId(), Post.class).getLikes();
+        log.info("read-modify-write: {} likes by {} threads in {} ms ({} ops/s), stored {}, rejected {}",
+                attempted, THREADS, elapsed, Math.round(attempted * 1000.0 / elapsed), actual, rejected.get());
+        assertEquals(attempted, actual + rejected.get());
+    }
+
+    long hammer(Runnable like) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < LIKES_PER_THREAD; j++) {
+                    like.run();
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = (System.nanoTime() - begin) / 1_000_000;
+        executor.shutdown();
+        return Math.max(elapsed, 1);
+    }
+}
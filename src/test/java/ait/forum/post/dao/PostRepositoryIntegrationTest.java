@@ -0,0 +1,320 @@
+package ait.forum.post.dao;
+
+import ait.forum.configuration.TestMongo;
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against the in-memory MongoDB of TestMongo, or the server in MONGODB_URI when it is set
+@DataMongoTest
+class PostRepositoryIntegrationTest {
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        TestMongo.register(registry);
+    }
+
+    @Autowired
+    PostRepository postRepository;
+
+    @Autowired
+    CommentRepository commentRepository;
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(Post.class);
+        mongoTemplate.dropCollection(Comment.class);
+    }
+
+    @Test
+    void findPageByAuthor_ShouldWalkAllPostsNewestFirstWithoutGapsOrDuplicates() {
+        for (int i = 0; i < 25; i++) {
+            postRepository.save(new Post("title" + i, "content", Set.of("tag"), i % 2 == 0 ? "Author" : "other"));
+        }
+
+        List<Post> walked = new ArrayList<>();
+        Cursor cursor = null;
+        List<Post> page;
+        do {
+            page = postRepository.findPageByAuthor("author", cursor, 5);
+            walked.addAll(page);
+            if (!page.isEmpty()) {
+                Post last = page.get(page.size() - 1);
+                cursor = new Cursor(last.getDateCreated(), last.getId());
+            }
+        } while (page.size() == 5);
+
+        assertEquals(13, walked.size());
+        assertEquals(13, walked.stream().map(Post::getId).distinct().count());
+        for (int i = 1; i < walked.size(); i++) {
+            assertFalse(walked.get(i).getDateCreated().isAfter(walked.get(i - 1).getDateCreated()));
+        }
+    }
+
+    @Test
+    void streamByTags_ShouldMatchIgnoringCase() {
+        postRepository.save(new Post("a", "content", Set.of("Java"), "author"));
+        postRepository.save(new Post("b", "content", Set.of("spring"), "author"));
+        postRepository.save(new Post("c", "content", Set.of("kotlin"), "author"));
+
+        try (Stream<Post> posts = postRepository.streamByTags(TagQuery.any(Set.of("JAVA", "Spring")))) {
+            assertEquals(2, posts.count());
+        }
+    }
+
+    @Test
+    void findPageByTags_ShouldMatchAllOrNoneOfTheTagsPageByPage() {
+        for (int i = 0; i < 30; i++) {
+            Set<String> tags = new HashSet<>(Set.of(i % 2 == 0 ? "Java" : "kotlin"));
+            if (i % 3 == 0) {
+                tags.add("spring");
+            }
+            postRepository.save(new Post("title" + i, "content", tags, "author"));
+        }
+
+        List<Post> all = walk(new TagQuery(TagQuery.Match.ALL, List.of("spring", "java")));
+        List<Post> none = walk(new TagQuery(TagQuery.Match.NONE, List.of("SPRING", "java")));
+
+        // i divisible by 6, and odd i not divisible by 3
+        assertEquals(5, all.size());
+        assertTrue(all.stream().allMatch(p -> p.getTagsNormalized().containsAll(Set.of("java", "spring"))));
+        assertEquals(10, none.size());
+        assertTrue(none.stream().allMatch(p -> p.getTagsNormalized().equals(Set.of("kotlin"))));
+        assertTrue(postRepository.findPageByTags(new TagQuery(TagQuery.Match.ALL, List.of("java", "absent")), null, 10).isEmpty());
+    }
+
+    List<Post> walk(TagQuery query) {
+        List<Post> walked = new ArrayList<>();
+        Cursor cursor = null;
+        List<Post> page;
+        do {
+            page = postRepository.findPageByTags(query, cursor, 3);
+            walked.addAll(page);
+            if (!page.isEmpty()) {
+                Post last = page.get(page.size() - 1);
+                cursor = new Cursor(last.getDateCreated(), last.getId());
+            }
+        } while (page.size() == 3);
+        for (int i = 1; i < walked.size(); i++) {
+            assertFalse(walked.get(i).getDateCreated().isAfter(walked.get(i - 1).getDateCreated()));
+        }
+        assertEquals(walked.size(), walked.stream().map(Post::getId).distinct().count());
+        return walked;
+    }
+
+    @Test
+    void incrementLikes_ShouldReportUnknownPost() {
+        Post post = postRepository.save(new Post("a", "content", Set.of(), "author"));
+
+        assertTrue(postRepository.incrementLikes(post.getId(), 1));
+        assertFalse(postRepository.incrementLikes("000000000000000000000000", 1));
+        assertEquals(1, postRepository.findById(post.getId()).orElseThrow().getLikes());
+    }
+
+    @Test
+    void incrementCommentsCount_ShouldReturnOnlyTheDtoFields() {
+        Post post = postRepository.save(new Post("a", "content", Set.of("Java"), "author"));
+
+        Post counted = postRepository.incrementCommentsCount(post.getId(), 1).orElseThrow();
+
+        assertEquals(1, counted.getCommentsCount());
+        assertEquals("content", counted.getContent());
+        assertEquals(Set.of("Java"), counted.getTags());
+        assertNull(counted.getAuthorNormalized());
+        assertTrue(counted.getTagsNormalized().isEmpty());
+        assertNull(counted.getVersion());
+        assertTrue(postRepository.incrementCommentsCount("000000000000000000000000", 1).isEmpty());
+    }
+
+    @Test
+    void updateFields_ShouldMergeTagsAndLeaveOtherFieldsAlone() {
+        Post post = postRepository.save(new Post("a", "content", Set.of("Java"), "author"));
+        postRepository.incrementLikes(post.getId(), 3);
+
+        PostUpdate update = postRepository.updateFields(post.getId(), "b", null, Set.of("Spring", "Java")).orElseThrow();
+
+        Post updated = update.post();
+        assertEquals(Set.of("spring"), update.addedTags());
+        assertEquals("b", updated.getTitle());
+        assertEquals("content", updated.getContent());
+        assertEquals(Set.of("Java", "Spring"), updated.getTags());
+        assertEquals(3, updated.getLikes());
+        Post stored = postRepository.findById(post.getId()).orElseThrow();
+        assertEquals(Set.of("java", "spring"), stored.getTagsNormalized());
+        assertEquals(post.getVersion() + 2, stored.getVersion());
+        assertTrue(postRepository.updateFields("000000000000000000000000", "b", null, null).isEmpty());
+    }
+
+    @Test
+    void countTags_ShouldCountPostsPerNormalizedTag() {
+        postRepository.save(new Post("a", "content", Set.of("Java", "Spring"), "author"));
+        postRepository.save(new Post("b", "content", Set.of("java"), "author"));
+        postRepository.save(new Post("c", "content", Set.of(), "author"));
+
+        assertEquals(Map.of("java", 2L, "spring", 1L), postRepository.countTags());
+    }
+
+    @Test
+    void summaryPages_ShouldLeaveContentOnTheServer() {
+        String content = "x".repeat(20_000);
+        for (int i = 0; i < 10; i++) {
+            postRepository.save(new Post("title" + i, content, Set.of("Java"), "author"));
+        }
+
+        List<Post> full = postRepository.findPageByTags(TagQuery.any(Set.of("java")), null, 10);
+        List<Post> summaries = postRepository.findSummaryPageByTags(TagQuery.any(Set.of("java")), null, 10);
+
+        assertEquals(full.stream().map(Post::getId).toList(), summaries.stream().map(Post::getId).toList());
+        Post summary = summaries.get(0);
+        assertNull(summary.getContent());
+        assertEquals(Set.of("Java"), summary.getTags());
+        assertEquals("author", summary.getAuthor());
+        assertNotNull(summary.getDateCreated());
+        int fullBytes = full.stream().mapToInt(p -> mongoTemplate.getConverter().convertToMongoType(p).toString().length()).sum();
+        int summaryBytes = summaries.stream().mapToInt(p -> mongoTemplate.getConverter().convertToMongoType(p).toString().length()).sum();
+        assertTrue(summaryBytes * 100 < fullBytes, summaryBytes + " of " + fullBytes + " chars");
+        try (Stream<Post> posts = postRepository.streamSummariesByAuthor("AUTHOR")) {
+            assertTrue(posts.allMatch(p -> p.getContent() == null));
+        }
+    }
+
+    @Test
+    void commentPages_ShouldBeChronologicalAndLatestShouldBeTail() {
+        Post post = postRepository.save(new Post("a", "content", Set.of(), "author"));
+        for (int i = 0; i < 7; i++) {
+            commentRepository.save(new Comment(post.getId(), "user", "message" + i));
+            postRepository.incrementCommentsCount(post.getId(), 1);
+        }
+
+        List<Comment> first = commentRepository.findPage(post.getId(), null, 4);
+        Comment last = first.get(3);
+        List<Comment> second = commentRepository.findPage(post.getId(), new Cursor(last.getDateCreated(), last.getId()), 4);
+
+        assertEquals(List.of("message0", "message1", "message2", "message3"), first.stream().map(Comment::getMessage).toList());
+        assertEquals(List.of("message4", "message5", "message6"), second.stream().map(Comment::getMessage).toList());
+        assertEquals(List.of("message5", "message6"),
+                commentRepository.findLatest(post.getId(), 2).stream().map(Comment::getMessage).toList());
+        assertEquals(7, postRepository.findById(post.getId()).orElseThrow().getCommentsCount());
+    }
+
+    @Test
+    void commentMigration_ShouldMoveEmbeddedCommentsOnceAndCountThem() {
+        Document legacy = new Document("title", "legacy")
+                .append("author", "author")
+                .append("comments", List.of(
+                        new Document("user", "u1").append("message", "m1").append("dateCreated", new Date()).append("likes", 2),
+                        new Document("user", "u2").append("message", "m2").append("dateCreated", new Date()).append("likes", 0)));
+        mongoTemplate.getCollection("posts").insertOne(legacy);
+        String postId = legacy.getObjectId("_id").toHexString();
+        CommentMigration migration = new CommentMigration(mongoTemplate);
+
+        migration.run();
+        migration.run();
+
+        Post post = postRepository.findById(postId).orElseThrow();
+        assertEquals(2, post.getCommentsCount());
+        assertFalse(mongoTemplate.getCollection("posts").find().first().containsKey("comments"));
+        assertEquals(List.of("m1", "m2"), commentRepository.findPage(postId, null, 10).stream().map(Comment::getMessage).toList());
+        for (Document comment : mongoTemplate.getCollection("comments").find()) {
+            assertInstanceOf(ObjectId.class, comment.get("_id"));
+        }
+    }
+
+    @Test
+    void commentMigration_ShouldMoveCommentsOfManyPostsInBatches() {
+        int posts = 4;
+        int perPost = CommentMigration.BATCH_SIZE * 2 / 5;
+        for (int p = 0; p < posts; p++) {
+            List<Document> comments = new ArrayList<>();
+            for (int i = 0; i < perPost; i++) {
+                comments.add(new Document("user", "u").append("message", "m" + i).append("dateCreated", new Date()));
+            }
+            mongoTemplate.getCollection("posts").insertOne(new Document("title", "legacy" + p).append("comments", comments));
+        }
+
+        new CommentMigration(mongoTemplate).run();
+
+        assertEquals(posts * perPost, mongoTemplate.getCollection("comments").countDocuments());
+        for (Post post : postRepository.findAll()) {
+            assertEquals(perPost, post.getCommentsCount());
+        }
+        assertEquals(0, mongoTemplate.getCollection("posts").countDocuments(new Document("comments", new Document("$exists", true))));
+    }
+
+    @Test
+    void normalizationBackfill_ShouldMakeLegacyPostsFindableIgnoringCase() {
+        mongoTemplate.getCollection("posts").insertOne(new Document("title", "legacy")
+                .append("author", "John")
+                .append("tags", List.of("Java", "Spring"))
+                .append("dateCreated", new Date()));
+
+        assertTrue(postRepository.findPageByAuthor("john", null, 10).isEmpty());
+        new PostNormalizationBackfill(mongoTemplate).run();
+
+        assertEquals(1, postRepository.findPageByAuthor("JOHN", null, 10).size());
+        assertEquals(1, postRepository.findPageByTags(TagQuery.any(Set.of("spring")), null, 10).size());
+        Post post = postRepository.findPageByAuthor("john", null, 10).get(0);
+        assertEquals("john", post.getAuthorNormalized());
+        assertEquals(Set.of("java", "spring"), post.getTagsNormalized());
+    }
+
+    @Test
+    void insertAll_ShouldStorePostsReadyForVersionedSaves() {
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            posts.add(new Post("title" + i, "content", Set.of("Java"), "Author"));
+        }
+
+        assertTrue(postRepository.insertAll(posts).isEmpty());
+
+        List<Post> stored = postRepository.streamByTags(TagQuery.any(Set.of("java"))).toList();
+        assertEquals(3, stored.size());
+        Post post = stored.get(0);
+        assertEquals(0L, post.getVersion());
+        post.setTitle("renamed");
+        assertEquals(1L, postRepository.save(post).getVersion());
+    }
+
+    @Test
+    void updateAll_ShouldApplyChangesInOrder() {
+        Post post = postRepository.save(new Post("title", "content", Set.of("Java", "spring"), "author"));
+        String id = post.getId();
+
+        ChangeResults results = postRepository.updateAll(List.of(
+                new PostChange(id, 2, 0, null, null),
+                new PostChange(id, 0, 1, Set.of("Kotlin"), null),
+                new PostChange(id, 0, 0, null, Set.of("JAVA")),
+                new PostChange("000000000000000000000000", 1, 0, null, null)));
+
+        assertTrue(results.failed().isEmpty());
+        assertEquals(Set.of(3), results.notFound());
+        assertEquals(Set.of(id), postRepository.findExistingIds(List.of(id, "000000000000000000000000")));
+        Post stored = postRepository.findById(id).orElseThrow();
+        assertEquals(2, stored.getLikes());
+        assertEquals(1, stored.getCommentsCount());
+        assertEquals(Set.of("spring", "Kotlin"), stored.getTags());
+        assertEquals(Set.of("spring", "kotlin"), stored.getTagsNormalized());
+        assertEquals(post.getVersion() + 3, stored.getVersion());
+    }
+}
@@ -0,0 +1,111 @@
+package ait.forum.post.dao;
+
+import ait.forum.configuration.TestMongo;
+import ait.forum.post.model.Post;
+import ait.forum.post.model.PostStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against the in-memory MongoDB of TestMongo, or the server in MONGODB_URI when it is set
+@DataMongoTest
+class PostStatsRepositoryIntegrationTest {
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        TestMongo.register(registry);
+    }
+
+    @Autowired
+    PostRepository postRepository;
+
+    @Autowired
+    PostStatsRepository postStatsRepository;
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(Post.class);
+        mongoTemplate.dropCollection(PostStats.class);
+    }
+
+    @Test
+    void aggregateStats_ShouldCountPerAuthorAndPerDay() {
+        Post first = postRepository.save(new Post("a", "content", Set.of(), "Alice"));
+        postRepository.save(new Post("b", "content", Set.of(), "alice"));
+        postRepository.save(new Post("c", "content", Set.of(), "bob"));
+        postRepository.incrementLikes(first.getId(), 3);
+        postRepository.incrementCommentsCount(first.getId(), 2);
+
+        Map<String, PostStats> stats = postRepository.aggregateStats(ZoneOffset.UTC).stream()
+                .collect(Collectors.toMap(PostStats::getId, Function.identity()));
+
+        String today = PostStats.dayId(first.getDateCreated().atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDate());
+        assertEquals(Set.of(PostStats.authorId("alice"), PostStats.authorId("bob"), today), stats.keySet());
+        assertCounts(2, 3, 2, stats.get(PostStats.authorId("alice")));
+        assertCounts(1, 0, 0, stats.get(PostStats.authorId("bob")));
+        assertCounts(3, 3, 2, stats.get(today));
+    }
+
+    @Test
+    void increment_ShouldCreateThenAddToDocuments() {
+        String alice = PostStats.authorId("alice");
+        postStatsRepository.increment(Map.of(alice, new StatsDelta(1, 2, 0)));
+        postStatsRepository.increment(Map.of(alice, new StatsDelta(1, -1, 4),
+                PostStats.authorId("bob"), new StatsDelta(1, 0, 0)));
+
+        assertCounts(2, 1, 4, postStatsRepository.findById(alice).orElseThrow());
+        assertEquals(2, postStatsRepository.count());
+    }
+
+    @Test
+    void findDays_ShouldReturnDaysInRangeOldestFirst() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        postStatsRepository.increment(Map.of(
+                PostStats.dayId(day), new StatsDelta(1, 0, 0),
+                PostStats.dayId(day.plusDays(1)), new StatsDelta(2, 0, 0),
+                PostStats.dayId(day.plusDays(2)), new StatsDelta(3, 0, 0),
+                PostStats.authorId("2024-03-02"), new StatsDelta(4, 0, 0)));
+
+        List<PostStats> days = postStatsRepository.findDays(day, day.plusDays(2));
+
+        assertEquals(List.of(day, day.plusDays(1)), days.stream().map(PostStats::getDay).toList());
+    }
+
+    @Test
+    void replace_ShouldOverwriteAndDelete() {
+        postStatsRepository.increment(Map.of(
+                PostStats.authorId("alice"), new StatsDelta(5, 5, 5),
+                PostStats.authorId("bob"), new StatsDelta(1, 0, 0)));
+
+        postStatsRepository.replace(List.of(new PostStats(PostStats.authorId("alice"), 1, 2, 3),
+                new PostStats(PostStats.authorId("carol"), 1, 0, 0)), List.of(PostStats.authorId("bob")));
+
+        Map<String, PostStats> stats = StreamSupport.stream(postStatsRepository.findAll().spliterator(), false)
+                .collect(Collectors.toMap(PostStats::getId, Function.identity()));
+        assertEquals(Set.of(PostStats.authorId("alice"), PostStats.authorId("carol")), stats.keySet());
+        assertCounts(1, 2, 3, stats.get(PostStats.authorId("alice")));
+    }
+
+    static void assertCounts(long posts, long likes, long comments, PostStats stats) {
+        assertEquals(List.of(posts, likes, comments), List.of(stats.getPosts(), stats.getLikes(), stats.getComments()));
+    }
+}
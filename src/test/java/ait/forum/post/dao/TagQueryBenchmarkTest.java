@@ -0,0 +1,161 @@
+package ait.forum.post.dao;
+
+import ait.forum.post.model.Post;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// First page of posts carrying two tags over a skewed tag distribution, three ways: fetching every post of each tag and
+// intersecting on the client (what clients did before match=all), $all listing the common tag first, and $all listing
+// the rare tag first as PostService does. Logs median latency and, where the server explains, documents examined.
+// Runs only against MongoDB: MONGODB_URI=mongodb://localhost:27017 mvn test -Dtest=TagQueryBenchmarkTest
+@Slf4j
+@EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = ".+")
+class TagQueryBenchmarkTest {
+
+    static final int POSTS = 20000;
+    static final int TAGS = 500;
+    static final int TAGS_PER_POST = 3;
+    static final int PAGE = 20;
+    static final int RUNS = 15;
+
+    MongoClient mongoClient;
+    MongoTemplate mongoTemplate;
+    PostRepositoryCustomImpl postRepository;
+    Map<String, Long> counts;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = MongoClients.create(System.getenv("MONGODB_URI"));
+        mongoTemplate = new MongoTemplate(mongoClient, "forum_benchmark");
+        new IndexBootstrap(mongoTemplate).run(null);
+        postRepository = new PostRepositoryCustomImpl(mongoTemplate);
+        // Zipf-like: tag k is drawn with weight 1 / (k + 1), so tag0 is on over a third of the posts and most tags are rare
+        double[] cumulative = new double[TAGS];
+        double total = 0;
+        for (int k = 0; k < TAGS; k++) {
+            total += 1.0 / (k + 1);
+            cumulative[k] = total;
+        }
+        Random random = new Random(42);
+        List<Post> batch = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            Set<String> tags = new HashSet<>();
+            while (tags.size() < TAGS_PER_POST) {
+                int k = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                tags.add("tag" + (k < 0 ? -k - 1 : k));
+            }
+            batch.add(new Post("title" + i, "content", tags, "author" + i % 100));
+            if (batch.size() == 1000) {
+                postRepository.insertAll(batch);
+                batch.clear();
+            }
+        }
+        counts = postRepository.countTags();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection(Post.class);
+        mongoClient.close();
+    }
+
+    @Test
+    void allMatch_ShouldAgreeAcrossStrategies() {
+        for (List<String> pair : List.of(List.of("tag0", "tag1"), List.of("tag0", "tag40"), List.of("tag2", "tag300"))) {
+            List<String> commonFirst = pair.stream().sorted(Comparator.comparingLong(this::count).reversed()).toList();
+            List<String> rareFirst = pair.stream().sorted(Comparator.comparingLong(this::count)).toList();
+
+            List<String> expected = ids(clientIntersection(pair));
+            assertEquals(expected, ids(postRepository.findPageByTags(new TagQuery(TagQuery.Match.ALL, commonFirst), null, PAGE)));
+            assertEquals(expected, ids(postRepository.findPageByTags(new TagQuery(TagQuery.Match.ALL, rareFirst), null, PAGE)));
+
+            log.info("{} ({} and {} posts), {} on the page:", pair, count(commonFirst.get(0)),
+                    count(rareFirst.get(0)), expected.size());
+            report("  client intersection", () -> clientIntersection(pair), null);
+            report("  $all common first  ", () -> postRepository.findPageByTags(new TagQuery(TagQuery.Match.ALL, commonFirst), null, PAGE),
+                    commonFirst);
+            report("  $all rare first    ", () -> postRepository.findPageByTags(new TagQuery(TagQuery.Match.ALL, rareFirst), null, PAGE),
+                    rareFirst);
+        }
+    }
+
+    // every post of every tag crosses the wire, then the first page is cut from the intersection
+    List<Post> clientIntersection(List<String> tags) {
+        Map<String, Post> intersection = null;
+        for (String tag : tags) {
+            Map<String, Post> posts;
+            try (Stream<Post> stream = postRepository.streamByTags(TagQuery.any(Set.of(tag)))) {
+                posts = stream.collect(Collectors.toMap(Post::getId, post -> post));
+            }
+            if (intersection == null) {
+                intersection = posts;
+            } else {
+                intersection.keySet().retainAll(posts.keySet());
+            }
+        }
+        return intersection.values().stream()
+                .sorted(Comparator.comparing(Post::getDateCreated).thenComparing(Post::getId).reversed())
+                .limit(PAGE)
+                .toList();
+    }
+
+    void report(String label, Supplier<List<Post>> query, List<String> allTags) {
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            query.get();
+            times[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(times);
+        String examined = allTags == null ? "all posts of each tag" : docsExamined(allTags);
+        log.info("{} {} ms median, examined {}", label, String.format("%8.2f", times[RUNS / 2] / 1e6), examined);
+    }
+
+    String docsExamined(List<String> tags) {
+        Query query = PostRepositoryCustomImpl.pageQuery(PostRepositoryCustomImpl.byTags(new TagQuery(TagQuery.Match.ALL, tags)), null, PAGE);
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Post.class);
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        Document find = new Document("find", mongoTemplate.getCollectionName(Post.class))
+                .append("filter", queryMapper.getMappedObject(query.getQueryObject(), entity))
+                .append("sort", queryMapper.getMappedSort(query.getSortObject(), entity))
+                .append("limit", PAGE);
+        try {
+            Document explain = mongoTemplate.getDb().runCommand(new Document("explain", find).append("verbosity", "executionStats"));
+            return explain.get("executionStats", Document.class).get("totalDocsExamined").toString();
+        } catch (RuntimeException e) {
+            return "n/a, the server does not explain";
+        }
+    }
+
+    long count(String tag) {
+        return counts.getOrDefault(tag, 0L);
+    }
+
+    static List<String> ids(List<Post> posts) {
+        return posts.stream().map(Post::getId).toList();
+    }
+}
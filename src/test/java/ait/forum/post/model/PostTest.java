@@ -0,0 +1,83 @@
+package ait.forum.post.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostTest {
+
+    // stored value, searched value: pairs the anchored case-insensitive regexes of the old IgnoreCase finders were judged on
+    static final List<String[]> SAMPLES = List.of(
+            new String[]{"John", "john"},
+            new String[]{"JOHN", "jOhN"},
+            new String[]{"john", "johnny"},
+            new String[]{"johnny", "john"},
+            new String[]{"Java", "JAVA"},
+            new String[]{"c++", "C++"},
+            new String[]{"c.b", "cab"},
+            new String[]{"a*", "aaa"},
+            new String[]{"Ünïcödé", "üNÏCÖDÉ"},
+            new String[]{"Straße", "STRASSE"},
+            new String[]{"Ωμέγα", "ΩΜΈΓΑ"},
+            new String[]{"Привет", "пРИВЕТ"},
+            new String[]{"tag ", "tag"},
+            new String[]{"", ""});
+
+    @Test
+    void normalize_ShouldMatchExactlyWhereIgnoreCaseRegexMatched() {
+        for (String[] sample : SAMPLES) {
+            Pattern regex = Pattern.compile("^" + Pattern.quote(sample[1]) + "$", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+            assertEquals(regex.matcher(sample[0]).matches(), Post.normalize(sample[0]).equals(Post.normalize(sample[1])),
+                    sample[0] + " / " + sample[1]);
+        }
+    }
+
+    @Test
+    void constructor_ShouldNormalizeAuthorAndTags() {
+        Post post = new Post("title", "content", new HashSet<>(Set.of("Java", "Spring")), "John");
+
+        assertEquals("john", post.getAuthorNormalized());
+        assertEquals(Set.of("java", "spring"), post.getTagsNormalized());
+    }
+
+    @Test
+    void tagChanges_ShouldKeepNormalizedTagsInSync() {
+        Post post = new Post("title", "content", new HashSet<>(Set.of("Java", "JAVA")), "John");
+
+        post.addTag("Kotlin");
+        post.removeTag("Java");
+        assertEquals(Set.of("java", "kotlin"), post.getTagsNormalized());
+
+        post.removeTag("JAVA");
+        assertEquals(Set.of("kotlin"), post.getTagsNormalized());
+    }
+
+    @Test
+    void removeTag_ShouldKeepNormalizedTagOfRemainingLowercaseVariant() {
+        Post post = new Post("title", "content", new HashSet<>(Set.of("Java", "java")), "John");
+
+        post.removeTag("Java");
+        assertEquals(Set.of("java"), post.getTagsNormalized());
+
+        post.removeTag("java");
+        assertTrue(post.getTagsNormalized().isEmpty());
+    }
+
+    @Test
+    void addTag_ShouldHealPostStoredWithoutNormalizedFields() {
+        Post legacy = new Post();
+        legacy.getTags().add("Java");
+
+        legacy.addTag("Spring");
+        legacy.setAuthor("John");
+
+        assertEquals(Set.of("java", "spring"), legacy.getTagsNormalized());
+        assertEquals("john", legacy.getAuthorNormalized());
+    }
+}
@@ -0,0 +1,139 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.exceptions.PostNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaffeinePostCacheTest {
+
+    private final CaffeinePostCache cache = new CaffeinePostCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+
+    @Test
+    void get_ShouldLoadHotPostOnceForConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<CachedPost>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> cache.get("1", id -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    return new PostDto(id, "title", "content", "author");
+                })));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<CachedPost> result : results) {
+                assertEquals("1", result.get(5, TimeUnit.SECONDS).post().getId());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_ShouldNotCacheFailedLoad() {
+        assertThrows(PostNotFoundException.class, () -> cache.get("1", id -> {
+            throw new PostNotFoundException();
+        }));
+
+        assertEquals("title", cache.get("1", id -> new PostDto(id, "title", "content", "author")).post().getTitle());
+    }
+
+    @Test
+    void get_ShouldReleaseWaitersAndKeyWhenLoaderThrowsError() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<CachedPost> loader = executor.submit(() -> cache.get("1", id -> {
+                loading.countDown();
+                await(release);
+                throw new StackOverflowError();
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<CachedPost> waiter = executor.submit(() -> cache.get("1", id -> fail("load is pending")));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertInstanceOf(StackOverflowError.class,
+                    assertThrows(ExecutionException.class, () -> loader.get(5, TimeUnit.SECONDS)).getCause());
+            assertInstanceOf(StackOverflowError.class,
+                    assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS)).getCause());
+            assertNull(cache.posts.getIfPresent("1"));
+            assertEquals("title", cache.get("1", id -> new PostDto(id, "title", "content", "author")).post().getTitle());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void update_ShouldOnlyTouchCachedPosts() {
+        cache.update("1", post -> fail("nothing cached yet"));
+        cache.get("1", id -> new PostDto(id, "title", "content", "author"));
+
+        cache.update("1", post -> post.toBuilder().likes(post.getLikes() + 1).build());
+
+        assertEquals(1, cache.get("1", id -> fail("should be cached")).post().getLikes());
+    }
+
+    @Test
+    void writes_ShouldNotWaitForPendingLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CachedPost> slow = executor.submit(() -> cache.get("1", id -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return new PostDto(id, "stale", "content", "author");
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+                cache.update("1", post -> post.toBuilder().likes(post.getLikes() + 1).build());
+                cache.invalidate("1");
+            });
+            release.countDown();
+            assertEquals("stale", slow.get(5, TimeUnit.SECONDS).post().getTitle());
+
+            assertEquals("fresh", cache.get("1", id -> {
+                loads.incrementAndGet();
+                return new PostDto(id, "fresh", "content", "author");
+            }).post().getTitle());
+            assertEquals(2, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.PostRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.bson.BsonDocument;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LikeAggregatorTest {
+
+    private PostRepository postRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private LikeAggregator likeAggregator;
+    private final Map<String, Long> stored = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(postRepository.incrementLikes(anyMap())).thenAnswer(invocation -> {
+            Map<String, Long> deltas = invocation.getArgument(0);
+            deltas.forEach((id, delta) -> stored.merge(id, delta, Long::sum));
+            return deltas.size();
+        });
+        when(postRepository.existsById(anyString())).thenReturn(true);
+        likeAggregator = new LikeAggregator(postRepository, meterRegistry, Duration.ofHours(1), Long.MAX_VALUE, 3, 1000, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        likeAggregator.stop();
+    }
+
+    @Test
+    void flush_ShouldCoalesceLikesIntoOneBulkWrite() {
+        for (int i = 0; i < 100; i++) {
+            likeAggregator.addLike("1");
+        }
+        likeAggregator.addLike("2");
+
+        likeAggregator.flush();
+
+        ArgumentCaptor<Map<String, Long>> captor = ArgumentCaptor.captor();
+        verify(postRepository, times(1)).incrementLikes(captor.capture());
+        assertEquals(Map.of("1", 100L, "2", 1L), captor.getValue());
+        assertEquals(50.5, meterRegistry.get("forum.likes.coalescing.ratio").gauge().value());
+    }
+
+    @Test
+    void flush_ShouldNotLoseLikesFromConcurrentWriters() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    likeAggregator.addLike("post" + (i % 3));
+                    if (i % 1000 == 0) {
+                        likeAggregator.flush();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        likeAggregator.flush();
+
+        assertEquals(80_000L, stored.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void flush_ShouldKeepLikesWhenWriteFails() {
+        likeAggregator.addLike("1");
+        when(postRepository.incrementLikes(anyMap())).thenThrow(new IllegalStateException("down"));
+
+        assertThrows(IllegalStateException.class, () -> likeAggregator.flush());
+
+        reset(postRepository);
+        likeAggregator.flush();
+        verify(postRepository).incrementLikes(Map.of("1", 1L));
+    }
+
+    @Test
+    void flush_ShouldRetryOnlyUpdatesTheBulkReportsFailed() {
+        likeAggregator.addLike("1");
+        likeAggregator.addLike("2");
+        likeAggregator.addLike("2");
+        when(postRepository.incrementLikes(anyMap())).thenAnswer(invocation -> {
+            List<String> ids = new ArrayList<>(invocation.<Map<String, Long>>getArgument(0).keySet());
+            throw new BulkOperationException("partly failed", new MongoBulkWriteException(
+                    BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()),
+                    List.of(new BulkWriteError(11000, "failed", new BsonDocument(), ids.indexOf("2"))),
+                    null, new ServerAddress(), Set.of()));
+        });
+
+        assertThrows(BulkOperationException.class, () -> likeAggregator.flush());
+
+        reset(postRepository);
+        likeAggregator.flush();
+        verify(postRepository).incrementLikes(Map.of("2", 2L));
+        assertEquals(0, meterRegistry.get("forum.likes.pending").gauge().value());
+    }
+
+    @Test
+    void flush_ShouldDropLikesThatKeepFailing() {
+        likeAggregator.addLike("1");
+        likeAggregator.addLike("1");
+        when(postRepository.incrementLikes(anyMap())).thenThrow(new IllegalStateException("rejected"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalStateException.class, () -> likeAggregator.flush());
+        }
+
+        assertEquals(0, likeAggregator.flush());
+        assertEquals(2, meterRegistry.get("forum.likes.dropped").counter().count());
+        assertEquals(0, meterRegistry.get("forum.likes.pending").gauge().value());
+        verify(postRepository, times(3)).incrementLikes(anyMap());
+    }
+
+    @Test
+    void addLike_ShouldRejectUnknownPostsAndCheckKnownOnesOnce() {
+        when(postRepository.existsById("missing")).thenReturn(false);
+
+        assertFalse(likeAggregator.addLike("missing"));
+        assertTrue(likeAggregator.addLike("1"));
+        assertTrue(likeAggregator.addLike("1"));
+        verify(postRepository, times(1)).existsById("1");
+
+        likeAggregator.forget("1");
+        likeAggregator.addLike("1");
+        verify(postRepository, times(2)).existsById("1");
+
+        likeAggregator.flush();
+        verify(postRepository).incrementLikes(Map.of("1", 3L));
+    }
+
+    @Test
+    void addLike_ShouldTriggerFlushAtSizeThreshold() throws InterruptedException {
+        likeAggregator.stop();
+        likeAggregator = new LikeAggregator(postRepository, meterRegistry, Duration.ofHours(1), 10, 3, 1000, Duration.ofHours(1));
+        for (int i = 0; i < 10; i++) {
+            likeAggregator.addLike("1");
+        }
+
+        verify(postRepository, timeout(1000)).incrementLikes(Map.of("1", 10L));
+    }
+}
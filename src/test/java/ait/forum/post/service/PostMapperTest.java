@@ -0,0 +1,100 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PostDto;
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.config.Configuration.AccessLevel;
+import org.modelmapper.convention.MatchingStrategies;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// parity with the ModelMapper configuration the services used before PostMapper
+class PostMapperTest {
+
+    private final PostMapper postMapper = new PostMapper();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private ModelMapper modelMapper;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setFieldMatchingEnabled(true)
+                .setFieldAccessLevel(AccessLevel.PRIVATE)
+                .setMatchingStrategy(MatchingStrategies.STRICT);
+        post = new Post("Title", "Content", new HashSet<>(Set.of("java", "spring")), "author");
+        post.setId("1");
+        post.addLike();
+    }
+
+    @Test
+    void toPostDto_ShouldProduceSameJsonAsModelMapper() throws Exception {
+        // comments left the Post model; when it still held them, a post without any mapped to []
+        PostDto expected = modelMapper.map(post, PostDto.class).toBuilder().comments(List.of()).build();
+        assertSameJson(expected, postMapper.toPostDto(post));
+    }
+
+    @Test
+    void toCommentDto_ShouldProduceSameJsonAsModelMapper() throws Exception {
+        Comment comment = new Comment("1", "user", "message");
+        comment.addLike();
+
+        assertSameJson(modelMapper.map(comment, CommentDto.class), postMapper.toCommentDto(comment));
+    }
+
+    @Test
+    void toPostDto_ShouldAttachComments() {
+        PostDto postDto = postMapper.toPostDto(post, List.of(new Comment("1", "user", "message")));
+
+        assertEquals(1, postDto.getComments().size());
+        assertEquals("message", postDto.getComments().get(0).getMessage());
+    }
+
+    @Test
+    void toPostDto_ShouldRenderNoCommentsAsEmptyList() throws Exception {
+        PostDto postDto = postMapper.toPostDto(post);
+
+        assertEquals(List.of(), postDto.getComments());
+        assertTrue(objectMapper.readTree(objectMapper.writeValueAsString(postDto)).get("comments").isArray());
+    }
+
+    @Test
+    void toPost_ShouldMatchModelMapper() {
+        NewPostDto newPostDto = new NewPostDto("Title", "Content", Set.of("java"));
+        Post expected = modelMapper.map(newPostDto, Post.class);
+
+        Post actual = postMapper.toPost("author", newPostDto);
+
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getContent(), actual.getContent());
+        assertEquals(expected.getTags(), actual.getTags());
+        assertEquals("author", actual.getAuthor());
+        assertTrue(actual.addTag("spring"));
+    }
+
+    @Test
+    void toPost_ShouldTolerateMissingTags() {
+        Post actual = postMapper.toPost("author", new NewPostDto("Title", "Content", null));
+
+        assertTrue(actual.getTags().isEmpty());
+    }
+
+    void assertSameJson(Object expected, Object actual) throws Exception {
+        JSONAssert.assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual),
+                JSONCompareMode.NON_EXTENSIBLE);
+    }
+}
@@ -1,24 +1,61 @@
 package ait.forum.post.service;
 
+import ait.forum.post.dao.ChangeResults;
+import ait.forum.post.dao.CommentRepository;
+import ait.forum.post.dao.Cursor;
 import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dao.PostChange;
+import ait.forum.post.dao.PostStatsRepository;
+import ait.forum.post.dao.PostUpdate;
+import ait.forum.post.dao.SearchHit;
+import ait.forum.post.dao.StatsDelta;
+import ait.forum.post.dao.TagQuery;
+import ait.forum.post.dao.TrendingSnapshotRepository;
+import ait.forum.post.dto.BulkOperationDto;
+import ait.forum.post.dto.BulkOperationResultDto;
+import ait.forum.post.dto.BulkResultDto;
+import ait.forum.post.dto.CommentDto;
+import ait.forum.post.dto.DailyStatsDto;
 import ait.forum.post.dto.DatePeriodDto;
 import ait.forum.post.dto.NewCommentDto;
 import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PageDto;
 import ait.forum.post.dto.PostDto;
+import ait.forum.post.dto.PostJson;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
+import ait.forum.post.model.Comment;
 import ait.forum.post.model.Post;
+import ait.forum.post.model.PostStats;
+import ait.forum.post.dto.exceptions.InvalidCursorException;
+import ait.forum.post.dto.exceptions.InvalidSearchException;
+import ait.forum.post.dto.exceptions.InvalidTagQueryException;
 import ait.forum.post.dto.exceptions.PostNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.modelmapper.ModelMapper;
+import org.mockito.Spy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -29,27 +66,49 @@ class PostServiceImplTest {
     private PostRepository postRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private CommentRepository commentRepository;
+
+    @Spy
+    private PostMapper postMapper = new PostMapper();
+
+    @Mock
+    private ObjectProvider<LikeAggregator> likeAggregator;
+
+    private PostCache postCache = PostCache.NONE;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private TagIndex tagIndex;
+
+    private TrendingPosts trendingPosts;
+
+    @Mock
+    private PostStatsRepository postStatsRepository;
+
+    private PostStatistics postStatistics;
 
-    @InjectMocks
     private PostServiceImpl postService;
 
     private Post post;
-    private PostDto postDto;
     private NewPostDto newPostDto;
     private NewCommentDto newCommentDto;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        tagIndex = new TagIndex(postRepository, new SimpleMeterRegistry(), Duration.ofMinutes(10));
+        trendingPosts = new TrendingPosts(postRepository, mock(TrendingSnapshotRepository.class), postMapper, new SimpleMeterRegistry());
+        postStatistics = new PostStatistics(postRepository, postStatsRepository, new SimpleMeterRegistry());
+        postService = new PostServiceImpl(postRepository, commentRepository, postMapper, likeAggregator, postCache, objectMapper, tagIndex, trendingPosts, postStatistics);
         post = new Post("Test title", "Test content", Set.of("tag1", "tag2"), "author1");
         post.setId("1");
-        postDto = new PostDto("1", "Test title", "Test content", "author1", post.getDateCreated(), Set.of("tag1", "tag2"), 0, null);
         newPostDto = new NewPostDto("Updated title", "Updated content", Set.of("tag3", "tag4"));
         newCommentDto = new NewCommentDto("This is a comment");
+    }
 
-        when(modelMapper.map(any(), eq(PostDto.class))).thenReturn(postDto);
-        when(modelMapper.map(any(), eq(Post.class))).thenReturn(post);
+    void useCache() {
+        postCache = new CaffeinePostCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+        postService = new PostServiceImpl(postRepository, commentRepository, postMapper, likeAggregator, postCache, objectMapper, tagIndex, trendingPosts, postStatistics);
     }
 
     @Test
@@ -65,6 +124,198 @@ class PostServiceImplTest {
         assertEquals(0, result.getLikes());
     }
 
+    @Test
+    void importPosts_ShouldSkipInvalidRecordsAndInsertTheRestInBatches() throws IOException {
+        postService.bulkBatchSize = 2;
+        List<List<String>> batches = new ArrayList<>();
+        when(postRepository.insertAll(anyList())).thenAnswer(i -> {
+            List<Post> posts = i.getArgument(0);
+            batches.add(posts.stream().map(Post::getTitle).toList());
+            return Map.of();
+        });
+        String ndjson = """
+                {"author":"a1","title":"t0","content":"c","tags":["java"]}
+                {"author":"a1","content":"no title"}
+                {"author":"a2","title":"t2","tags":"not a list"}
+                {"author":"a2","title":"t3"}
+                {"author":"a3","title":"t4"}
+                """;
+
+        BulkResultDto result = postService.importPosts(input(ndjson));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(3, result.getInserted());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(1, 2), result.getErrors().stream().map(e -> e.getIndex()).toList());
+        assertEquals(List.of(List.of("t0", "t3"), List.of("t4")), batches);
+    }
+
+    @Test
+    void importPosts_ShouldReportRejectedDocumentsAtTheirRequestPosition() throws IOException {
+        when(postRepository.insertAll(anyList())).thenReturn(Map.of(1, "document too large"));
+        String array = "[{\"author\":\"a\",\"title\":\"t0\"},{\"title\":\"no author\"},"
+                + "{\"author\":\"a\",\"title\":\"t2\"}]";
+
+        BulkResultDto result = postService.importPosts(input(array));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(1, result.getInserted());
+        assertEquals(List.of(1, 2), result.getErrors().stream().map(e -> e.getIndex()).toList());
+        assertEquals("document too large", result.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    void importPosts_ShouldKeepWhatWasReadBeforeMalformedJson() throws IOException {
+        when(postRepository.insertAll(anyList())).thenAnswer(i -> Map.of());
+
+        BulkResultDto result = postService.importPosts(input("{\"author\":\"a\",\"title\":\"t0\"}\n{\"author\": oops}\n"));
+
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getErrors().get(0).getIndex());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Malformed JSON"));
+    }
+
+    @Test
+    void applyOperations_ShouldWriteAllChangesAtOnceAndReportEachOperation() {
+        useCache();
+        when(postRepository.findById("1")).thenReturn(Optional.of(post));
+        postService.findPostById("1");
+        when(postRepository.findTagsByIds(Set.of("1", "2"))).thenReturn(Map.of("1", Set.of("tag1")));
+        when(postRepository.updateAll(anyList())).thenReturn(new ChangeResults(Map.of(2, "write failed"), Set.of()));
+        List<BulkOperationDto> operations = List.of(
+                new BulkOperationDto(BulkOperationDto.Type.LIKE, "1", 3, null, null, null),
+                new BulkOperationDto(BulkOperationDto.Type.COMMENT, "1", null, "moderator", "Locked", null),
+                new BulkOperationDto(BulkOperationDto.Type.ADD_TAGS, "2", null, null, null, Set.of("java")),
+                new BulkOperationDto(BulkOperationDto.Type.REMOVE_TAGS, "1", null, null, null, Set.of()),
+                new BulkOperationDto(BulkOperationDto.Type.REMOVE_TAGS, "1", null, null, null, Set.of("tag1")));
+
+        List<BulkOperationResultDto> results = postService.applyOperations(operations);
+
+        assertEquals(List.of(BulkOperationResultDto.Status.APPLIED, BulkOperationResultDto.Status.APPLIED,
+                        BulkOperationResultDto.Status.NOT_FOUND, BulkOperationResultDto.Status.INVALID,
+                        BulkOperationResultDto.Status.FAILED),
+                results.stream().map(BulkOperationResultDto::getStatus).toList());
+        assertEquals("write failed", results.get(4).getMessage());
+        verify(postRepository).updateAll(List.of(
+                new PostChange("1", 3, 0, null, null),
+                new PostChange("1", 0, 1, null, null),
+                new PostChange("1", 0, 0, null, Set.of("tag1"))));
+        verify(commentRepository).saveAll(argThat((List<Comment> comments) ->
+                comments.size() == 1 && comments.get(0).getMessage().equals("Locked")));
+        postService.findPostById("1");
+        verify(postRepository, times(2)).findById("1");
+    }
+
+    @Test
+    void applyOperations_ShouldAdjustTagIndexByWhatTheChangesDidToEachPost() {
+        tagIndex.add(Set.of("java", "spring"));
+        tagIndex.add(Set.of("java"));
+        when(postRepository.findTagsByIds(Set.of("1", "2"))).thenReturn(Map.of("1", Set.of("java", "spring"), "2", Set.of("java")));
+        when(postRepository.updateAll(anyList())).thenReturn(ChangeResults.APPLIED);
+
+        postService.applyOperations(List.of(
+                // already there in another letter case, then taken out and put back
+                new BulkOperationDto(BulkOperationDto.Type.ADD_TAGS, "1", null, null, null, Set.of("Java", "kotlin")),
+                new BulkOperationDto(BulkOperationDto.Type.REMOVE_TAGS, "1", null, null, null, Set.of("SPRING", "kotlin")),
+                new BulkOperationDto(BulkOperationDto.Type.ADD_TAGS, "1", null, null, null, Set.of("kotlin")),
+                new BulkOperationDto(BulkOperationDto.Type.REMOVE_TAGS, "2", null, null, null, Set.of("java", "absent"))));
+
+        assertEquals(1, tagIndex.count("java"));
+        assertEquals(0, tagIndex.count("spring"));
+        assertEquals(1, tagIndex.count("kotlin"));
+        assertEquals(0, tagIndex.count("absent"));
+    }
+
+    @Test
+    void applyOperations_ShouldReportPostsDeletedBeforeTheWriteAsNotFound() {
+        when(postRepository.findTagsByIds(Set.of("1", "2"))).thenReturn(Map.of("1", Set.of(), "2", Set.of()));
+        when(postRepository.updateAll(anyList())).thenReturn(new ChangeResults(Map.of(), Set.of(1, 2)));
+        List<BulkOperationDto> operations = List.of(
+                new BulkOperationDto(BulkOperationDto.Type.LIKE, "1", 2, null, null, null),
+                new BulkOperationDto(BulkOperationDto.Type.LIKE, "2", 5, null, null, null),
+                new BulkOperationDto(BulkOperationDto.Type.COMMENT, "2", null, "moderator", "Locked", null));
+
+        List<BulkOperationResultDto> results = postService.applyOperations(operations);
+
+        assertEquals(List.of(BulkOperationResultDto.Status.APPLIED, BulkOperationResultDto.Status.NOT_FOUND,
+                        BulkOperationResultDto.Status.NOT_FOUND),
+                results.stream().map(BulkOperationResultDto::getStatus).toList());
+        verifyNoInteractions(commentRepository);
+        trendingPosts.fold();
+        assertEquals(1, trendingPosts.tracked());
+    }
+
+    @Test
+    void applyOperations_ShouldNotTouchDatabaseWhenEveryOperationIsInvalid() {
+        List<BulkOperationResultDto> results = postService.applyOperations(List.of(
+                new BulkOperationDto(BulkOperationDto.Type.LIKE, "1", 0, null, null, null),
+                new BulkOperationDto(BulkOperationDto.Type.COMMENT, "1", null, null, "no author", null),
+                new BulkOperationDto(null, "1", null, null, null, null)));
+
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == BulkOperationResultDto.Status.INVALID));
+        verify(postRepository, never()).findTagsByIds(any());
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    void searchPosts_ShouldPageThroughTheRanking() {
+        List<SearchHit> hits = List.of(hit("a", 3), hit("b", 2), hit("c", 1));
+        when(postRepository.search("java", 2)).thenReturn(hits.subList(0, 2));
+        when(postRepository.search("java", 4)).thenReturn(hits);
+
+        PageDto<PostSummaryDto> first = postService.searchPosts("java", false, null, 2);
+        PageDto<PostSummaryDto> second = postService.searchPosts("java", false, first.getNextCursor(), 2);
+
+        assertEquals(List.of("a", "b"), first.getItems().stream().map(PostSummaryDto::getId).toList());
+        assertEquals(List.of("c"), second.getItems().stream().map(PostSummaryDto::getId).toList());
+        assertNull(second.getNextCursor());
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    void searchPosts_ShouldStopAtMaxResults() {
+        postService.searchMaxResults = 2;
+        when(postRepository.search("java", 2)).thenReturn(List.of(hit("a", 3), hit("b", 2)));
+
+        PageDto<PostSummaryDto> page = postService.searchPosts("java", false, null, 5);
+
+        assertEquals(2, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void searchPosts_ShouldAddCommentScoresAndLoadPostsFoundOnlyByComments() {
+        when(postRepository.search("java", 20)).thenReturn(List.of(hit("a", 3), hit("b", 2)));
+        Map<String, Double> commentScores = new LinkedHashMap<>();
+        commentScores.put("c", 2.5);
+        commentScores.put("b", 1.5);
+        commentScores.put("gone", 1.0);
+        when(commentRepository.searchPostIds("java", 20)).thenReturn(commentScores);
+        when(postRepository.findSummariesByIds(List.of("c", "gone"))).thenReturn(List.of(hit("c", 0).post()));
+
+        PageDto<PostSummaryDto> page = postService.searchPosts("java", true, null, null);
+
+        assertEquals(List.of("b", "a", "c"), page.getItems().stream().map(PostSummaryDto::getId).toList());
+    }
+
+    @Test
+    void searchPosts_ShouldRejectBlankTextAndBadCursor() {
+        assertThrows(InvalidSearchException.class, () -> postService.searchPosts(" ", false, null, null));
+        assertThrows(InvalidCursorException.class, () -> postService.searchPosts("java", false, "not a cursor", null));
+        verifyNoInteractions(postRepository);
+    }
+
+    static SearchHit hit(String id, double score) {
+        Post post = new Post("title " + id, null, Set.of("java"), "author1");
+        post.setId(id);
+        return new SearchHit(post, score);
+    }
+
+    static ByteArrayInputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
     @Test
     void findPostById_ShouldReturnPostDto() {
         when(postRepository.findById("1")).thenReturn(Optional.of(post));
@@ -77,6 +328,15 @@ class PostServiceImplTest {
         assertEquals("author1", result.getAuthor());
     }
 
+    @Test
+    void findPostById_ShouldSkipCommentsQueryForPostWithoutComments() {
+        when(postRepository.findById("1")).thenReturn(Optional.of(post));
+
+        postService.findPostById("1");
+
+        verifyNoInteractions(commentRepository);
+    }
+
     @Test
     void findPostById_ShouldThrowPostNotFoundException() {
         when(postRepository.findById("1")).thenReturn(Optional.empty());
@@ -85,34 +345,360 @@ class PostServiceImplTest {
     }
 
     @Test
-    void removePost_ShouldReturnPostDto() {
+    void findPostById_ShouldServeRepeatedReadsFromCache() {
+        useCache();
+        when(postRepository.findById("1")).thenReturn(Optional.of(post));
+
+        postService.findPostById("1");
+        PostDto result = postService.findPostById("1");
+
+        assertEquals("Test title", result.getTitle());
+        verify(postRepository, times(1)).findById("1");
+    }
+
+    @Test
+    void writes_ShouldInvalidateCachedPost() {
+        useCache();
         when(postRepository.findById("1")).thenReturn(Optional.of(post));
+        when(postRepository.updateFields("1", "Updated title", null, null)).thenAnswer(i -> {
+            post.setTitle("Updated title");
+            return Optional.of(new PostUpdate(post, Set.of()));
+        });
+        when(postRepository.incrementCommentsCount("1", 1)).thenReturn(Optional.of(post));
+        when(commentRepository.save(any(Comment.class))).thenAnswer(i -> i.getArgument(0));
+        when(postRepository.removeById("1")).thenReturn(Optional.of(post));
+
+        postService.findPostById("1");
+        postService.updatePost("1", new NewPostDto("Updated title", null, null));
+        assertEquals("Updated title", postService.findPostById("1").getTitle());
+
+        postService.addComment("1", "user1", newCommentDto);
+        postService.findPostById("1");
+
+        postService.removePost("1");
+        when(postRepository.findById("1")).thenReturn(Optional.empty());
+        assertThrows(PostNotFoundException.class, () -> postService.findPostById("1"));
+        // initial load, reload after update, reload after comment, final miss
+        verify(postRepository, times(4)).findById("1");
+    }
+
+    @Test
+    void findPostJson_ShouldRenderOnceAndChangeEtagOnLike() throws Exception {
+        useCache();
+        when(postRepository.findById("1")).thenReturn(Optional.of(post));
+        when(postRepository.incrementLikes("1", 1)).thenReturn(true);
+
+        PostJson first = postService.findPostJson("1");
+        assertSame(first, postService.findPostJson("1"));
+        assertEquals("Test title", objectMapper.readTree(first.body()).get("title").asText());
+
+        postService.addLike("1");
+        PostJson liked = postService.findPostJson("1");
+
+        assertNotEquals(first.etag(), liked.etag());
+        assertEquals(1, objectMapper.readTree(liked.body()).get("likes").asInt());
+        verify(postRepository, times(1)).findById("1");
+    }
+
+    @Test
+    void addLike_ShouldUpdateCachedPostInPlace() {
+        useCache();
+        when(postRepository.findById("1")).thenReturn(Optional.of(post));
+        when(postRepository.incrementLikes("1", 1)).thenReturn(true);
+
+        postService.findPostById("1");
+        postService.addLike("1");
+        postService.addLike("1");
+
+        assertEquals(2, postService.findPostById("1").getLikes());
+        verify(postRepository, times(1)).findById("1");
+    }
+
+    @Test
+    void updatePost_ShouldIssueSingleTargetedUpdate() {
+        Post updated = new Post("Test title", "Test content", new HashSet<>(Set.of("tag1", "tag3", "tag4")), "author1");
+        when(postRepository.updateFields("1", null, null, Set.of("tag3", "tag4"))).thenReturn(Optional.of(new PostUpdate(updated, Set.of("tag3", "tag4"))));
+
+        PostDto result = postService.updatePost("1", new NewPostDto(null, null, Set.of("tag3", "tag4")));
+
+        assertEquals(Set.of("tag1", "tag3", "tag4"), result.getTags());
+        verify(postRepository, never()).findById(any());
+        verify(postRepository, never()).save(any());
+    }
+
+    @Test
+    void updatePost_ShouldThrowPostNotFoundException() {
+        when(postRepository.updateFields(eq("1"), any(), any(), any())).thenReturn(Optional.empty());
+
+        assertThrows(PostNotFoundException.class,
+                () -> postService.updatePost("1", new NewPostDto("Updated title", null, null)));
+    }
+
+    @Test
+    void tagIndex_ShouldFollowNewUpdatedAndRemovedPosts() {
         when(postRepository.save(any(Post.class))).thenReturn(post);
+        postService.addNewPost("author1", newPostDto);
+        Post other = new Post("Other", "content", new HashSet<>(Set.of("Tag1")), "author2");
+        when(postRepository.save(any(Post.class))).thenReturn(other);
+        postService.addNewPost("author2", newPostDto);
+        Post updated = new Post("Test title", "Test content", new HashSet<>(Set.of("tag1", "tag2", "Tag3")), "author1");
+        updated.setId("1");
+        when(postRepository.updateFields("1", null, null, Set.of("tag1", "Tag3")))
+                .thenReturn(Optional.of(new PostUpdate(updated, Set.of("tag3"))));
+        postService.updatePost("1", new NewPostDto(null, null, Set.of("tag1", "Tag3")));
+
+        assertEquals(List.of("tag1:2", "tag2:1", "tag3:1"), tags(postService.findPopularTags(null)));
+        assertEquals(List.of("tag1:2", "tag2:1"), tags(postService.findPopularTags(2)));
+
+        when(postRepository.removeById("1")).thenReturn(Optional.of(updated));
+        postService.removePost("1");
+
+        assertEquals(List.of("tag1:1"), tags(postService.findTagsByPrefix("TAG", null)));
+    }
+
+    @Test
+    void importPosts_ShouldCountTagsOfStoredPostsOnly() throws IOException {
+        when(postRepository.insertAll(anyList())).thenReturn(Map.of(1, "document too large"));
+
+        postService.importPosts(input("{\"author\":\"a\",\"title\":\"t0\",\"tags\":[\"java\"]}\n"
+                + "{\"author\":\"a\",\"title\":\"t1\",\"tags\":[\"spring\"]}\n"));
+
+        assertEquals(List.of("java:1"), tags(postService.findPopularTags(null)));
+    }
+
+    @Test
+    void mutators_ShouldFeedPostStatistics() {
+        when(postRepository.save(any(Post.class))).thenReturn(post);
+        when(postRepository.incrementLikes("1", 1)).thenReturn(true);
+        when(postRepository.incrementCommentsCount("1", 1)).thenReturn(Optional.of(post));
+        when(commentRepository.save(any(Comment.class))).thenAnswer(i -> i.getArgument(0));
+        when(postRepository.findSummariesByIds(Set.of("1"))).thenReturn(List.of(post));
+
+        postService.addNewPost("author1", newPostDto);
+        postService.addLike("1");
+        postService.addLike("1");
+        postService.addComment("1", "user1", newCommentDto);
+        postStatistics.flush();
+
+        StatsDelta expected = new StatsDelta(1, 2, 1);
+        verify(postStatsRepository).increment(Map.of(PostStats.authorId("author1"), expected,
+                PostStats.dayId(PostStatistics.day(post.getDateCreated(), ZoneOffset.UTC)), expected));
+    }
+
+    @Test
+    void findDailyStats_ShouldMapStoredDays() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        when(postStatsRepository.findDays(day, day.plusDays(7))).thenReturn(List.of(new PostStats(PostStats.dayId(day), 4, 10, 2)));
+
+        List<DailyStatsDto> stats = postService.findDailyStats(new DatePeriodDto(day, day.plusDays(7)));
+
+        assertEquals(1, stats.size());
+        assertEquals(day, stats.get(0).getDate());
+        assertEquals(10, stats.get(0).getLikes());
+        assertEquals("author1", postService.findAuthorStats("author1").getAuthor());
+    }
+
+    @Test
+    void findTrendingPosts_ShouldRankByLikesAndCommentsUntilRemoved() {
+        Post other = new Post("Other", "content", Set.of("tag1"), "author2");
+        other.setId("2");
+        when(postRepository.incrementLikes(anyString(), eq(1))).thenReturn(true);
+        when(postRepository.incrementCommentsCount("1", 1)).thenReturn(Optional.of(post));
+        when(commentRepository.save(any(Comment.class))).thenAnswer(i -> i.getArgument(0));
+        when(postRepository.removeById("1")).thenReturn(Optional.of(post));
+        when(postRepository.findSummariesByIds(anyCollection())).thenAnswer(i -> Stream.of(post, other)
+                .filter(p -> i.<Collection<String>>getArgument(0).contains(p.getId()))
+                .toList());
+
+        postService.addLike("2");
+        postService.addLike("2");
+        postService.addComment("1", "user1", newCommentDto);
+        trendingPosts.snapshot();
+
+        assertEquals(List.of("1", "2"), postService.findTrendingPosts(null).stream().map(PostSummaryDto::getId).toList());
+        assertEquals(1, postService.findTrendingPosts(1).size());
+
+        postService.removePost("1");
+        trendingPosts.snapshot();
+
+        assertEquals(List.of("2"), postService.findTrendingPosts(null).stream().map(PostSummaryDto::getId).toList());
+    }
+
+    static List<String> tags(List<TagCountDto> tags) {
+        return tags.stream().map(t -> t.getTag() + ":" + t.getCount()).toList();
+    }
+
+    @Test
+    void removePost_ShouldReturnPostDto() {
+        when(postRepository.removeById("1")).thenReturn(Optional.of(post));
 
         PostDto result = postService.removePost("1");
 
         assertNotNull(result);
         assertEquals("Test title", result.getTitle());
         assertEquals("Test content", result.getContent());
+        verify(commentRepository).deleteByPostId("1");
+        verify(postRepository, never()).findById(any());
+        verify(postRepository, never()).delete(any());
     }
 
     @Test
-    void addLike_ShouldIncreaseLikes() {
-        when(postRepository.findById("1")).thenReturn(Optional.of(post));
+    void removePost_ShouldThrowPostNotFoundException() {
+        when(postRepository.removeById("1")).thenReturn(Optional.empty());
+
+        assertThrows(PostNotFoundException.class, () -> postService.removePost("1"));
+        verify(commentRepository, never()).deleteByPostId(any());
+    }
+
+    @Test
+    void addComment_ShouldStoreCommentInCommentsCollection() {
+        when(postRepository.incrementCommentsCount("1", 1)).thenReturn(Optional.of(post));
+        when(commentRepository.save(any(Comment.class))).thenAnswer(i -> i.getArgument(0));
+
+        PostDto result = postService.addComment("1", "user1", newCommentDto);
+
+        assertEquals(1, result.getComments().size());
+        assertEquals("user1", result.getComments().get(0).getUser());
+        verify(commentRepository).save(argThat(c -> "1".equals(c.getPostId())
+                && "This is a comment".equals(c.getMessage())));
+        verify(postRepository, never()).findById(any());
+        verify(postRepository, never()).save(any());
+    }
+
+    @Test
+    void addComment_ShouldThrowPostNotFoundExceptionAndDropTheComment() {
+        when(postRepository.incrementCommentsCount("1", 1)).thenReturn(Optional.empty());
+        when(commentRepository.save(any(Comment.class))).thenAnswer(i -> i.getArgument(0));
+
+        assertThrows(PostNotFoundException.class, () -> postService.addComment("1", "user1", newCommentDto));
+        verify(commentRepository).delete(argThat(c -> "1".equals(c.getPostId())));
+    }
+
+    @Test
+    void addComment_ShouldNotCountCommentThatFailedToSave() {
+        when(commentRepository.save(any(Comment.class))).thenThrow(new IllegalStateException("write failed"));
+
+        assertThrows(IllegalStateException.class, () -> postService.addComment("1", "user1", newCommentDto));
+        verify(postRepository, never()).incrementCommentsCount(any(), anyInt());
+    }
+
+    @Test
+    void findComments_ShouldReturnNextCursorForFullPage() {
+        Comment first = new Comment("1", "user1", "first");
+        first.setId("c1");
+        Comment second = new Comment("1", "user2", "second");
+        second.setId("c2");
+        when(commentRepository.findPage("1", null, 2)).thenReturn(List.of(first, second));
+
+        PageDto<CommentDto> page = postService.findComments("1", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(new Cursor(second.getDateCreated(), "c2"), Cursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void findComments_ShouldThrowPostNotFoundExceptionForUnknownPost() {
+        when(commentRepository.findPage(eq("1"), isNull(), anyInt())).thenReturn(List.of());
+        when(postRepository.existsById("1")).thenReturn(false);
+
+        assertThrows(PostNotFoundException.class, () -> postService.findComments("1", null, null));
+    }
+
+    @Test
+    void findComments_ShouldRejectMalformedCursor() {
+        assertThrows(InvalidCursorException.class, () -> postService.findComments("1", "not a cursor", null));
+    }
+
+    @Test
+    void addLike_ShouldIncrementLikesInPlace() {
+        when(postRepository.incrementLikes("1", 1)).thenReturn(true);
 
         postService.addLike("1");
 
-        assertEquals(1, post.getLikes());
+        verify(postRepository).incrementLikes("1", 1);
+        verify(postRepository, never()).findById(any());
+        verify(postRepository, never()).save(any());
+    }
+
+    @Test
+    void addLike_ShouldThrowPostNotFoundException() {
+        when(postRepository.incrementLikes("1", 1)).thenReturn(false);
+
+        assertThrows(PostNotFoundException.class, () -> postService.addLike("1"));
+    }
+
+    @Test
+    void addLike_ShouldDelegateToAggregatorWhenEnabled() {
+        LikeAggregator aggregator = mock(LikeAggregator.class);
+        when(likeAggregator.getIfAvailable()).thenReturn(aggregator);
+        when(aggregator.addLike("1")).thenReturn(true);
+
+        postService.addLike("1");
+
+        verify(aggregator).addLike("1");
+        verify(postRepository, never()).incrementLikes(anyString(), anyInt());
+    }
+
+    @Test
+    void addLike_ShouldThrowPostNotFoundExceptionWhenAggregatorRejectsId() {
+        LikeAggregator aggregator = mock(LikeAggregator.class);
+        when(likeAggregator.getIfAvailable()).thenReturn(aggregator);
+        when(postRepository.findSummariesByIds(anyCollection())).thenReturn(List.of());
+
+        assertThrows(PostNotFoundException.class, () -> postService.addLike("missing"));
+
+        // the unknown id never reaches the trending table
+        trendingPosts.fold();
+        assertEquals(0, trendingPosts.tracked());
     }
 
     @Test
     void findPostsByAuthor_ShouldReturnPostDtos() {
-        when(postRepository.findByAuthorIgnoreCase("author1")).thenReturn(Stream.of(post));
+        when(postRepository.findPageByAuthor("author1", null, 20)).thenReturn(List.of(post));
 
-        Iterable<PostDto> result = postService.findPostsByAuthor("author1");
+        PageDto<PostDto> result = postService.findPostsByAuthor("author1", null, null);
 
-        assertNotNull(result);
-        assertTrue(result.iterator().hasNext());
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void findPostSummariesByAuthor_ShouldUseSummaryProjection() {
+        when(postRepository.findSummaryPageByAuthor("author1", null, 1)).thenReturn(List.of(post));
+
+        PageDto<PostSummaryDto> result = postService.findPostSummariesByAuthor("author1", null, 1);
+
+        assertEquals("Test title", result.getItems().get(0).getTitle());
+        assertNotNull(result.getNextCursor());
+        verify(postRepository, never()).findPageByAuthor(any(), any(), anyInt());
+    }
+
+    @Test
+    void streamPostSummariesByPeriod_ShouldMapLazily() {
+        DatePeriodDto period = new DatePeriodDto(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
+        when(postRepository.streamSummariesByPeriod(period.getDateFrom(), period.getDateTo())).thenReturn(Stream.of(post));
+
+        try (Stream<PostSummaryDto> result = postService.streamPostSummariesByPeriod(period)) {
+            assertEquals(List.of("Test title"), result.map(PostSummaryDto::getTitle).toList());
+        }
+        verify(postMapper, never()).toPostDto(any());
+    }
+
+    @Test
+    void findPostsByAuthor_ShouldContinueFromCursor() {
+        Cursor cursor = new Cursor(post.getDateCreated(), "1");
+        when(postRepository.findPageByAuthor("author1", cursor, 1)).thenReturn(List.of(post));
+
+        PageDto<PostDto> result = postService.findPostsByAuthor("author1", cursor.encode(), 1);
+
+        assertEquals(cursor, Cursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    void findPostsByAuthor_ShouldCapLimit() {
+        postService.findPostsByAuthor("author1", null, 1_000_000);
+
+        verify(postRepository).findPageByAuthor("author1", null, 100);
     }
 
     @Test
@@ -120,23 +706,48 @@ class PostServiceImplTest {
         Set<String> tags = new HashSet<>();
         tags.add("tag1");
 
-        when(postRepository.findByTagsInIgnoreCase(tags)).thenReturn(Stream.of(post));
+        when(postRepository.findPageByTags(TagQuery.any(tags), null, 20)).thenReturn(List.of(post));
 
-        Iterable<PostDto> result = postService.findPostsByTags(tags);
+        PageDto<PostDto> result = postService.findPostsByTags(tags, null, null, null);
 
-        assertNotNull(result);
-        assertTrue(result.iterator().hasNext());
+        assertEquals(1, result.getItems().size());
+    }
+
+    @Test
+    void findPostsByTags_ShouldListRarestTagFirstForAll() {
+        tagIndex.add(Set.of("java", "spring"));
+        tagIndex.add(Set.of("java", "jvm"));
+        tagIndex.add(Set.of("java"));
+        when(postRepository.findSummaryPageByTags(any(), isNull(), eq(20))).thenReturn(List.of(post));
+
+        postService.findPostSummariesByTags(Set.of("Java", "Spring", "kotlin", "JVM"), "All", null, null);
+
+        verify(postRepository).findSummaryPageByTags(new TagQuery(TagQuery.Match.ALL, List.of("kotlin", "jvm", "spring", "java")), null, 20);
+    }
+
+    @Test
+    void findPostsByTags_ShouldRejectUnknownMatch() {
+        assertThrows(InvalidTagQueryException.class, () -> postService.findPostsByTags(Set.of("java"), "most", null, null));
+        verifyNoInteractions(postRepository);
     }
 
     @Test
     void findPostsByPeriod_ShouldReturnPostDtos() {
         DatePeriodDto datePeriodDto = new DatePeriodDto(LocalDate.now().minusDays(1), LocalDate.now());
-        when(postRepository.findByDateCreatedBetween(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo())).thenReturn(Stream.of(post));
+        when(postRepository.findPageByPeriod(datePeriodDto.getDateFrom(), datePeriodDto.getDateTo(), null, 20)).thenReturn(List.of(post));
 
-        Iterable<PostDto> result = postService.findPostsByPeriod(datePeriodDto);
+        PageDto<PostDto> result = postService.findPostsByPeriod(datePeriodDto, null, null);
 
-        assertNotNull(result);
-        assertTrue(result.iterator().hasNext());
+        assertEquals(1, result.getItems().size());
     }
-}
 
+    @Test
+    void streamPostsByAuthor_ShouldMapLazily() {
+        when(postRepository.streamByAuthor("author1")).thenReturn(Stream.of(post, post));
+
+        try (Stream<PostDto> result = postService.streamPostsByAuthor("author1")) {
+            verify(postMapper, never()).toPostDto(any(Post.class));
+            assertEquals(2, result.count());
+        }
+    }
+}
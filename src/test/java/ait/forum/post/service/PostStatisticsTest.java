@@ -0,0 +1,131 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dao.PostStatsRepository;
+import ait.forum.post.dao.StatsDelta;
+import ait.forum.post.model.Post;
+import ait.forum.post.model.PostStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PostStatisticsTest {
+
+    private PostRepository postRepository;
+    private PostStatsRepository postStatsRepository;
+    private PostStatistics postStatistics;
+
+    private Post post;
+    private String author;
+    private String day;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        postStatsRepository = mock(PostStatsRepository.class);
+        postStatistics = new PostStatistics(postRepository, postStatsRepository, new SimpleMeterRegistry());
+        post = new Post("title", "content", Set.of(), "Alice");
+        post.setId("1");
+        author = PostStats.authorId("alice");
+        day = PostStats.dayId(PostStatistics.day(post.getDateCreated(), ZoneOffset.UTC));
+    }
+
+    @Test
+    void flush_ShouldSumChangesPerAuthorAndDay() {
+        when(postRepository.findSummariesByIds(Set.of("1"))).thenReturn(List.of(post));
+
+        postStatistics.postAdded(post);
+        postStatistics.commentAdded(post);
+        postStatistics.addLikes("1", 1);
+        postStatistics.addLikes("1", 2);
+        postStatistics.addComments("1", 1);
+
+        assertEquals(2, postStatistics.flush());
+        StatsDelta expected = new StatsDelta(1, 3, 2);
+        verify(postStatsRepository).increment(Map.of(author, expected, day, expected));
+        verify(postRepository, times(1)).findSummariesByIds(any());
+
+        assertEquals(0, postStatistics.flush());
+        verifyNoMoreInteractions(postStatsRepository);
+    }
+
+    @Test
+    void flush_ShouldCutDaysInTheConfiguredZone() {
+        LocalDateTime utcNoon = LocalDateTime.of(2024, 3, 1, 12, 0);
+        ReflectionTestUtils.setField(post, "dateCreated",
+                utcNoon.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime());
+        postStatistics.zone = ZoneId.of("Pacific/Kiritimati");
+
+        postStatistics.postAdded(post);
+        postStatistics.flush();
+
+        StatsDelta expected = new StatsDelta(1, 0, 0);
+        verify(postStatsRepository).increment(Map.of(author, expected, PostStats.dayId(LocalDate.of(2024, 3, 2)), expected));
+    }
+
+    @Test
+    void flush_ShouldDropActivityOfPostsNoLongerStoredAndChangesThatCancelOut() {
+        when(postRepository.findSummariesByIds(Set.of("gone"))).thenReturn(List.of());
+
+        postStatistics.addLikes("gone", 5);
+        postStatistics.postAdded(post);
+        postStatistics.postRemoved(post);
+
+        assertEquals(0, postStatistics.flush());
+        verify(postStatsRepository, never()).increment(any());
+    }
+
+    @Test
+    void flush_ShouldKeepChangesWhenDatabaseFails() {
+        doThrow(new IllegalStateException("down")).doNothing().when(postStatsRepository).increment(any());
+
+        postStatistics.postAdded(post);
+        assertThrows(IllegalStateException.class, postStatistics::flush);
+        postStatistics.postAdded(post);
+        postStatistics.flush();
+
+        verify(postStatsRepository).increment(Map.of(author, new StatsDelta(2, 0, 0), day, new StatsDelta(2, 0, 0)));
+    }
+
+    @Test
+    void reconcile_ShouldRewriteOnlyDocumentsThatDisagreeWithPosts() {
+        when(postRepository.aggregateStats(any())).thenReturn(List.of(
+                new PostStats(author, 2, 3, 1),
+                new PostStats(day, 2, 3, 1),
+                new PostStats(PostStats.authorId("dave"), 1, 0, 0)));
+        when(postStatsRepository.findAll()).thenReturn(List.of(
+                new PostStats(author, 2, 3, 1),
+                new PostStats(day, 2, 2, 1),
+                new PostStats(PostStats.authorId("bob"), 0, 0, 0),
+                new PostStats(PostStats.authorId("carol"), 1, 0, 0)));
+
+        // day is off by a like, carol's posts are gone, dave has no document; bob merely reached zero
+        assertEquals(3, postStatistics.reconcile());
+
+        verify(postStatsRepository).replace(
+                argThat(corrected -> Set.copyOf(corrected.stream().map(PostStats::getId).toList())
+                        .equals(Set.of(day, PostStats.authorId("dave")))),
+                argThat(deleted -> Set.copyOf(deleted).equals(Set.of(PostStats.authorId("bob"), PostStats.authorId("carol")))));
+        assertEquals(3, postStatistics.drifted.get());
+    }
+
+    @Test
+    void author_ShouldAnswerZerosForAuthorWithoutPosts() {
+        PostStats stats = postStatistics.author("Nobody");
+
+        assertEquals(PostStats.authorId("nobody"), stats.getId());
+        assertEquals(0, stats.getPosts());
+    }
+}
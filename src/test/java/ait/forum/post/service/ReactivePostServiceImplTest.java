@@ -0,0 +1,398 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.Cursor;
+import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dao.PostStatsRepository;
+import ait.forum.post.dao.PostUpdate;
+import ait.forum.post.dao.ReactiveCommentRepository;
+import ait.forum.post.dao.ReactivePostRepository;
+import ait.forum.post.dao.StatsDelta;
+import ait.forum.post.dao.TagQuery;
+import ait.forum.post.dto.DatePeriodDto;
+import ait.forum.post.dto.NewCommentDto;
+import ait.forum.post.dto.NewPostDto;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.dto.TagCountDto;
+import ait.forum.post.dto.exceptions.InvalidCursorException;
+import ait.forum.post.dto.exceptions.InvalidSearchException;
+import ait.forum.post.dto.exceptions.InvalidTagQueryException;
+import ait.forum.post.dto.exceptions.PostNotFoundException;
+import ait.forum.post.model.Comment;
+import ait.forum.post.model.Post;
+import ait.forum.post.model.PostStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static ait.forum.post.service.PostServiceImplTest.hit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class ReactivePostServiceImplTest {
+
+    @Mock
+    private ReactivePostRepository postRepository;
+
+    @Mock
+    private ReactiveCommentRepository commentRepository;
+
+    @Spy
+    private PostMapper postMapper = new PostMapper();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private TagIndex tagIndex;
+
+    @Mock
+    private ObjectProvider<LikeAggregator> likeAggregator;
+
+    @Mock
+    private TrendingPosts trendingPosts;
+
+    @Mock
+    private PostRepository blockingPostRepository;
+
+    @Mock
+    private PostStatsRepository postStatsRepository;
+
+    private PostStatistics postStatistics;
+
+    private ReactivePostServiceImpl postService;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        tagIndex = new TagIndex(mock(PostRepository.class), new SimpleMeterRegistry(), Duration.ofMinutes(10));
+        postStatistics = new PostStatistics(blockingPostRepository, postStatsRepository, new SimpleMeterRegistry());
+        postService = new ReactivePostServiceImpl(postRepository, commentRepository, postMapper, likeAggregator, objectMapper, tagIndex,
+                trendingPosts, postStatistics);
+        post = new Post("Test title", "Test content", Set.of("tag1"), "author1");
+        post.setId("1");
+    }
+
+    @Test
+    void findPostById_ShouldSignalNotFound() {
+        when(postRepository.findById("1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(postService.findPostById("1"))
+                .expectError(PostNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void findPostById_ShouldAttachLatestComments() {
+        ReflectionTestUtils.setField(post, "commentsCount", 1);
+        when(postRepository.findById("1")).thenReturn(Mono.just(post));
+        when(commentRepository.findLatest("1", 10)).thenReturn(Flux.just(new Comment("1", "user1", "hello")));
+
+        StepVerifier.create(postService.findPostById("1"))
+                .assertNext(dto -> assertEquals("hello", dto.getComments().get(0).getMessage()))
+                .verifyComplete();
+    }
+
+    @Test
+    void findPostJson_ShouldRenderBodyAndEtag() {
+        when(postRepository.findById("1")).thenReturn(Mono.just(post));
+
+        StepVerifier.create(postService.findPostJson("1"))
+                .assertNext(json -> {
+                    assertTrue(new String(json.body()).contains("\"title\":\"Test title\""));
+                    assertNotNull(json.etag());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void removePost_ShouldRemoveInOneStepThenDropComments() {
+        when(postRepository.removeById("1")).thenReturn(Mono.just(post));
+        when(commentRepository.deleteByPostId("1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(postService.removePost("1"))
+                .assertNext(dto -> assertEquals("1", dto.getId()))
+                .verifyComplete();
+        verify(postRepository, never()).delete(any(Post.class));
+        verify(commentRepository).deleteByPostId("1");
+    }
+
+    @Test
+    void removePost_ShouldSignalNotFound() {
+        when(postRepository.removeById("1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(postService.removePost("1"))
+                .expectError(PostNotFoundException.class)
+                .verify();
+        verify(commentRepository, never()).deleteByPostId(any());
+    }
+
+    @Test
+    void writes_ShouldKeepTagIndexCurrent() {
+        when(postRepository.save(any(Post.class))).thenReturn(Mono.just(post));
+        Post updated = new Post("Test title", "Test content", Set.of("tag1", "tag2"), "author1");
+        updated.setId("1");
+        when(postRepository.updateFields("1", null, null, Set.of("Tag1", "tag2")))
+                .thenReturn(Mono.just(new PostUpdate(updated, Set.of("tag2"))));
+        when(postRepository.removeById("1")).thenReturn(Mono.just(updated));
+        when(commentRepository.deleteByPostId("1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(postService.addNewPost("author1", new NewPostDto("Test title", "Test content", Set.of("tag1"))))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(postService.updatePost("1", new NewPostDto(null, null, Set.of("Tag1", "tag2"))))
+                .assertNext(dto -> assertEquals(Set.of("tag1", "tag2"), dto.getTags()))
+                .verifyComplete();
+        StepVerifier.create(postService.findTagsByPrefix("TA", null))
+                .assertNext(tags -> assertEquals(List.of("tag1", "tag2"), tags.stream().map(TagCountDto::getTag).toList()))
+                .verifyComplete();
+
+        StepVerifier.create(postService.removePost("1"))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(postService.findPopularTags(null))
+                .assertNext(tags -> assertTrue(tags.isEmpty()))
+                .verifyComplete();
+    }
+
+    @Test
+    void likesCommentsAndRemoval_ShouldFeedTrendingPosts() {
+        when(postRepository.incrementLikes("1", 1)).thenReturn(Mono.just(true));
+        when(postRepository.incrementCommentsCount("1", 1)).thenReturn(Mono.just(post));
+        when(commentRepository.save(any(Comment.class))).thenAnswer(i -> Mono.just(i.getArgument(0)));
+        when(postRepository.removeById("1")).thenReturn(Mono.just(post));
+        when(commentRepository.deleteByPostId("1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(postService.addLike("1")).verifyComplete();
+        StepVerifier.create(postService.addComment("1", "user1", new NewCommentDto("hello"))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(postService.removePost("1")).expectNextCount(1).verifyComplete();
+
+        verify(trendingPosts).addLikes("1", 1);
+        verify(trendingPosts).addComments("1", 1);
+        verify(trendingPosts).remove("1");
+    }
+
+    @Test
+    void mutators_ShouldFeedPostStatistics() {
+        when(postRepository.save(any(Post.class))).thenReturn(Mono.just(post));
+        when(postRepository.incrementLikes("1", 1)).thenReturn(Mono.just(true));
+        when(postRepository.incrementCommentsCount("1", 1)).thenReturn(Mono.just(post));
+        when(commentRepository.save(any(Comment.class))).thenAnswer(i -> Mono.just(i.getArgument(0)));
+        when(blockingPostRepository.findSummariesByIds(Set.of("1"))).thenReturn(List.of(post));
+
+        StepVerifier.create(postService.addNewPost("author1", new NewPostDto("Test title", "Test content", Set.of("tag1"))))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(postService.addLike("1")).verifyComplete();
+        StepVerifier.create(postService.addLike("1")).verifyComplete();
+        StepVerifier.create(postService.addComment("1", "user1", new NewCommentDto("hello"))).expectNextCount(1).verifyComplete();
+        postStatistics.flush();
+
+        StatsDelta expected = new StatsDelta(1, 2, 1);
+        verify(postStatsRepository).increment(Map.of(PostStats.authorId("author1"), expected,
+                PostStats.dayId(PostStatistics.day(post.getDateCreated(), ZoneOffset.UTC)), expected));
+    }
+
+    @Test
+    void findStats_ShouldMapStoredCounters() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        when(postStatsRepository.findDays(day, day.plusDays(7))).thenReturn(List.of(new PostStats(PostStats.dayId(day), 4, 10, 2)));
+        when(postStatsRepository.findById(PostStats.authorId("author1")))
+                .thenReturn(Optional.of(new PostStats(PostStats.authorId("author1"), 3, 5, 1)));
+
+        StepVerifier.create(postService.findDailyStats(new DatePeriodDto(day, day.plusDays(7))))
+                .assertNext(stats -> {
+                    assertEquals(day, stats.get(0).getDate());
+                    assertEquals(10, stats.get(0).getLikes());
+                })
+                .verifyComplete();
+        StepVerifier.create(postService.findAuthorStats("author1"))
+                .assertNext(stats -> assertEquals(3, stats.getPosts()))
+                .verifyComplete();
+    }
+
+    @Test
+    void addComment_ShouldCountOnlyAfterSavingAndDropCommentOfMissingPost() {
+        when(commentRepository.save(any(Comment.class))).thenAnswer(i -> Mono.just(i.getArgument(0)));
+        when(postRepository.incrementCommentsCount("1", 1)).thenReturn(Mono.empty());
+        when(commentRepository.delete(any(Comment.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(postService.addComment("1", "user1", new NewCommentDto("hello")))
+                .expectError(PostNotFoundException.class)
+                .verify();
+        verify(commentRepository).delete(any(Comment.class));
+        verifyNoInteractions(trendingPosts);
+
+        when(commentRepository.save(any(Comment.class))).thenReturn(Mono.error(new IllegalStateException("write failed")));
+        StepVerifier.create(postService.addComment("1", "user1", new NewCommentDto("hello")))
+                .expectError(IllegalStateException.class)
+                .verify();
+        verify(postRepository, times(1)).incrementCommentsCount("1", 1);
+    }
+
+    @Test
+    void addLike_ShouldNotFeedTrendingPostsForMissingPost() {
+        when(postRepository.incrementLikes("1", 1)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(postService.addLike("1")).expectError(PostNotFoundException.class).verify();
+        verifyNoInteractions(trendingPosts);
+    }
+
+    @Test
+    void addLike_ShouldDelegateToAggregatorWhenEnabled() {
+        LikeAggregator aggregator = mock(LikeAggregator.class);
+        when(likeAggregator.getIfAvailable()).thenReturn(aggregator);
+        when(aggregator.addLike("1")).thenReturn(true);
+
+        StepVerifier.create(postService.addLike("1")).verifyComplete();
+
+        verify(aggregator).addLike("1");
+        verify(postRepository, never()).incrementLikes(anyString(), anyInt());
+        verify(trendingPosts).addLikes("1", 1);
+    }
+
+    @Test
+    void addLike_ShouldSignalNotFoundWhenAggregatorRejectsId() {
+        LikeAggregator aggregator = mock(LikeAggregator.class);
+        when(likeAggregator.getIfAvailable()).thenReturn(aggregator);
+
+        StepVerifier.create(postService.addLike("missing")).expectError(PostNotFoundException.class).verify();
+        verifyNoInteractions(trendingPosts);
+    }
+
+    @Test
+    void updatePost_ShouldSignalNotFound() {
+        when(postRepository.updateFields(eq("1"), any(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(postService.updatePost("1", new NewPostDto("title", null, null)))
+                .expectError(PostNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void addLike_ShouldSignalNotFoundWhenNothingMatched() {
+        when(postRepository.incrementLikes("1", 1)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(postService.addLike("1"))
+                .expectError(PostNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void findPostsByAuthor_ShouldReturnCursorForFullPage() {
+        when(postRepository.findPageByAuthor("author1", null, 1)).thenReturn(Flux.just(post));
+
+        StepVerifier.create(postService.findPostsByAuthor("author1", null, 1))
+                .assertNext(page -> {
+                    assertEquals(List.of("1"), page.getItems().stream().map(p -> p.getId()).toList());
+                    assertEquals("1", Cursor.decode(page.getNextCursor()).id());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void findPostsByAuthor_ShouldSignalInvalidCursor() {
+        StepVerifier.create(postService.findPostsByAuthor("author1", "not a cursor", null))
+                .expectError(InvalidCursorException.class)
+                .verify();
+        verify(postRepository, never()).findPageByAuthor(any(), any(), anyInt());
+    }
+
+    @Test
+    void findPostsByTags_ShouldMatchAllTagsRarestFirst() {
+        tagIndex.add(Set.of("java", "spring"));
+        tagIndex.add(Set.of("java"));
+        TagQuery query = new TagQuery(TagQuery.Match.ALL, List.of("spring", "java"));
+        when(postRepository.findPageByTags(query, null, 20)).thenReturn(Flux.just(post));
+
+        StepVerifier.create(postService.findPostsByTags(Set.of("Java", "SPRING"), "all", null, null))
+                .assertNext(page -> assertEquals(List.of("1"), page.getItems().stream().map(p -> p.getId()).toList()))
+                .verifyComplete();
+    }
+
+    @Test
+    void streamPostsByTags_ShouldSignalInvalidMatch() {
+        StepVerifier.create(postService.streamPostsByTags(Set.of("java"), "some"))
+                .expectError(InvalidTagQueryException.class)
+                .verify();
+        StepVerifier.create(postService.findPostSummariesByTags(Set.of("java"), "some", null, null))
+                .expectError(InvalidTagQueryException.class)
+                .verify();
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    void searchPosts_ShouldAddCommentScoresAndLoadPostsFoundOnlyByComments() {
+        when(postRepository.search("java", 20)).thenReturn(Flux.just(hit("a", 3), hit("b", 2)));
+        Map<String, Double> commentScores = new LinkedHashMap<>();
+        commentScores.put("c", 2.5);
+        commentScores.put("b", 1.5);
+        commentScores.put("gone", 1.0);
+        when(commentRepository.searchPostIds("java", 20)).thenReturn(Mono.just(commentScores));
+        when(postRepository.findSummariesByIds(List.of("c", "gone"))).thenReturn(Flux.just(hit("c", 0).post()));
+
+        StepVerifier.create(postService.searchPosts("java", true, null, null))
+                .assertNext(page -> assertEquals(List.of("b", "a", "c"), page.getItems().stream().map(PostSummaryDto::getId).toList()))
+                .verifyComplete();
+    }
+
+    @Test
+    void searchPosts_ShouldPageByOffsetUpToMaxResults() {
+        ReflectionTestUtils.setField(postService, "searchMaxResults", 3);
+        when(postRepository.search("java", 2)).thenReturn(Flux.just(hit("a", 3), hit("b", 2)));
+        when(postRepository.search("java", 3)).thenReturn(Flux.just(hit("a", 3), hit("b", 2), hit("c", 1)));
+
+        String cursor = postService.searchPosts("java", false, null, 2).block().getNextCursor();
+        StepVerifier.create(postService.searchPosts("java", false, cursor, 2))
+                .assertNext(page -> {
+                    assertEquals(List.of("c"), page.getItems().stream().map(PostSummaryDto::getId).toList());
+                    assertNull(page.getNextCursor());
+                })
+                .verifyComplete();
+        verify(commentRepository, never()).searchPostIds(any(), anyInt());
+    }
+
+    @Test
+    void searchPosts_ShouldSignalBlankTextAndBadCursor() {
+        StepVerifier.create(postService.searchPosts(" ", false, null, null))
+                .expectError(InvalidSearchException.class)
+                .verify();
+        StepVerifier.create(postService.searchPosts("java", false, "not a cursor", null))
+                .expectError(InvalidCursorException.class)
+                .verify();
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    void findComments_ShouldSignalNotFoundForMissingPost() {
+        when(commentRepository.findPage(eq("1"), isNull(), eq(20))).thenReturn(Flux.empty());
+        when(postRepository.existsById("1")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(postService.findComments("1", null, null))
+                .expectError(PostNotFoundException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,114 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dto.TagCountDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TagIndexTest {
+
+    private PostRepository postRepository;
+    private TagIndex tagIndex;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        tagIndex = new TagIndex(postRepository, new SimpleMeterRegistry(), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tagIndex.stop();
+    }
+
+    @Test
+    void mostUsed_ShouldRankByCountThenTag() {
+        tagIndex.add(Set.of("Java", "Spring", "Mongo"));
+        tagIndex.add(Set.of("java", "spring"));
+        tagIndex.add(Set.of("JAVA", "jvm"));
+
+        assertEquals(List.of("java:3", "spring:2", "jvm:1", "mongo:1"), tags(tagIndex.mostUsed(10)));
+        assertEquals(List.of("java:3", "spring:2", "jvm:1"), tags(tagIndex.mostUsed(3)));
+        assertEquals(List.of(), tagIndex.mostUsed(0));
+    }
+
+    @Test
+    void mostUsed_ShouldKeepRankingUntilRefreshIsDue() {
+        tagIndex.add(Set.of("java"));
+        assertEquals(List.of("java:1"), tags(tagIndex.mostUsed(10)));
+
+        tagIndex.add(Set.of("spring"));
+        assertEquals(List.of("java:1"), tags(tagIndex.mostUsed(10)));
+        // a larger page than the kept ranking holds is computed right away
+        assertEquals(List.of("java:1", "spring:1"), tags(tagIndex.mostUsed(11)));
+
+        tagIndex.add(Set.of("spring"));
+        tagIndex.rankingRefresh = Duration.ZERO;
+        assertEquals(List.of("spring:2", "java:1"), tags(tagIndex.mostUsed(10)));
+    }
+
+    @Test
+    void mostUsed_ShouldOnlyOfferTagsStartingWithPrefix() {
+        tagIndex.add(Set.of("java", "javascript", "jvm"));
+        tagIndex.add(Set.of("javascript"));
+
+        assertEquals(List.of("javascript:2", "java:1"), tags(tagIndex.mostUsed("JaV", 10)));
+        assertEquals(List.of(), tagIndex.mostUsed("kotlin", 10));
+        assertEquals(3, tagIndex.mostUsed("", 10).size());
+    }
+
+    @Test
+    void remove_ShouldDropTagsNoPostCarriesAnymore() {
+        tagIndex.add(Set.of("java", "spring"));
+        tagIndex.add(Set.of("java"));
+
+        tagIndex.add(Set.of("java", "JAVA"));
+        tagIndex.remove(Set.of("Java", "spring"));
+        tagIndex.remove(Set.of("java", "JAVA"));
+        tagIndex.remove(Set.of("never-added"));
+
+        assertEquals(List.of("java:1"), tags(tagIndex.mostUsed(10)));
+        assertEquals(0, tagIndex.count("spring"));
+    }
+
+    @Test
+    void rebuild_ShouldReplaceCountsAndKeepChangesMadeWhileReading() {
+        tagIndex.add(Set.of("stale"));
+        when(postRepository.countTags()).thenAnswer(invocation -> {
+            // a post written while the database is being read, after the read passed it
+            tagIndex.add(Set.of("new"));
+            return Map.of("java", 2L, "spring", 1L);
+        });
+
+        tagIndex.rebuild();
+
+        assertEquals(List.of("java:2", "new:1", "spring:1"), tags(tagIndex.mostUsed(10)));
+        tagIndex.add(Set.of("spring"));
+        assertEquals(2, tagIndex.count("spring"));
+    }
+
+    @Test
+    void rebuild_ShouldKeepCurrentCountsWhenDatabaseFails() {
+        tagIndex.add(Set.of("java"));
+        when(postRepository.countTags()).thenThrow(new IllegalStateException("down"));
+
+        assertThrows(IllegalStateException.class, tagIndex::rebuild);
+        tagIndex.add(Set.of("java"));
+
+        assertEquals(2, tagIndex.count("java"));
+    }
+
+    static List<String> tags(List<TagCountDto> tags) {
+        return tags.stream().map(t -> t.getTag() + ":" + t.getCount()).toList();
+    }
+}
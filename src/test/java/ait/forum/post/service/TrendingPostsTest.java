@@ -0,0 +1,214 @@
+package ait.forum.post.service;
+
+import ait.forum.post.dao.PostRepository;
+import ait.forum.post.dao.TrendingSnapshotRepository;
+import ait.forum.post.dto.PostSummaryDto;
+import ait.forum.post.model.Post;
+import ait.forum.post.model.TrendingSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TrendingPostsTest {
+
+    static final Instant START = Instant.parse("2024-03-01T12:00:00Z");
+
+    private PostRepository postRepository;
+    private TrendingSnapshotRepository snapshotRepository;
+    private TrendingPosts trendingPosts;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        snapshotRepository = mock(TrendingSnapshotRepository.class);
+        when(postRepository.findSummariesByIds(anyCollection())).thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0)
+                .stream()
+                .map(id -> {
+                    Post post = new Post("title " + id, null, Set.of(), "author");
+                    post.setId(id);
+                    return post;
+                })
+                .toList());
+        trendingPosts = new TrendingPosts(postRepository, snapshotRepository, new PostMapper(), new SimpleMeterRegistry());
+        trendingPosts.halfLife = Duration.ofHours(6);
+        trendingPosts.commentWeight = 3;
+        trendingPosts.size = 3;
+        at(START);
+        trendingPosts.rebase(START);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        trendingPosts.stop();
+    }
+
+    void at(Instant now) {
+        trendingPosts.clock = Clock.fixed(now, ZoneOffset.UTC);
+    }
+
+    List<String> feed() {
+        trendingPosts.snapshot();
+        return trendingPosts.feed(10).stream().map(PostSummaryDto::getId).toList();
+    }
+
+    @Test
+    void feed_ShouldRankCommentsAboveLikesAndKeepTopSize() {
+        trendingPosts.addLikes("a", 2);
+        trendingPosts.addComments("b", 1);
+        trendingPosts.addLikes("c", 1);
+        trendingPosts.addLikes("d", 4);
+
+        assertEquals(List.of("d", "b", "a"), feed());
+        assertEquals(List.of("d"), trendingPosts.feed(1).stream().map(PostSummaryDto::getId).toList());
+    }
+
+    @Test
+    void feed_ShouldLetRecentActivityOvertakeOlderActivity() {
+        trendingPosts.addLikes("old", 10);
+        // two half-lives later the old likes are worth 2.5 of today's
+        at(START.plus(Duration.ofHours(12)));
+        trendingPosts.addLikes("new", 3);
+
+        assertEquals(List.of("new", "old"), feed());
+    }
+
+    @Test
+    void add_ShouldEvictLowestScoreOnlyWhenOutweighedAtCapacity() {
+        trendingPosts.capacity = 2;
+        trendingPosts.addLikes("a", 5);
+        trendingPosts.addLikes("b", 2);
+
+        trendingPosts.addLikes("c", 1);
+        assertEquals(List.of("a", "b"), feed());
+
+        trendingPosts.addLikes("d", 3);
+        assertEquals(List.of("a", "d"), feed());
+        assertEquals(2, trendingPosts.tracked());
+    }
+
+    @Test
+    void add_ShouldLoseNoEventRecordedConcurrentlyWithFolds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            writers.add(executor.submit(() -> {
+                // many posts, so adders keep going idle and being closed while others still write to them
+                for (int i = 0; i < 10_000; i++) {
+                    trendingPosts.addLikes("p" + i % 40, 1);
+                }
+            }));
+        }
+        while (!writers.stream().allMatch(Future::isDone)) {
+            trendingPosts.fold();
+        }
+        executor.shutdown();
+        trendingPosts.fold();
+
+        assertEquals(40, trendingPosts.scores.size());
+        assertTrue(trendingPosts.scores.values().stream().allMatch(score -> score == 1000.0), trendingPosts.scores::toString);
+    }
+
+    @Test
+    void remove_ShouldDropPostFromFeed() {
+        trendingPosts.addLikes("a", 1);
+        trendingPosts.addLikes("b", 1);
+
+        trendingPosts.remove("a");
+        trendingPosts.remove("never-added");
+
+        assertEquals(List.of("b"), feed());
+    }
+
+    @Test
+    void snapshot_ShouldSkipPostsNoLongerStored() {
+        trendingPosts.addLikes("a", 2);
+        trendingPosts.addLikes("gone", 5);
+        when(postRepository.findSummariesByIds(anyCollection())).thenAnswer(invocation -> {
+            Post post = new Post("title", null, Set.of(), "author");
+            post.setId("a");
+            return List.of(post);
+        });
+
+        assertEquals(List.of("a"), feed());
+    }
+
+    @Test
+    void snapshot_ShouldRebaseLongRunningScoresWithoutChangingRanking() {
+        trendingPosts.addLikes("a", 1);
+        at(START.plus(Duration.ofHours(6 * 70)));
+        trendingPosts.addLikes("b", 2);
+        trendingPosts.addLikes("a", 1);
+
+        assertEquals(List.of("b", "a"), feed());
+        assertEquals(START.plus(Duration.ofHours(6 * 70)), trendingPosts.epoch);
+        assertEquals(2.0, trendingPosts.scores.get("b"), 1e-9);
+    }
+
+    @Test
+    void restore_ShouldCarrySavedScoresToCurrentEpoch() {
+        trendingPosts.addLikes("a", 1);
+        trendingPosts.snapshot();
+        ArgumentCaptor<TrendingSnapshot> saved = ArgumentCaptor.forClass(TrendingSnapshot.class);
+        verify(snapshotRepository).save(saved.capture());
+
+        // a restart one half-life later: the saved like is worth half a like now
+        Instant restart = START.plus(Duration.ofHours(6));
+        TrendingPosts restarted = new TrendingPosts(postRepository, snapshotRepository, new PostMapper(), new SimpleMeterRegistry());
+        restarted.clock = Clock.fixed(restart, ZoneOffset.UTC);
+        restarted.rebase(restart);
+        restarted.addLikes("b", 1);
+        when(snapshotRepository.findById(restarted.snapshotId())).thenReturn(Optional.of(saved.getValue()));
+
+        restarted.restore();
+
+        assertEquals(Map.of("a", 0.5, "b", 1.0), restarted.scores);
+        assertEquals(List.of("b", "a"), restarted.feed(10).stream().map(PostSummaryDto::getId).toList());
+    }
+
+    @Test
+    void snapshot_ShouldBeKeptPerInstance() {
+        trendingPosts.instanceId = "node-1";
+        TrendingPosts other = new TrendingPosts(postRepository, snapshotRepository, new PostMapper(), new SimpleMeterRegistry());
+        other.instanceId = "node-2";
+        trendingPosts.addLikes("a", 1);
+        other.addLikes("b", 1);
+
+        trendingPosts.snapshot();
+        other.snapshot();
+
+        ArgumentCaptor<TrendingSnapshot> saved = ArgumentCaptor.forClass(TrendingSnapshot.class);
+        verify(snapshotRepository, times(2)).save(saved.capture());
+        assertEquals(List.of("posts:node-1", "posts:node-2"), saved.getAllValues().stream().map(TrendingSnapshot::getId).toList());
+        assertEquals(Set.of("a"), saved.getAllValues().get(0).getScores().keySet());
+    }
+
+    @Test
+    void stop_ShouldSaveTheScoresRecordedSinceTheLastSnapshot() throws InterruptedException {
+        trendingPosts.addLikes("a", 1);
+
+        trendingPosts.stop();
+
+        ArgumentCaptor<TrendingSnapshot> saved = ArgumentCaptor.forClass(TrendingSnapshot.class);
+        verify(snapshotRepository).save(saved.capture());
+        assertEquals(Set.of("a"), saved.getValue().getScores().keySet());
+    }
+}
@@ -0,0 +1,131 @@
+package ait.forum.security;
+
+import ait.forum.accounting.dao.UserAccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessTokenServiceTest {
+
+    // the tokenVersion of each stored account
+    private final Map<String, Long> tokenVersions = new ConcurrentHashMap<>();
+
+    private UserAccountRepository userAccountRepository;
+
+    private AccessTokenService accessTokenService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userAccountRepository = mock(UserAccountRepository.class);
+        when(userAccountRepository.findTokenVersion(anyString()))
+                .thenAnswer(i -> Optional.ofNullable(tokenVersions.get(i.<String>getArgument(0))));
+        tokenVersions.put("john", 0L);
+        tokenVersions.put("mary", 0L);
+        accessTokenService = service("", Duration.ofMinutes(1));
+    }
+
+    AccessTokenService service(String secret, Duration versionTtl) throws Exception {
+        return new AccessTokenService(userAccountRepository, true, secret, Duration.ofMinutes(15), versionTtl, 100);
+    }
+
+    @Test
+    void issue_ShouldCarryLoginAndRoles() {
+        String token = accessTokenService.issue(login("john", "ROLE_USER", "ROLE_MODERATOR")).orElseThrow();
+
+        Jwt jwt = accessTokenService.decoder().decode(token);
+        AbstractAuthenticationToken authentication = accessTokenService.authenticationConverter().convert(jwt);
+
+        assertEquals("john", authentication.getName());
+        assertEquals(Set.of("ROLE_USER", "ROLE_MODERATOR"), authentication.getAuthorities()
+                .stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    void issue_ShouldNotIssueWhenDisabledOrWithoutPassword() throws Exception {
+        AccessTokenService disabled = new AccessTokenService(userAccountRepository, false, "", Duration.ofMinutes(15),
+                Duration.ofMinutes(1), 100);
+
+        assertTrue(disabled.issue(login("john", "ROLE_USER")).isEmpty());
+        assertTrue(accessTokenService.issue(new TestingAuthenticationToken("john", null, "ROLE_USER")).isEmpty());
+        assertTrue(accessTokenService.issue(login("nobody", "ROLE_USER")).isEmpty());
+    }
+
+    @Test
+    void revoke_ShouldRejectTokensIssuedBefore() {
+        String old = accessTokenService.issue(login("john", "ROLE_USER")).orElseThrow();
+        String other = accessTokenService.issue(login("mary", "ROLE_USER")).orElseThrow();
+
+        tokenVersions.merge("john", 1L, Long::sum);
+        accessTokenService.revoke("john");
+
+        assertThrows(JwtValidationException.class, () -> accessTokenService.decoder().decode(old));
+        assertEquals("mary", accessTokenService.decoder().decode(other).getSubject());
+        String fresh = accessTokenService.issue(login("john", "ROLE_USER")).orElseThrow();
+        assertEquals("john", accessTokenService.decoder().decode(fresh).getSubject());
+    }
+
+    @Test
+    void revoke_ShouldRejectTokensOfRemovedUser() {
+        String token = accessTokenService.issue(login("john", "ROLE_USER")).orElseThrow();
+
+        tokenVersions.remove("john");
+        accessTokenService.revoke("john");
+
+        assertThrows(JwtValidationException.class, () -> accessTokenService.decoder().decode(token));
+    }
+
+    // two instances sharing the secret and the database, the second one rereading versions on every request
+    @Test
+    void decode_ShouldAgreeAcrossInstancesBeforeAndAfterRevoke() throws Exception {
+        String secret = Base64.getEncoder().encodeToString(new byte[32]);
+        AccessTokenService first = service(secret, Duration.ofMinutes(1));
+        AccessTokenService second = service(secret, Duration.ZERO);
+        String old = first.issue(login("john", "ROLE_USER")).orElseThrow();
+        assertEquals("john", second.decoder().decode(old).getSubject());
+
+        tokenVersions.merge("john", 1L, Long::sum);
+        first.revoke("john");
+
+        assertThrows(JwtValidationException.class, () -> first.decoder().decode(old));
+        assertThrows(JwtValidationException.class, () -> second.decoder().decode(old));
+        String fromFirst = first.issue(login("john", "ROLE_USER")).orElseThrow();
+        String fromSecond = second.issue(login("john", "ROLE_USER")).orElseThrow();
+        assertEquals("john", second.decoder().decode(fromFirst).getSubject());
+        assertEquals("john", first.decoder().decode(fromSecond).getSubject());
+    }
+
+    @Test
+    void decode_ShouldRejectTokenSignedWithAnotherKey() throws Exception {
+        String secret = Base64.getEncoder().encodeToString(new byte[32]);
+        AccessTokenService foreign = service(secret, Duration.ofMinutes(1));
+        String token = foreign.issue(login("john", "ROLE_ADMINISTRATOR")).orElseThrow();
+
+        assertThrows(Exception.class, () -> accessTokenService.decoder().decode(token));
+    }
+
+    Authentication login(String login, String... authorities) {
+        return UsernamePasswordAuthenticationToken.authenticated(login, null, AuthorityUtils.createAuthorityList(authorities));
+    }
+}
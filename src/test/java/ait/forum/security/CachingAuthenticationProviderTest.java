@@ -0,0 +1,120 @@
+package ait.forum.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CachingAuthenticationProviderTest {
+
+    private UserDetailsService userDetailsService;
+    private PasswordEncoder passwordEncoder;
+    private AuthenticationCache authenticationCache;
+    private SimpleMeterRegistry meterRegistry;
+    private ProviderManager authenticationManager;
+    private final AtomicReference<String> storedHash = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        passwordEncoder = spy(new BCryptPasswordEncoder(4));
+        storedHash.set(passwordEncoder.encode("secret"));
+        userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("john"))
+                .thenAnswer(i -> User.withUsername("john").password(storedHash.get()).roles("USER").build());
+        meterRegistry = new SimpleMeterRegistry();
+        authenticationCache = new AuthenticationCache(meterRegistry, Duration.ofMinutes(5), 100);
+        // ProviderManager erases credentials after authentication, exactly as in the filter chain
+        authenticationManager = new ProviderManager(
+                new CachingAuthenticationProvider(userDetailsService, passwordEncoder, authenticationCache));
+        clearInvocations(passwordEncoder);
+    }
+
+    @Test
+    void authenticate_ShouldSkipDatabaseAndBCryptOnRepeatedCredentials() {
+        for (int i = 0; i < 5; i++) {
+            Authentication authentication = authenticationManager.authenticate(token("secret"));
+            assertEquals("john", authentication.getName());
+        }
+
+        verify(userDetailsService, times(1)).loadUserByUsername("john");
+        verify(passwordEncoder, times(1)).matches(anyString(), anyString());
+        assertEquals(4, meterRegistry.get("cache.gets").tag("cache", "auth.users").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void authenticate_ShouldRejectWrongPasswordAfterCachedSuccess() {
+        authenticationManager.authenticate(token("secret"));
+
+        assertThrows(BadCredentialsException.class, () -> authenticationManager.authenticate(token("wrong")));
+    }
+
+    @Test
+    void authenticate_ShouldReloadAfterEviction() {
+        authenticationManager.authenticate(token("secret"));
+        storedHash.set(passwordEncoder.encode("changed"));
+        authenticationCache.evict("john");
+
+        assertThrows(BadCredentialsException.class, () -> authenticationManager.authenticate(token("secret")));
+        assertEquals("john", authenticationManager.authenticate(token("changed")).getName());
+    }
+
+    // a password change that saves and evicts while an authentication is loading the old account
+    @Test
+    void authenticate_ShouldNotCacheUserLoadedBeforeConcurrentEviction() {
+        String oldHash = storedHash.get();
+        when(userDetailsService.loadUserByUsername("john")).thenAnswer(i -> {
+            UserDetails loaded = User.withUsername("john").password(storedHash.get()).roles("USER").build();
+            if (loaded.getPassword().equals(oldHash)) {
+                storedHash.set(passwordEncoder.encode("changed"));
+                authenticationCache.evict("john");
+            }
+            return loaded;
+        });
+
+        // the load itself saw the old password, so this one request still passes
+        authenticationManager.authenticate(token("secret"));
+
+        assertNull(authenticationCache.getUserFromCache("john"));
+        assertThrows(BadCredentialsException.class, () -> authenticationManager.authenticate(token("secret")));
+        assertEquals("john", authenticationManager.authenticate(token("changed")).getName());
+    }
+
+    @Test
+    void putAndMarkVerified_ShouldDropStaleGenerations() {
+        long generation = authenticationCache.generation("john");
+        UserDetails loaded = authenticationCache.stamp(User.withUsername("john").password(storedHash.get()).roles("USER").build(),
+                generation);
+
+        authenticationCache.evict("john");
+        authenticationCache.putUserInCache(loaded);
+        authenticationCache.markVerified(loaded, "secret");
+
+        assertNull(authenticationCache.getUserFromCache("john"));
+        assertFalse(authenticationCache.isVerified(loaded, "secret"));
+        UserDetails reloaded = authenticationCache.stamp(loaded, authenticationCache.generation("john"));
+        authenticationCache.putUserInCache(reloaded);
+        authenticationCache.markVerified(reloaded, "secret");
+        assertNotNull(authenticationCache.getUserFromCache("john"));
+        assertTrue(authenticationCache.isVerified(reloaded, "secret"));
+    }
+
+    UsernamePasswordAuthenticationToken token(String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated("john", password);
+    }
+}